@@ -3,6 +3,7 @@ package db;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Допоміжний клас {@code ServicemanDbHelper} інкапсулює роботу з
@@ -20,6 +21,11 @@ import java.util.List;
  * </ul>
  *
  * <p>База даних зберігається у файлі {@code servicemen.db} у корені проєкту.</p>
+ *
+ * <p>Для пошуку за суфіксом ПІБ у таблиці зберігається допоміжний стовпець
+ * {@code name_rev} — розвернутий ПІБ у нижньому регістрі з B-tree індексом.
+ * Умова «закінчується на ...» перетворюється на діапазонний пошук за
+ * префіксом, який SQLite обслуговує індексом без повного перегляду таблиці.</p>
  */
 public class ServicemanDbHelper {
 
@@ -30,6 +36,12 @@ public class ServicemanDbHelper {
      */
     private static final String DB_URL = "jdbc:sqlite:servicemen.db";
 
+    /**
+     * Символ, більший за будь-який інший у порядку BINARY (U+10FFFF).
+     * Використовується як верхня межа діапазону під час пошуку за префіксом.
+     */
+    private static final String MAX_CHAR = new String(Character.toChars(Character.MAX_CODE_POINT));
+
     /**
      * Конструктор за замовчуванням.
      * Під час створення екземпляра автоматично викликає {@link #initDatabase()},
@@ -70,10 +82,13 @@ public class ServicemanDbHelper {
                         name     TEXT    NOT NULL,
                         rank     TEXT    NOT NULL,
                         years    INTEGER NOT NULL,
-                        position TEXT
+                        position TEXT,
+                        name_rev TEXT                -- розвернутий ПІБ для пошуку за суфіксом
                     )
                     """);
 
+            migrateReversedNames(conn, st);
+
             // Перевіряємо, чи є дані
             try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM servicemen")) {
                 if (rs.next() && rs.getInt(1) == 0) {
@@ -86,6 +101,7 @@ public class ServicemanDbHelper {
                         ('O', 'Ірина Романюк', 'підполковник', 15, 'начальник штабу'),
                         ('S', 'Юрій Кравченко', 'солдат', 0, '')
                         """);
+                    fillReversedNames(conn);
                 }
             }
 
@@ -94,6 +110,69 @@ public class ServicemanDbHelper {
         }
     }
 
+    /**
+     * Додає стовпець {@code name_rev} до таблиці, створеної старішою версією
+     * програми, заповнює його та створює індекс для пошуку за суфіксом.
+     *
+     * @param conn відкрите з'єднання
+     * @param st   інструкція для виконання DDL
+     * @throws SQLException якщо міграція не вдалася
+     */
+    private void migrateReversedNames(Connection conn, Statement st) throws SQLException {
+        boolean hasColumn = false;
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(servicemen)")) {
+            while (rs.next()) {
+                if ("name_rev".equalsIgnoreCase(rs.getString("name"))) {
+                    hasColumn = true;
+                }
+            }
+        }
+        if (!hasColumn) {
+            st.execute("ALTER TABLE servicemen ADD COLUMN name_rev TEXT");
+        }
+        fillReversedNames(conn);
+        st.execute("CREATE INDEX IF NOT EXISTS idx_servicemen_name_rev ON servicemen(name_rev)");
+    }
+
+    /**
+     * Заповнює {@code name_rev} для рядків, де він ще не обчислений
+     * (SQLite не має вбудованої функції розвертання рядка).
+     *
+     * @param conn відкрите з'єднання
+     * @throws SQLException якщо оновлення не вдалося
+     */
+    private void fillReversedNames(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, name FROM servicemen WHERE name_rev IS NULL");
+             PreparedStatement ps = conn.prepareStatement("UPDATE servicemen SET name_rev=? WHERE id=?")) {
+            while (rs.next()) {
+                ps.setString(1, reversedName(rs.getString("name")));
+                ps.setLong(2, rs.getLong("id"));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Обчислює значення стовпця {@code name_rev}: ПІБ у нижньому регістрі,
+     * записаний задом наперед.
+     *
+     * @param name ПІБ
+     * @return розвернутий ключ
+     */
+    private static String reversedName(String name) {
+        return new StringBuilder(name.toLowerCase(Locale.ROOT)).reverse().toString();
+    }
+
     /**
      * Повертає список усіх записів про військовослужбовців із таблиці {@code servicemen},
      * відсортований за зростанням ідентифікатора.
@@ -117,9 +196,53 @@ public class ServicemanDbHelper {
         return list;
     }
 
+    /**
+     * Повертає кількість записів у таблиці {@code servicemen}.
+     *
+     * @return кількість записів
+     * @throws SQLException якщо сталася помилка під час виконання запиту
+     */
+    public int count() throws SQLException {
+        try (Connection conn = getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM servicemen")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Повертає одну сторінку записів, відсортованих за ідентифікатором.
+     *
+     * @param offset кількість записів, які потрібно пропустити
+     * @param limit  максимальна кількість записів на сторінці
+     * @return записи сторінки
+     * @throws SQLException якщо сталася помилка під час виконання запиту
+     */
+    public List<DbServicemanRecord> getPage(int offset, int limit) throws SQLException {
+        List<DbServicemanRecord> list = new ArrayList<>();
+
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT id, type, name, rank, years, position FROM servicemen ORDER BY id LIMIT ? OFFSET ?")) {
+
+            ps.setInt(1, limit);
+            ps.setInt(2, offset);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        }
+
+        return list;
+    }
+
     /**
      * Повертає список військовослужбовців, чиє ім’я/ПІБ закінчується
-     * на вказаний суфікс (наприклад, «ко»).
+     * на вказаний суфікс (наприклад, «ко»). Регістр не враховується.
+     *
+     * <p>Запит виконується як діапазонний пошук за префіксом розвернутого
+     * ПІБ у стовпці {@code name_rev}, тож використовує індекс.</p>
      *
      * @param suffix суфікс, на який повинне закінчуватися поле {@code name}
      * @return список записів, які задовольняють умову
@@ -129,13 +252,15 @@ public class ServicemanDbHelper {
         List<DbServicemanRecord> list = new ArrayList<>();
 
         String sql = "SELECT id, type, name, rank, years, position " +
-                "FROM servicemen WHERE name LIKE ? ORDER BY name";
+                "FROM servicemen WHERE name_rev >= ? AND name_rev < ? ORDER BY name";
 
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            // name LIKE '%suffix' — прізвище/ПІБ закінчується на suffix
-            ps.setString(1, "%" + suffix);
+            // ПІБ закінчується на suffix  <=>  name_rev починається з reverse(suffix)
+            String prefix = reversedName(suffix);
+            ps.setString(1, prefix);
+            ps.setString(2, prefix + MAX_CHAR);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(mapRow(rs));
@@ -156,8 +281,8 @@ public class ServicemanDbHelper {
      */
     public long insert(DbServicemanRecord rec) throws SQLException {
         String sql = """
-                INSERT INTO servicemen(type, name, rank, years, position)
-                VALUES(?,?,?,?,?)
+                INSERT INTO servicemen(type, name, rank, years, position, name_rev)
+                VALUES(?,?,?,?,?,?)
                 """;
 
         try (Connection conn = getConnection();
@@ -168,6 +293,7 @@ public class ServicemanDbHelper {
             ps.setString(3, rec.getRank());
             ps.setInt(4, rec.getYears());
             ps.setString(5, rec.getPosition());
+            ps.setString(6, reversedName(rec.getName()));
 
             ps.executeUpdate();
 
@@ -193,7 +319,7 @@ public class ServicemanDbHelper {
     public void update(DbServicemanRecord rec) throws SQLException {
         String sql = """
                 UPDATE servicemen
-                SET type=?, name=?, rank=?, years=?, position=?
+                SET type=?, name=?, rank=?, years=?, position=?, name_rev=?
                 WHERE id=?
                 """;
 
@@ -205,7 +331,8 @@ public class ServicemanDbHelper {
             ps.setString(3, rec.getRank());
             ps.setInt(4, rec.getYears());
             ps.setString(5, rec.getPosition());
-            ps.setLong(6, rec.getId());
+            ps.setString(6, reversedName(rec.getName()));
+            ps.setLong(7, rec.getId());
 
             ps.executeUpdate();
         }
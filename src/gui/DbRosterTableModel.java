@@ -0,0 +1,203 @@
+package gui;
+
+import db.DbServicemanRecord;
+import db.ServicemanDbHelper;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Віртуальна модель таблиці записів бази даних.
+ *
+ * <p>У режимі перегляду всієї таблиці записи читаються з БД сторінками
+ * по {@link #PAGE_SIZE} лише тоді, коли {@link JTable} малює відповідні
+ * рядки. Запит до БД виконується у фоновому потоці: поки сторінка
+ * завантажується, її рядки порожні, а після завантаження таблиця
+ * перемальовує їх. Кілька останніх сторінок кешуються, тож прокрутка
+ * не звертається до БД на кожну клітинку. Вибірки за умовою (наприклад,
+ * за суфіксом ПІБ) показуються зі списку, отриманого від
+ * {@link ServicemanDbHelper}.</p>
+ */
+
+public class DbRosterTableModel extends AbstractTableModel {
+
+    /** Кількість записів, що зчитуються з БД за один запит. */
+    public static final int PAGE_SIZE = 200;
+
+    private static final int MAX_CACHED_PAGES = 8;
+
+    private static final String[] COLUMNS = { "ID", "Тип", "ПІБ", "Звання", "Стаж (років)", "Посада" };
+
+    /**
+     * Початок таблиці БД: загальна кількість записів і перша сторінка.
+     * Зчитується у фоновому потоці методом {@link #readHead()}.
+     */
+    public static final class Head {
+        private final int count;
+        private final List<DbServicemanRecord> firstPage;
+
+        private Head(int count, List<DbServicemanRecord> firstPage) {
+            this.count = count;
+            this.firstPage = firstPage;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private final ServicemanDbHelper dbHelper;
+
+    /** Вибірка за умовою; {@code null} — уся таблиця БД. */
+    private List<DbServicemanRecord> selection;
+    private int count;
+
+    /** Змінюється при кожному перемиканні вмісту; відкидає застарілі сторінки. */
+    private int version;
+    private final Set<Integer> loading = new HashSet<>();
+
+    private final Map<Integer, List<DbServicemanRecord>> pages =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<DbServicemanRecord>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
+    public DbRosterTableModel(ServicemanDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /**
+     * Зчитує кількість записів і першу сторінку. Може викликатися
+     * з будь-якого потоку.
+     *
+     * @return початок таблиці для {@link #showAll(Head)}
+     * @throws SQLException якщо не вдалося виконати запит
+     */
+    public Head readHead() throws SQLException {
+        int total = dbHelper.count();
+        return new Head(total, dbHelper.getPage(0, PAGE_SIZE));
+    }
+
+    /**
+     * Перемикає модель на всю таблицю БД і скидає кеш сторінок.
+     *
+     * @param head результат {@link #readHead()}
+     */
+    public void showAll(Head head) {
+        reset(null, head.count);
+        pages.put(0, head.firstPage);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Показує готову вибірку записів.
+     *
+     * @param records записи в порядку показу
+     */
+    public void showRecords(List<DbServicemanRecord> records) {
+        reset(records, records.size());
+        fireTableDataChanged();
+    }
+
+    private void reset(List<DbServicemanRecord> records, int total) {
+        version++;
+        selection = records;
+        pages.clear();
+        loading.clear();
+        count = total;
+    }
+
+    /**
+     * @param rowIndex номер рядка таблиці
+     * @return запис або {@code null}, якщо його сторінка ще завантажується
+     */
+    public DbServicemanRecord recordAt(int rowIndex) {
+        if (selection != null) {
+            return selection.get(rowIndex);
+        }
+        int page = rowIndex / PAGE_SIZE;
+        List<DbServicemanRecord> records = pages.get(page);
+        if (records == null) {
+            loadPage(page);
+            return null;
+        }
+        int offset = rowIndex - page * PAGE_SIZE;
+        return offset < records.size() ? records.get(offset) : null;
+    }
+
+    private void loadPage(int page) {
+        if (!loading.add(page)) return;
+        int v = version;
+        new SwingWorker<List<DbServicemanRecord>, Void>() {
+            @Override
+            protected List<DbServicemanRecord> doInBackground() throws SQLException {
+                return dbHelper.getPage(page * PAGE_SIZE, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (v != version) return; // вміст таблиці вже змінено
+                loading.remove(page);
+                List<DbServicemanRecord> records;
+                try {
+                    records = get();
+                } catch (Exception ex) {
+                    // порожня сторінка кешується, щоб перемальовування не повторювало запит;
+                    // наступне перемикання вмісту прочитає її знову
+                    records = Collections.emptyList();
+                }
+                pages.put(page, records);
+                int first = page * PAGE_SIZE;
+                int last = Math.min(first + PAGE_SIZE, count) - 1;
+                if (first <= last) {
+                    fireTableRowsUpdated(first, last);
+                }
+            }
+        }.execute();
+    }
+
+    @Override
+    public int getRowCount() {
+        return count;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == 0) return Long.class;
+        return column == 4 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        DbServicemanRecord r = recordAt(rowIndex);
+        if (r == null) return null;
+        boolean officer = "O".equals(r.getType());
+        switch (columnIndex) {
+            case 0: return r.getId();
+            case 1: return officer ? "Офіцер" : "Солдат";
+            case 2: return r.getName();
+            case 3: return r.getRank();
+            case 4: return r.getYears();
+            default: return officer && r.getPosition() != null ? r.getPosition() : "";
+        }
+    }
+}
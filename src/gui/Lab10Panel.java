@@ -1,25 +1,59 @@
 package gui;
 
 import oop.ServicemanArrayManagerV3;
+import oop.ServicemanTextFollower;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Графічний інтерфейс для лабораторної роботи №10.
  * Додає роботу з файлами для масиву військовослужбовців: зчитування з текстового файлу,
  * збереження відсортованих даних у бінарний файл та відновлення інформації з нього.
+ *
+ * <p>Запис у бінарний файл не блокує роботу з масивом: поточний стан
+ * заморожується, а файл пишеться у фоновому потоці. Після першого
+ * збереження той самий файл періодично оновлюється фоновими знімками.</p>
+ *
+ * <p>У режимі стеження за текстовим файлом рядки, дописані у файл іншою
+ * програмою, додаються в кінець масиву одразу після появи.</p>
  */
 
 public class Lab10Panel extends JPanel {
 
     private final ServicemanArrayManagerV3 manager = new ServicemanArrayManagerV3();
-    private final JTextArea output = new JTextArea(20, 70);
+    private final RosterTableModel roster = new RosterTableModel(manager);
+    private final RosterView output = new RosterView(roster, 18);
+    private final StatusBar status = new StatusBar();
+
+    // Період автоматичних фонових знімків у файл останнього збереження
+    private static final int AUTOSAVE_PERIOD_MS = 5 * 60 * 1000;
+
+    private Path autosavePath;
+    private CompletableFuture<Path> saving;
+    private final Timer autosave;
+
+    private final JToggleButton btnFollowText = new JToggleButton("Стежити за ТЕКСТОВИМ файлом...");
+    private ServicemanTextFollower follower;
+    // прочитані рядки, які ще не додано в масив (він був зайнятий іншою операцією)
+    private final ArrayDeque<ServicemanTextFollower.Chunk> followQueue = new ArrayDeque<>();
+    private volatile boolean followPending;
 
     public Lab10Panel() {
         setLayout(new BorderLayout());
+        // у стовпцях знімок для фонового запису заморожується без копіювання
+        // рядків; таблиця читає дані по рядку, тож об'єкти не потрібні
+        manager.setColumnarStorage(true);
 
         JLabel title = new JLabel("Лабораторна робота 10 — Робота з файлами (масив \"Військовослужбовець\")");
         title.setFont(title.getFont().deriveFont(Font.BOLD, 16f));
@@ -38,6 +72,7 @@ public class Lab10Panel extends JPanel {
 
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         buttonsPanel.add(btnLoadText);
+        buttonsPanel.add(btnFollowText);
         buttonsPanel.add(btnSaveBinary);
         buttonsPanel.add(btnLoadBinary);
         buttonsPanel.add(btnShowCurrent);
@@ -72,21 +107,18 @@ public class Lab10Panel extends JPanel {
         add(topBlock, BorderLayout.NORTH);
 
         // --- Вихідна область ---
-        output.setEditable(false);
-        output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        add(new JScrollPane(output), BorderLayout.CENTER);
+        add(output, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        status.lockWhileRunning(btnLoadText, btnFollowText, btnSaveBinary, btnLoadBinary, btnShowCurrent, btnResetToDefault);
 
         // --- Обробники кнопок ---
 
-        btnShowCurrent.addActionListener(e ->
-                output.setText(manager.buildAllInfo())
-        );
+        btnShowCurrent.addActionListener(e -> showAll(""));
 
-        btnResetToDefault.addActionListener(e -> {
+        btnResetToDefault.addActionListener(e -> runOnRoster("Скидання масиву", "", p -> {
             manager.initDefault();
-            output.setText("Масив скинуто до початкового стану (initDefault).\n\n"
-                    + manager.buildAllInfo());
-        });
+            return "Масив скинуто до початкового стану (initDefault).\n";
+        }));
 
         btnLoadText.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
@@ -94,16 +126,32 @@ public class Lab10Panel extends JPanel {
             int res = chooser.showOpenDialog(Lab10Panel.this);
             if (res == JFileChooser.APPROVE_OPTION) {
                 File file = chooser.getSelectedFile();
-                try {
-                    manager.loadFromTextFile(file.toPath());
-                    output.setText("Дані зчитано з текстового файлу:\n" +
-                            file.getAbsolutePath() + "\n\n" +
-                            manager.buildAllInfo());
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Lab10Panel.this,
-                            "Помилка зчитування текстового файлу:\n" + ex.getMessage(),
-                            "Помилка", JOptionPane.ERROR_MESSAGE);
-                }
+                runOnRoster("Зчитування текстового файлу", "Помилка зчитування текстового файлу:\n", p -> {
+                    manager.loadFromTextFile(file.toPath(), p);
+                    return "Дані зчитано з текстового файлу:\n" +
+                            file.getAbsolutePath() + "\n";
+                });
+            }
+        });
+
+        btnFollowText.addActionListener(e -> {
+            if (!btnFollowText.isSelected()) {
+                stopFollowing();
+                status.showMessage("Стеження за текстовим файлом зупинено.");
+                return;
+            }
+            btnFollowText.setSelected(false);
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Виберіть ТЕКСТОВИЙ файл, за яким стежити");
+            int res = chooser.showOpenDialog(Lab10Panel.this);
+            if (res == JFileChooser.APPROVE_OPTION) {
+                File file = chooser.getSelectedFile();
+                runOnRoster("Зчитування текстового файлу", "Помилка зчитування текстового файлу:\n", p -> {
+                    ServicemanTextFollower f = manager.followTextFile(file.toPath(), p);
+                    SwingUtilities.invokeLater(() -> startFollowing(f));
+                    return "Дані зчитано з текстового файлу; нові рядки додаються автоматично:\n" +
+                            file.getAbsolutePath() + "\n";
+                });
             }
         });
 
@@ -112,20 +160,19 @@ public class Lab10Panel extends JPanel {
             chooser.setDialogTitle("Оберіть, куди зберегти БІНАРНИЙ файл");
             int res = chooser.showSaveDialog(Lab10Panel.this);
             if (res == JFileChooser.APPROVE_OPTION) {
-                File file = chooser.getSelectedFile();
-                try {
-                    Path path = file.toPath();
-                    manager.saveToBinaryFile(path);
-                    output.setText("Поточний масив збережено в бінарний файл:\n" +
-                            file.getAbsolutePath() + "\n\n" +
-                            manager.buildAllInfo());
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Lab10Panel.this,
-                            "Помилка запису бінарного файлу:\n" + ex.getMessage(),
-                            "Помилка", JOptionPane.ERROR_MESSAGE);
-                }
+                autosavePath = chooser.getSelectedFile().toPath();
+                saveInBackground(true);
+            }
+        });
+
+        // автозбереження лише тоді, коли масив не змінюється і попередній запис завершено
+        autosave = new Timer(AUTOSAVE_PERIOD_MS, e -> {
+            if (autosavePath != null && !status.isExclusiveRunning()
+                    && (saving == null || saving.isDone())) {
+                saveInBackground(false);
             }
         });
+        autosave.start();
 
         btnLoadBinary.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
@@ -133,20 +180,173 @@ public class Lab10Panel extends JPanel {
             int res = chooser.showOpenDialog(Lab10Panel.this);
             if (res == JFileChooser.APPROVE_OPTION) {
                 File file = chooser.getSelectedFile();
-                try {
-                    manager.loadFromBinaryFile(file.toPath());
-                    output.setText("Дані зчитано з бінарного файлу:\n" +
-                            file.getAbsolutePath() + "\n\n" +
-                            manager.buildAllInfo());
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(Lab10Panel.this,
-                            "Помилка зчитування бінарного файлу:\n" + ex.getMessage(),
-                            "Помилка", JOptionPane.ERROR_MESSAGE);
-                }
+                runOnRoster("Зчитування бінарного файлу", "Помилка зчитування бінарного файлу:\n", p -> {
+                    manager.loadFromBinaryFile(file.toPath(), p);
+                    return "Дані зчитано з бінарного файлу:\n" +
+                            file.getAbsolutePath() + "\n";
+                });
             }
         });
 
         // початковий стан
-        output.setText(manager.buildAllInfo());
+        showAll("");
+    }
+
+    // Фоновий потік чекає змін файлу, читає й розбирає дописані рядки; у
+    // потоці обробки подій, як і решта роботи з менеджером, лише додаються
+    // готові записи.
+    private void startFollowing(ServicemanTextFollower f) {
+        stopFollowing();
+        follower = f;
+        btnFollowText.setSelected(true);
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    if (f.awaitChange(1, TimeUnit.SECONDS)) {
+                        // після некоректного рядка решта вже дописаних рядків
+                        // читається одразу, а не з наступною зміною файлу
+                        ServicemanTextFollower.Chunk chunk;
+                        long before;
+                        do {
+                            before = f.getOffset();
+                            chunk = f.readAppended();
+                            ServicemanTextFollower.Chunk read = chunk;
+                            if (!read.isEmpty()) {
+                                SwingUtilities.invokeLater(() -> {
+                                    if (f != follower) return;
+                                    followQueue.add(read);
+                                    applyFollowed();
+                                });
+                            }
+                        } while (chunk.hasError() && f.getOffset() > before);
+                    } else if (followPending) {
+                        SwingUtilities.invokeLater(this::applyFollowed);
+                    }
+                }
+            } catch (ClosedWatchServiceException | InterruptedException ex) {
+                // стеження зупинено
+            } catch (IOException | RuntimeException ex) {
+                SwingUtilities.invokeLater(() -> {
+                    if (f != follower) return;
+                    applyFollowed();
+                    followFailed(ex);
+                });
+            }
+        }, "text-follower");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void applyFollowed() {
+        if (follower == null || followQueue.isEmpty()) return;
+        if (status.isExclusiveRunning()) {
+            followPending = true;
+            return;
+        }
+        followPending = false;
+        int added = 0;
+        String skipped = "";
+        try {
+            while (!followQueue.isEmpty()) {
+                ServicemanTextFollower.Chunk chunk = followQueue.poll();
+                try {
+                    added += follower.apply(chunk);
+                } catch (NumberFormatException ex) {
+                    // некоректний рядок пропущено, решта читається далі
+                    added += chunk.size();
+                    skipped += "Пропущено рядок з некоректним стажем: " + ex.getMessage() + "\n";
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            followFailed(ex);
+            return;
+        }
+        if (added > 0 || !skipped.isEmpty()) {
+            showAll(skipped + (added > 0 ? "Дописано у файл і додано в масив: " + added + ".\n" : ""));
+        }
+    }
+
+    private void followFailed(Exception ex) {
+        showAll("");
+        stopFollowing();
+        JOptionPane.showMessageDialog(Lab10Panel.this,
+                "Помилка зчитування дописаних рядків:\n" + ex.getMessage(),
+                "Помилка", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void stopFollowing() {
+        if (follower == null) return;
+        try {
+            follower.close();
+        } catch (IOException ex) {
+            // стеження все одно зупинено
+        }
+        follower = null;
+        followQueue.clear();
+        followPending = false;
+        btnFollowText.setSelected(false);
+    }
+
+    /**
+     * Зупиняє автозбереження і стеження за файлом, дочікується фонового
+     * запису і зупиняє потік вводу-виводу менеджера. Викликається, коли
+     * вікно закривається.
+     */
+    public void dispose() {
+        autosave.stop();
+        stopFollowing();
+        try {
+            manager.close();
+        } catch (IOException ex) {
+            // журнал змін ця панель не відкриває, тож ущільнювати нічого
+        }
+    }
+
+    private void showAll(String message) {
+        roster.showAll();
+        int n = manager.getSize();
+        output.showFromTop(message + (n == 0 ? "Масив порожній." : "Усього елементів: " + n));
+    }
+
+    // Масив заморожується тут, у потоці обробки подій (поки жодна операція його
+    // не змінює): у колонковому сховищі це O(1), стовпці стають спільними до
+    // наступної зміни. Файл пишеться у потоці вводу-виводу менеджера.
+    private void saveInBackground(boolean manual) {
+        Path path = autosavePath;
+        status.showMessage("Запис бінарного файлу у фоні...");
+        saving = manager.saveToBinaryFileInBackground(path);
+        saving.whenComplete((p, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex == null) {
+                status.showMessage("Поточний масив збережено в бінарний файл: " + path.toAbsolutePath());
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            status.showMessage("Запис бінарного файлу: помилка.");
+            if (manual) {
+                JOptionPane.showMessageDialog(Lab10Panel.this,
+                        "Помилка запису бінарного файлу:\n" + cause.getMessage(),
+                        "Помилка", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
+    }
+
+    // Файлові операції виконуються у фоновому потоці з прогресом і можливістю
+    // скасування; поки масив змінюється, таблиця порожня.
+    // Результат задачі — повідомлення для виводу.
+    // Операція замінює масив, тож стеження за попереднім файлом зупиняється.
+    private void runOnRoster(String title, String errorPrefix, StatusBar.Task<String> task) {
+        stopFollowing();
+        roster.suspend();
+        status.runExclusive(title, task, this::showAll, ex -> {
+            showAll("");
+            if (!(ex instanceof CancellationException)) {
+                JOptionPane.showMessageDialog(Lab10Panel.this,
+                        errorPrefix + ex.getMessage(),
+                        "Помилка", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 }
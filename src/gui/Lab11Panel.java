@@ -5,8 +5,7 @@ import db.ServicemanDbHelper;
 
 import javax.swing.*;
 import java.awt.*;
-import java.sql.SQLException;
-import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Графічний інтерфейс для лабораторної роботи №11.
@@ -18,7 +17,9 @@ public class Lab11Panel extends JPanel {
 
     private final ServicemanDbHelper dbHelper = new ServicemanDbHelper();
 
-    private final JTextArea output = new JTextArea(18, 70);
+    private final DbRosterTableModel records = new DbRosterTableModel(dbHelper);
+    private final RosterView output = new RosterView(records, 16);
+    private final StatusBar status = new StatusBar();
 
     private final JTextField idField = new JTextField(4);
     private final JTextField typeField = new JTextField(2);      // S або O
@@ -94,9 +95,9 @@ public class Lab11Panel extends JPanel {
         add(topBlock, BorderLayout.NORTH);
 
         // --- Вивід ---
-        output.setEditable(false);
-        output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        add(new JScrollPane(output), BorderLayout.CENTER);
+        add(output, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        status.lockWhileRunning(btnShowAll, btnAdd, btnUpdate, btnDelete, btnFilter);
 
         // --- Обробники подій ---
 
@@ -115,45 +116,60 @@ public class Lab11Panel extends JPanel {
     }
 
     private void refreshAll() {
-        try {
-            List<DbServicemanRecord> list = dbHelper.getAll();
-            output.setText(formatList(list));
-        } catch (SQLException ex) {
-            showError("Помилка при зчитуванні БД: " + ex.getMessage());
-        }
+        refreshAll("");
+    }
+
+    private void refreshAll(String message) {
+        // з БД читаються лише сторінки, які показує таблиця; новіший запит
+        // (наприклад, повторне натискання) відкидає результат попереднього
+        status.run("Зчитування БД", p -> records.readHead(), head -> {
+            records.showAll(head);
+            output.showFromTop(message + (head.getCount() == 0
+                    ? "Немає записів." : "Усього записів: " + head.getCount()));
+        }, ex -> failed("Помилка при зчитуванні БД: ", ex));
     }
 
     private void addRecord() {
+        DbServicemanRecord rec;
         try {
-            DbServicemanRecord rec = readRecordFromForm(false);
-            long id = dbHelper.insert(rec);
-            output.setText("Додано новий запис з ID = " + id + "\n\n");
-            refreshAll();
+            rec = readRecordFromForm(false);
         } catch (Exception ex) {
             showError("Помилка при додаванні: " + ex.getMessage());
+            return;
         }
+        status.runExclusive("Додавання запису", p -> dbHelper.insert(rec),
+                id -> refreshAll("Додано новий запис з ID = " + id + "\n"),
+                ex -> failed("Помилка при додаванні: ", ex));
     }
 
     private void updateRecord() {
+        DbServicemanRecord rec;
         try {
-            DbServicemanRecord rec = readRecordFromForm(true);
-            dbHelper.update(rec);
-            output.setText("Запис з ID = " + rec.getId() + " оновлено.\n\n");
-            refreshAll();
+            rec = readRecordFromForm(true);
         } catch (Exception ex) {
             showError("Помилка при оновленні: " + ex.getMessage());
+            return;
         }
+        status.runExclusive("Оновлення запису", p -> {
+            dbHelper.update(rec);
+            return rec.getId();
+        }, id -> refreshAll("Запис з ID = " + id + " оновлено.\n"),
+                ex -> failed("Помилка при оновленні: ", ex));
     }
 
     private void deleteRecord() {
+        long id;
         try {
-            long id = parseId();
-            dbHelper.delete(id);
-            output.setText("Запис з ID = " + id + " видалено.\n\n");
-            refreshAll();
+            id = parseId();
         } catch (Exception ex) {
             showError("Помилка при видаленні: " + ex.getMessage());
+            return;
         }
+        status.runExclusive("Видалення запису", p -> {
+            dbHelper.delete(id);
+            return id;
+        }, deleted -> refreshAll("Запис з ID = " + deleted + " видалено.\n"),
+                ex -> failed("Помилка при видаленні: ", ex));
     }
 
     private void filterBySuffix() {
@@ -163,13 +179,11 @@ public class Lab11Panel extends JPanel {
             return;
         }
 
-        try {
-            List<DbServicemanRecord> list = dbHelper.getByNameSuffix(suffix);
-            output.setText("Записи, де ПІБ закінчується на \"" + suffix + "\":\n\n"
-                    + formatList(list));
-        } catch (SQLException ex) {
-            showError("Помилка при фільтрації: " + ex.getMessage());
-        }
+        status.run("Вибірка за суфіксом", p -> dbHelper.getByNameSuffix(suffix), list -> {
+            records.showRecords(list);
+            output.showFromTop("Записи, де ПІБ закінчується на \"" + suffix + "\": " + list.size()
+                    + (list.isEmpty() ? "\nНемає записів." : ""));
+        }, ex -> failed("Помилка при фільтрації: ", ex));
     }
 
     private long parseId() {
@@ -212,23 +226,10 @@ public class Lab11Panel extends JPanel {
         return rec;
     }
 
-    private String formatList(List<DbServicemanRecord> list) {
-        if (list.isEmpty()) {
-            return "Немає записів.\n";
-        }
-        StringBuilder sb = new StringBuilder();
-        for (DbServicemanRecord r : list) {
-            sb.append("[ID=").append(r.getId()).append("] ")
-                    .append(r.getType().equals("O") ? "Офіцер" : "Солдат").append(": ")
-                    .append(r.getName())
-                    .append(", звання: ").append(r.getRank())
-                    .append(", стаж: ").append(r.getYears()).append(" років");
-            if (r.getType().equals("O") && r.getPosition() != null && !r.getPosition().isBlank()) {
-                sb.append(", посада: ").append(r.getPosition());
-            }
-            sb.append("\n");
+    private void failed(String prefix, Exception ex) {
+        if (!(ex instanceof CancellationException)) {
+            showError(prefix + ex.getMessage());
         }
-        return sb.toString();
     }
 
     private void showError(String msg) {
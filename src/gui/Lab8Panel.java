@@ -4,6 +4,7 @@ import oop.ServicemanArrayManager;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * Графічний інтерфейс для лабораторної роботи №8.
@@ -15,7 +16,9 @@ public class Lab8Panel extends JPanel {
 
     private final ServicemanArrayManager manager = new ServicemanArrayManager();
 
-    private final JTextArea output = new JTextArea(20, 70);
+    private final RosterTableModel roster = new RosterTableModel(manager);
+    private final RosterView output = new RosterView(roster, 18);
+    private final StatusBar status = new StatusBar();
 
     private final JTextField indexField = new JTextField(3);
     private final JTextField nameField = new JTextField(10);
@@ -95,36 +98,55 @@ public class Lab8Panel extends JPanel {
         add(topBlock, BorderLayout.NORTH);
 
         // ---- Вихідний текст ----
-        output.setEditable(false);
-        output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        add(new JScrollPane(output), BorderLayout.CENTER);
+        add(output, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        status.lockWhileRunning(initButton, showAllButton, modifyButton,
+                filterButton, sortAscButton, sortDescButton);
 
         // ---- Обробники подій ----
-        initButton.addActionListener(e -> {
+        initButton.addActionListener(e -> runOnRoster("Переініціалізація", p -> {
             manager.initDefault();
-            output.setText("Масив переініціалізовано.\n\n" + manager.buildAllInfo());
-        });
+            return "Масив переініціалізовано.\n";
+        }));
 
-        showAllButton.addActionListener(e -> {
-            output.setText(manager.buildAllInfo());
-        });
+        showAllButton.addActionListener(e -> showAll(""));
 
         modifyButton.addActionListener(e -> modifyElement());
 
         filterButton.addActionListener(e -> filterByYears());
 
-        sortAscButton.addActionListener(e -> {
+        sortAscButton.addActionListener(e -> runOnRoster("Сортування за стажем", p -> {
             manager.sortByYearsAscending();
-            output.setText("Масив відсортовано за стажем за зростанням.\n\n" + manager.buildAllInfo());
-        });
+            return "Масив відсортовано за стажем за зростанням.\n";
+        }));
 
-        sortDescButton.addActionListener(e -> {
+        sortDescButton.addActionListener(e -> runOnRoster("Сортування за стажем", p -> {
             manager.sortByYearsDescending();
-            output.setText("Масив відсортовано за стажем за спаданням.\n\n" + manager.buildAllInfo());
-        });
+            return "Масив відсортовано за стажем за спаданням.\n";
+        }));
 
         // Початковий вивід
-        output.setText(manager.buildAllInfo());
+        showAll("");
+    }
+
+    private void showAll(String message) {
+        roster.showAll();
+        int n = manager.getSize();
+        output.showFromTop(message + (n == 0 ? "Масив порожній." : "Усього елементів: " + n));
+    }
+
+    // Операція над масивом виконується у фоновому потоці; поки масив
+    // змінюється, таблиця порожня. Результат задачі — повідомлення для виводу.
+    private void runOnRoster(String title, StatusBar.Task<String> task) {
+        roster.suspend();
+        status.runExclusive(title, task, this::showAll, ex -> taskFailed("", ex));
+    }
+
+    private void taskFailed(String prefix, Exception ex) {
+        showAll("");
+        if (!(ex instanceof CancellationException)) {
+            JOptionPane.showMessageDialog(this, prefix + ex.getMessage(), "Помилка", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
     private void modifyElement() {
@@ -138,7 +160,7 @@ public class Lab8Panel extends JPanel {
 
             manager.modifyServiceman(index, emptyToNull(name), emptyToNull(rank), years, emptyToNull(position));
 
-            output.setText("Елемент з індексом " + index + " змінено.\n\n" + manager.buildAllInfo());
+            showAll("Елемент з індексом " + index + " змінено.\n");
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Помилка введення числа (індекс або стаж).", "Помилка", JOptionPane.ERROR_MESSAGE);
         } catch (IndexOutOfBoundsException ex) {
@@ -151,7 +173,14 @@ public class Lab8Panel extends JPanel {
     private void filterByYears() {
         try {
             int minYears = Integer.parseInt(filterYearsField.getText().trim());
-            output.setText(manager.buildFilteredByMinYears(minYears));
+            status.runExclusive("Фільтрація за стажем",
+                    p -> manager.findByYearsRange(minYears, Integer.MAX_VALUE),
+                    rows -> {
+                        roster.showRows(rows);
+                        output.showFromTop("Військовослужбовці зі стажем ≥ " + minYears + " років: " + rows.length
+                                + (rows.length == 0 ? "\nНемає військовослужбовців, які задовольняють умову." : ""));
+                    },
+                    ex -> taskFailed("", ex));
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Введіть ціле число для стажу.", "Помилка", JOptionPane.ERROR_MESSAGE);
         }
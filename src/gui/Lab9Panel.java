@@ -4,6 +4,8 @@ import oop.ServicemanArrayManagerV2;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Графічний інтерфейс для лабораторної роботи №9.
@@ -14,7 +16,9 @@ import java.awt.*;
 public class Lab9Panel extends JPanel {
 
     private final ServicemanArrayManagerV2 manager = new ServicemanArrayManagerV2();
-    private final JTextArea output = new JTextArea(20, 70);
+    private final RosterTableModel roster = new RosterTableModel(manager);
+    private final RosterView output = new RosterView(roster, 16);
+    private final StatusBar status = new StatusBar();
 
     // для фільтрації за regex
     private final JTextField regexField = new JTextField(".*ко$", 15); // приклад: ПІБ закінчується на "ко"
@@ -85,30 +89,29 @@ public class Lab9Panel extends JPanel {
         add(topBlock, BorderLayout.NORTH);
 
         // --- Текстовий вивід ---
-        output.setEditable(false);
-        output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        add(new JScrollPane(output), BorderLayout.CENTER);
+        add(output, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        status.lockWhileRunning(btnShowAll, btnReinit, btnSortNameAsc, btnSortNameDesc,
+                btnFilterRegex, btnMinMax);
 
         // --- Обробники подій ---
 
-        btnShowAll.addActionListener(e ->
-                output.setText(manager.buildAllInfo())
-        );
+        btnShowAll.addActionListener(e -> showAll(""));
 
-        btnReinit.addActionListener(e -> {
+        btnReinit.addActionListener(e -> runOnRoster("Переініціалізація", p -> {
             manager.initDefault();
-            output.setText("Масив переініціалізовано.\n\n" + manager.buildAllInfo());
-        });
+            return "Масив переініціалізовано.\n";
+        }));
 
-        btnSortNameAsc.addActionListener(e -> {
+        btnSortNameAsc.addActionListener(e -> runOnRoster("Сортування за ПІБ", p -> {
             manager.sortByNameAscending();
-            output.setText("Масив відсортовано за ПІБ (за зростанням).\n\n" + manager.buildAllInfo());
-        });
+            return "Масив відсортовано за ПІБ (за зростанням).\n";
+        }));
 
-        btnSortNameDesc.addActionListener(e -> {
+        btnSortNameDesc.addActionListener(e -> runOnRoster("Сортування за ПІБ", p -> {
             manager.sortByNameDescending();
-            output.setText("Масив відсортовано за ПІБ (за спаданням).\n\n" + manager.buildAllInfo());
-        });
+            return "Масив відсортовано за ПІБ (за спаданням).\n";
+        }));
 
         btnFilterRegex.addActionListener(e -> {
             String regex = regexField.getText().trim();
@@ -116,21 +119,49 @@ public class Lab9Panel extends JPanel {
                 JOptionPane.showMessageDialog(this, "Введіть регулярний вираз.", "Помилка", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            try {
-                output.setText(manager.buildFilteredByNameRegex(regex));
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this,
-                        "Невірний регулярний вираз:\n" + ex.getMessage(),
-                        "Помилка regex",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            status.runExclusive("Пошук за шаблоном", p -> manager.findByNameRegex(regex), rows -> {
+                roster.showRows(rows);
+                output.showFromTop("Військовослужбовці, для яких ПІБ відповідає шаблону \"" + regex + "\": "
+                        + rows.length
+                        + (rows.length == 0 ? "\nНемає елементів, що задовольняють умову." : ""));
+            }, ex -> {
+                if (ex instanceof PatternSyntaxException) {
+                    JOptionPane.showMessageDialog(this,
+                            "Невірний регулярний вираз:\n" + ex.getMessage(),
+                            "Помилка regex",
+                            JOptionPane.ERROR_MESSAGE);
+                } else {
+                    taskFailed("", ex);
+                }
+            });
         });
 
         btnMinMax.addActionListener(e ->
-                output.setText(manager.buildMinMaxYearsInfo())
+                status.runExclusive("Пошук мінімального та максимального стажу",
+                        p -> manager.buildMinMaxYearsInfo(), output::setMessage, ex -> taskFailed("", ex))
         );
 
         // Початковий вивід
-        output.setText(manager.buildAllInfo());
+        showAll("");
+    }
+
+    private void showAll(String message) {
+        roster.showAll();
+        int n = manager.getSize();
+        output.showFromTop(message + (n == 0 ? "Масив порожній." : "Усього елементів: " + n));
+    }
+
+    // Операція над масивом виконується у фоновому потоці; поки масив
+    // змінюється, таблиця порожня. Результат задачі — повідомлення для виводу.
+    private void runOnRoster(String title, StatusBar.Task<String> task) {
+        roster.suspend();
+        status.runExclusive(title, task, this::showAll, ex -> taskFailed("", ex));
+    }
+
+    private void taskFailed(String prefix, Exception ex) {
+        showAll("");
+        if (!(ex instanceof CancellationException)) {
+            JOptionPane.showMessageDialog(this, prefix + ex.getMessage(), "Помилка", JOptionPane.ERROR_MESSAGE);
+        }
     }
 }
@@ -1,6 +1,8 @@
 package gui;
 
 import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * Головне вікно застосунку для лабораторних робіт 8–11.
@@ -20,10 +22,19 @@ public class Labs8_11App extends JFrame {
 
         tabs.addTab("ЛР8", new Lab8Panel());
         tabs.addTab("ЛР9", new Lab9Panel());
-        tabs.addTab("ЛР10", new Lab10Panel());
+        Lab10Panel lab10 = new Lab10Panel();
+        tabs.addTab("ЛР10", lab10);
         tabs.addTab("ЛР11", new Lab11Panel());
         tabs.addTab("Про автора", new AboutPanel());
 
         add(tabs);
+
+        // слухачі викликаються раніше за EXIT_ON_CLOSE: фоновий запис встигає завершитися
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                lab10.dispose();
+            }
+        });
     }
 }
@@ -0,0 +1,102 @@
+package gui;
+
+import oop.ServicemanArrayManager;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Віртуальна модель таблиці особового складу поверх менеджера масиву.
+ *
+ * <p>Модель не копіює даних: {@link javax.swing.JTable} запитує лише видимі
+ * клітинки, і значення читаються з менеджера за індексом рядка. Фільтрація
+ * задається переліком індексів (результатом пошуку менеджера), а сортування
+ * виконує сам менеджер — після нього достатньо оновити модель.</p>
+ */
+
+public class RosterTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = { "№", "Тип", "ПІБ", "Звання", "Стаж (років)", "Посада" };
+
+    private final ServicemanArrayManager manager;
+
+    /** Індекси елементів, що показуються; {@code null} — увесь масив. */
+    private int[] rows;
+
+    /** Масив змінюється у фоновому потоці, і читати його зараз не можна. */
+    private boolean suspended;
+
+    public RosterTableModel(ServicemanArrayManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Показує всі елементи масиву в поточному порядку.
+     */
+    public void showAll() {
+        rows = null;
+        suspended = false;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Тимчасово показує порожню таблицю, поки фонова операція змінює масив.
+     * Знімається викликом {@link #showAll()} або {@link #showRows(int[])}.
+     */
+    public void suspend() {
+        suspended = true;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Показує лише вказані елементи.
+     *
+     * @param rows індекси елементів масиву в порядку показу
+     */
+    public void showRows(int[] rows) {
+        this.rows = rows;
+        suspended = false;
+        fireTableDataChanged();
+    }
+
+    /**
+     * @param viewRow номер рядка таблиці
+     * @return індекс відповідного елемента масиву
+     */
+    public int indexAt(int viewRow) {
+        return rows == null ? viewRow : rows[viewRow];
+    }
+
+    @Override
+    public int getRowCount() {
+        if (suspended) return 0;
+        return rows == null ? manager.getSize() : rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 || column == 4 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int i = indexAt(rowIndex);
+        switch (columnIndex) {
+            case 0: return i;
+            case 1: return manager.isOfficerAt(i) ? "Офіцер" : "Солдат";
+            case 2: return manager.getNameAt(i);
+            case 3: return manager.getRankAt(i);
+            case 4: return manager.getYearsAt(i);
+            default: return manager.isOfficerAt(i) ? manager.getPositionAt(i) : "";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package gui;
+
+import javax.swing.*;
+import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableModel;
+import java.awt.*;
+
+/**
+ * Область виводу панелей лабораторних робіт: короткий текст повідомлення
+ * (результат дії, заголовок вибірки) над таблицею з особовим складом.
+ * Таблиця працює з віртуальною моделлю, тому малюються лише видимі рядки
+ * незалежно від розміру масиву чи БД.
+ */
+
+public class RosterView extends JPanel {
+
+    private final JTextArea message = new JTextArea(3, 70);
+    private final JTable table;
+
+    /**
+     * @param model       модель таблиці
+     * @param visibleRows кількість рядків таблиці, видимих без прокрутки
+     */
+    public RosterView(TableModel model, int visibleRows) {
+        setLayout(new BorderLayout());
+
+        message.setEditable(false);
+        message.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        message.setBackground(getBackground());
+        add(new JScrollPane(message), BorderLayout.NORTH);
+
+        table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setPreferredScrollableViewportSize(
+                new Dimension(800, visibleRows * table.getRowHeight()));
+
+        TableColumnModel cols = table.getColumnModel();
+        cols.getColumn(0).setPreferredWidth(60);
+        cols.getColumn(1).setPreferredWidth(70);
+        cols.getColumn(2).setPreferredWidth(260);
+        cols.getColumn(3).setPreferredWidth(140);
+        cols.getColumn(4).setPreferredWidth(90);
+        cols.getColumn(5).setPreferredWidth(220);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /**
+     * Показує текст повідомлення над таблицею.
+     *
+     * @param text текст
+     */
+    public void setMessage(String text) {
+        message.setText(text);
+        message.setCaretPosition(0);
+    }
+
+    /**
+     * Показує повідомлення і прокручує таблицю на початок
+     * (після зміни вибірки або порядку рядків).
+     *
+     * @param text текст
+     */
+    public void showFromTop(String text) {
+        setMessage(text);
+        table.clearSelection();
+        table.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+    }
+}
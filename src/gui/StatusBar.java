@@ -0,0 +1,224 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Рядок стану панелі, який виконує тривалі операції у фоновому потоці
+ * ({@link SwingWorker}), щоб вікно не «зависало».
+ *
+ * <p>Показує назву поточної операції, прогрес і кнопку скасування.
+ * Кожен новий запуск отримує номер покоління: якщо тим часом запущено
+ * новішу операцію, результат попередньої просто відкидається. Операції,
+ * що змінюють дані панелі, запускаються через
+ * {@link #runExclusive(String, Task, Consumer, Consumer)}: на час їх
+ * виконання блокуються зареєстровані елементи керування, і розблоковуються
+ * вони лише після фактичного завершення фонового потоку (навіть якщо
+ * операцію скасовано).</p>
+ */
+
+public class StatusBar extends JPanel {
+
+    /**
+     * Операція, що виконується у фоновому потоці.
+     *
+     * @param <T> тип результату
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        /**
+         * @param progress приймач прогресу у відсотках (0–100)
+         * @return результат, який буде передано в потік обробки подій
+         * @throws Exception у разі помилки; {@link CancellationException} — якщо операцію перервано
+         */
+        T run(IntConsumer progress) throws Exception;
+    }
+
+    private final JLabel label = new JLabel("Готово.");
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private final JButton cancelButton = new JButton("Скасувати");
+    private final List<Component> lockable = new ArrayList<>();
+
+    private SwingWorker<?, ?> current;
+    private boolean currentExclusive;
+    private int generation;
+    /** Кількість монопольних операцій, фоновий потік яких ще не завершився. */
+    private int exclusiveRunning;
+
+    public StatusBar() {
+        setLayout(new FlowLayout(FlowLayout.LEFT));
+        setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, Color.LIGHT_GRAY));
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+        cancelButton.addActionListener(e -> cancel());
+        add(label);
+        add(progressBar);
+        add(cancelButton);
+    }
+
+    /**
+     * Реєструє елементи керування, які блокуються на час монопольних операцій.
+     *
+     * @param components кнопки, поля тощо
+     */
+    public void lockWhileRunning(Component... components) {
+        lockable.addAll(List.of(components));
+    }
+
+    /**
+     * Запускає операцію, яка лише читає дані. Новіший запуск робить її
+     * застарілою: результат буде відкинуто.
+     *
+     * @param title     назва для рядка стану
+     * @param task      операція
+     * @param onSuccess обробка результату (у потоці обробки подій)
+     * @param onError   обробка помилки або скасування (у потоці обробки подій)
+     * @param <T>       тип результату
+     */
+    public <T> void run(String title, Task<T> task,
+                        Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+        start(title, false, task, onSuccess, onError);
+    }
+
+    /**
+     * Запускає операцію, що змінює дані панелі, і блокує зареєстровані
+     * елементи керування до її завершення.
+     *
+     * @param title     назва для рядка стану
+     * @param task      операція
+     * @param onSuccess обробка результату (у потоці обробки подій)
+     * @param onError   обробка помилки або скасування (у потоці обробки подій)
+     * @param <T>       тип результату
+     */
+    public <T> void runExclusive(String title, Task<T> task,
+                                 Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+        start(title, true, task, onSuccess, onError);
+    }
+
+    /**
+     * Повідомляє, чи виконується монопольна операція (дані панелі зараз змінюються).
+     *
+     * @return {@code true}, якщо фоновий потік монопольної операції ще працює
+     */
+    public boolean isExclusiveRunning() {
+        return exclusiveRunning > 0;
+    }
+
+    /**
+     * Показує повідомлення про подію поза чергою операцій (наприклад,
+     * завершення фонового запису), якщо зараз жодна операція не виконується.
+     *
+     * @param text текст повідомлення
+     */
+    public void showMessage(String text) {
+        if (current == null) {
+            label.setText(text);
+        }
+    }
+
+    /**
+     * Просить поточну операцію зупинитися (перериває її потік).
+     */
+    public void cancel() {
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+    private <T> void start(String title, boolean exclusive, Task<T> task,
+                           Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+        if (!currentExclusive) {
+            cancel(); // попередній запит лише читав дані і вже застарів
+        }
+        int gen = ++generation;
+        if (exclusive) {
+            exclusiveRunning++;
+            setLocked(true);
+        }
+
+        // хто перший: фоновий потік, що почав задачу, чи done() скасованої до старту
+        AtomicBoolean started = new AtomicBoolean();
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() {
+                if (!started.compareAndSet(false, true)) {
+                    return null;
+                }
+                T result = null;
+                Exception error = null;
+                try {
+                    result = task.run(p -> setProgress(Math.max(0, Math.min(100, p))));
+                } catch (Exception ex) {
+                    error = ex;
+                }
+                // завершення обробляється лише тоді, коли потік справді відпрацював,
+                // а не в момент скасування
+                T r = result;
+                Exception err = isCancelled() && error == null ? new CancellationException() : error;
+                SwingUtilities.invokeLater(() -> finish(gen, exclusive, title, r, err, onSuccess, onError));
+                return null;
+            }
+
+            // скасована ще в черзі задача не запускає doInBackground, тож
+            // завершення (розблокування кнопок) обробляється тут
+            @Override
+            protected void done() {
+                if (started.compareAndSet(false, true)) {
+                    finish(gen, exclusive, title, null, new CancellationException(), onSuccess, onError);
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName()) && gen == generation) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+
+        current = worker;
+        currentExclusive = exclusive;
+        label.setText(title + "...");
+        progressBar.setValue(0);
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(true);
+        cancelButton.setVisible(true);
+        worker.execute();
+    }
+
+    private <T> void finish(int gen, boolean exclusive, String title, T result, Exception error,
+                            Consumer<? super T> onSuccess, Consumer<? super Exception> onError) {
+        if (exclusive && --exclusiveRunning == 0) {
+            setLocked(false);
+        }
+        if (gen != generation) {
+            return; // результат застарілого запиту
+        }
+        current = null;
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+
+        if (error == null) {
+            label.setText(title + ": готово.");
+            onSuccess.accept(result);
+        } else if (error instanceof CancellationException) {
+            label.setText(title + ": скасовано.");
+            onError.accept(error);
+        } else {
+            label.setText(title + ": помилка.");
+            onError.accept(error);
+        }
+    }
+
+    private void setLocked(boolean locked) {
+        for (Component c : lockable) {
+            c.setEnabled(!locked);
+        }
+    }
+}
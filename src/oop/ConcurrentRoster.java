@@ -0,0 +1,511 @@
+package oop;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Потокобезпечний багатоверсійний список особового складу для одночасного
+ * читання з багатьох потоків під час запису.
+ *
+ * <p>{@link ServicemanArrayManager} не можна ділити між потоками:
+ * {@code setStaff} підміняє масив, а сортування переставляє його на місці
+ * просто під час обходу. Тут кожна версія списку — незмінний знімок
+ * ({@link Snapshot}), а поточна версія доступна через {@code volatile}
+ * посилання. Читач бере знімок одним читанням поля, без блокувань, і далі
+ * бачить цілісний стан, хоч би скільки записів відбулося паралельно. Довгий
+ * звіт просто тримає свій знімок (версію N), поки редагування створюють
+ * версії N+1, N+2, …</p>
+ *
+ * <p>Версії мають спільну структуру: рядки зберігаються фрагментами по
+ * {@link #CHUNK_SIZE} у колонкових сховищах {@link ServicemanColumns}, а
+ * знімок — це лише масив посилань на фрагменти. Пакет змін копіює тільки
+ * ті фрагменти, яких торкається, тож зміна одного рядка коштує
+ * O(CHUNK_SIZE + n / CHUNK_SIZE), а не O(n). Сортування та повна заміна
+ * складу будують усі фрагменти заново. Окремого звільнення версій немає:
+ * фрагмент, на який не посилається жоден утримуваний знімок, прибирає
+ * збирач сміття.</p>
+ *
+ * <p>Записувачі групують зміни в пакети ({@link #update(Consumer)}), які
+ * публікують новий знімок одним присвоєнням. Пакети серіалізуються одним
+ * замком.</p>
+ */
+public final class ConcurrentRoster {
+
+    /** Двійковий логарифм розміру фрагмента. */
+    private static final int CHUNK_SHIFT = 12;
+
+    /** Кількість рядків в одному фрагменті. */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Поточний опублікований знімок. */
+    private volatile Snapshot current;
+
+    /** Серіалізує записувачів; читачі його не торкаються. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Створює порожній список. */
+    public ConcurrentRoster() {
+        this(null);
+    }
+
+    /**
+     * Створює список з копією вказаного масиву.
+     *
+     * @param staff початковий склад (може бути {@code null})
+     */
+    public ConcurrentRoster(Serviceman[] staff) {
+        Batch initial = new Batch(new Snapshot(new ServicemanColumns[0], 0, 0));
+        initial.setAll(staff);
+        current = initial.publish(0);
+    }
+
+    /**
+     * Повертає поточний знімок. Не блокує і ніколи не чекає на записувачів.
+     *
+     * @return незмінний знімок
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Виконує пакет змін і публікує результат одним новим знімком.
+     * Читачі бачать або стан до пакета, або після нього, але не проміжний.
+     * Якщо {@code changes} кидає виняток, нічого не публікується.
+     *
+     * @param changes зміни, які треба застосувати до {@link Batch}
+     * @return опублікований знімок (або поточний, якщо пакет нічого не змінив)
+     */
+    public Snapshot update(Consumer<Batch> changes) {
+        Objects.requireNonNull(changes, "changes");
+        writeLock.lock();
+        try {
+            Snapshot base = current;
+            Batch batch = new Batch(base);
+            try {
+                changes.accept(batch);
+            } finally {
+                batch.closed = true;
+            }
+            if (batch.chunks == null) {
+                return base;
+            }
+            Snapshot next = batch.publish(base.version + 1);
+            current = next;
+            return next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Замінює весь склад копією масиву.
+     *
+     * @param staff новий склад (може бути {@code null})
+     * @return опублікований знімок
+     */
+    public Snapshot setStaff(Serviceman[] staff) {
+        return update(b -> b.setAll(staff));
+    }
+
+    /**
+     * Додає одного військового окремим пакетом.
+     *
+     * @param s військовослужбовець
+     * @return опублікований знімок
+     */
+    public Snapshot add(Serviceman s) {
+        return update(b -> b.add(s));
+    }
+
+    /**
+     * Пакет змін одного записувача. Діє лише всередині
+     * {@link ConcurrentRoster#update(Consumer)}; після виходу з нього будь-який
+     * виклик кидає {@link IllegalStateException}.
+     */
+    public static final class Batch {
+        private final Snapshot base;
+        /** Робочий масив фрагментів; {@code null}, доки нічого не змінено. */
+        private ServicemanColumns[] chunks;
+        /** Фрагменти, вже скопійовані або створені цим пакетом. */
+        private boolean[] owned;
+        private int size;
+        private boolean closed;
+
+        private Batch(Snapshot base) {
+            this.base = base;
+            this.size = base.size;
+        }
+
+        /** @return кількість рядків з урахуванням змін пакета */
+        public int size() {
+            checkOpen();
+            return size;
+        }
+
+        /**
+         * Замінює весь склад копією масиву.
+         *
+         * @param staff новий склад (може бути {@code null})
+         */
+        public void setAll(Serviceman[] staff) {
+            checkOpen();
+            chunks = new ServicemanColumns[0];
+            owned = new boolean[0];
+            size = 0;
+            if (staff != null) {
+                for (Serviceman s : staff) {
+                    append().add(s);
+                }
+            }
+        }
+
+        /**
+         * Додає військового в кінець списку.
+         *
+         * @param s військовослужбовець
+         */
+        public void add(Serviceman s) {
+            Objects.requireNonNull(s, "s");
+            checkOpen();
+            startChanges();
+            append().add(s);
+        }
+
+        /**
+         * Модифікує рядок за тими самими правилами, що й
+         * {@link ServicemanArrayManager#modifyServiceman(int, String, String, Integer, String)}.
+         * Копіюється лише фрагмент, що містить рядок.
+         *
+         * @param index             індекс рядка
+         * @param name              нове ім'я (або null, якщо не змінювати)
+         * @param rank              нове звання (або null, якщо не змінювати)
+         * @param years             новий стаж служби (або null, якщо не змінювати)
+         * @param positionIfOfficer нова посада, якщо військовий є офіцером (або null)
+         *
+         * @throws IndexOutOfBoundsException якщо індекс некоректний
+         */
+        public void modify(int index, String name, String rank, Integer years, String positionIfOfficer) {
+            if (index < 0 || index >= size())
+                throw new IndexOutOfBoundsException("Невірний індекс: " + index);
+
+            startChanges();
+            ServicemanColumns c = writable(index >>> CHUNK_SHIFT);
+            int row = index & CHUNK_MASK;
+            if (name != null && !name.isBlank()) {
+                c.setName(row, name);
+            }
+            if (rank != null && !rank.isBlank()) {
+                c.setRank(row, rank);
+            }
+            if (years != null) {
+                c.setYears(row, years);
+            }
+            if (positionIfOfficer != null && !positionIfOfficer.isBlank()) {
+                c.setPosition(row, positionIfOfficer);
+            }
+        }
+
+        /**
+         * Стабільно сортує рядки за стажем. Усі фрагменти будуються заново.
+         *
+         * @param descending {@code true} — за спаданням
+         */
+        public void sortByYears(boolean descending) {
+            checkOpen();
+            startChanges();
+            ServicemanColumns[] src = chunks;
+            IntUnaryOperator yearsAt = i -> src[i >>> CHUNK_SHIFT].years(i & CHUNK_MASK);
+            int[] order = yearsOrder(yearsAt, size);
+            if (descending) {
+                order = reverseStable(order, yearsAt);
+            }
+
+            chunks = new ServicemanColumns[0];
+            owned = new boolean[0];
+            size = 0;
+            for (int k : order) {
+                append().addFrom(src[k >>> CHUNK_SHIFT], k & CHUNK_MASK);
+            }
+        }
+
+        /** Переходить від фрагментів знімка до власного масиву посилань. */
+        private void startChanges() {
+            if (chunks == null) {
+                chunks = base.chunks.clone();
+                owned = new boolean[chunks.length];
+            }
+        }
+
+        /** Фрагмент, у який можна писати: за потреби копіюється з версії-основи. */
+        private ServicemanColumns writable(int chunk) {
+            if (!owned[chunk]) {
+                chunks[chunk] = chunks[chunk].copy();
+                owned[chunk] = true;
+            }
+            return chunks[chunk];
+        }
+
+        /** Повертає фрагмент для нового рядка в кінці й збільшує розмір. */
+        private ServicemanColumns append() {
+            int chunk = size >>> CHUNK_SHIFT;
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunk + 1);
+                owned = Arrays.copyOf(owned, chunk + 1);
+                chunks[chunk] = new ServicemanColumns(CHUNK_SIZE);
+                owned[chunk] = true;
+            }
+            size++;
+            return writable(chunk);
+        }
+
+        private Snapshot publish(long version) {
+            return new Snapshot(chunks, size, version);
+        }
+
+        private void checkOpen() {
+            if (closed) throw new IllegalStateException("Пакет змін уже завершено");
+        }
+
+        /**
+         * Перетворює стабільний порядок за зростанням на стабільний порядок
+         * за спаданням: групи рівних значень ідуть у зворотному порядку, а
+         * всередині групи зберігається початкова послідовність рядків.
+         */
+        private static int[] reverseStable(int[] ascending, IntUnaryOperator yearsAt) {
+            int n = ascending.length;
+            int[] out = new int[n];
+            int pos = 0;
+            int end = n;
+            while (end > 0) {
+                int start = end - 1;
+                int y = yearsAt.applyAsInt(ascending[start]);
+                while (start > 0 && yearsAt.applyAsInt(ascending[start - 1]) == y) {
+                    start--;
+                }
+                System.arraycopy(ascending, start, out, pos, end - start);
+                pos += end - start;
+                end = start;
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Стабільний порядок рядків за зростанням стажу: сортування підрахунком
+     * через {@link YearsIndex}, якщо діапазон значень невеликий, інакше —
+     * звичайне сортування.
+     */
+    private static int[] yearsOrder(IntUnaryOperator yearsAt, int n) {
+        YearsIndex index = YearsIndex.build(yearsAt, n);
+        if (index != null) {
+            return index.sortOrder(yearsAt, false);
+        }
+        return IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingInt(yearsAt::applyAsInt))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Незмінний знімок (версія) списку. Безпечно читається з будь-якої
+     * кількості потоків одночасно; новий запис створює нову версію і цю
+     * не змінює.
+     */
+    public static final class Snapshot {
+        private final ServicemanColumns[] chunks;
+        private final int size;
+        private final long version;
+
+        /**
+         * Порядок рядків за стажем; будується під час першого запиту за
+         * стажем. Якщо два потоки побудують його одночасно, результати
+         * однакові, тож гонка нешкідлива.
+         */
+        private volatile YearsOrder byYears;
+
+        private Snapshot(ServicemanColumns[] chunks, int size, long version) {
+            this.chunks = chunks;
+            this.size = size;
+            this.version = version;
+        }
+
+        /** @return номер версії; зростає з кожним опублікованим пакетом */
+        public long getVersion() { return version; }
+
+        /** @return кількість рядків */
+        public int size() { return size; }
+
+        public String getNameAt(int index) { return chunk(index).name(index & CHUNK_MASK); }
+
+        public String getRankAt(int index) { return chunk(index).rank(index & CHUNK_MASK); }
+
+        public int getYearsAt(int index) { return chunk(index).years(index & CHUNK_MASK); }
+
+        public boolean isOfficerAt(int index) { return chunk(index).isOfficer(index & CHUNK_MASK); }
+
+        /** @return посада офіцера або {@code null} для солдата */
+        public String getPositionAt(int index) { return chunk(index).position(index & CHUNK_MASK); }
+
+        /**
+         * Створює окремий об'єкт для рядка. Його зміни на знімок не впливають.
+         *
+         * @param index індекс рядка
+         * @return новий {@link Soldier} або {@link Officer}
+         */
+        public Serviceman get(int index) { return chunk(index).toServiceman(index & CHUNK_MASK); }
+
+        /** @return новий масив об'єктів з усіма рядками знімка */
+        public Serviceman[] toArray() {
+            Serviceman[] arr = new Serviceman[size];
+            for (int i = 0; i < size; i++) {
+                arr[i] = get(i);
+            }
+            return arr;
+        }
+
+        /** @return найменший стаж або 0, якщо знімок порожній */
+        public int getMinYears() {
+            int[] sorted = yearsOrder().sortedYears;
+            return sorted.length == 0 ? 0 : sorted[0];
+        }
+
+        /** @return найбільший стаж або 0, якщо знімок порожній */
+        public int getMaxYears() {
+            int[] sorted = yearsOrder().sortedYears;
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        /**
+         * Рахує рядки зі стажем у діапазоні {@code [fromYears, toYears]} за O(log n).
+         *
+         * @param fromYears нижня межа (включно)
+         * @param toYears   верхня межа (включно)
+         * @return кількість рядків
+         */
+        public int countByYearsRange(int fromYears, int toYears) {
+            if (fromYears > toYears) return 0;
+            YearsOrder o = yearsOrder();
+            return o.upperBound(toYears) - o.lowerBound(fromYears);
+        }
+
+        /**
+         * Повертає індекси рядків зі стажем у діапазоні {@code [fromYears, toYears]}.
+         *
+         * @param fromYears нижня межа (включно)
+         * @param toYears   верхня межа (включно)
+         * @return індекси у порядку зростання
+         */
+        public int[] findByYearsRange(int fromYears, int toYears) {
+            if (fromYears > toYears) return new int[0];
+            YearsOrder o = yearsOrder();
+            int[] rows = Arrays.copyOfRange(o.rows, o.lowerBound(fromYears), o.upperBound(toYears));
+            Arrays.sort(rows);
+            return rows;
+        }
+
+        /**
+         * Будує повний текстовий опис версії у форматі
+         * {@link ServicemanArrayManager#buildAllInfo()}.
+         *
+         * @return текст із переліком усіх елементів
+         */
+        public String buildAllInfo() {
+            if (size == 0) return "Масив порожній.";
+
+            StringBuilder sb = new StringBuilder();
+            ServicemanArrayManager.writeUnchecked(() -> writeAllInfo(sb, 0, Integer.MAX_VALUE));
+            return sb.toString();
+        }
+
+        /**
+         * Записує сторінку повного опису версії у потік. Паралельні
+         * редагування списку на результат не впливають.
+         *
+         * @param out    приймач тексту
+         * @param offset індекс першого рядка сторінки
+         * @param limit  максимальна кількість рядків сторінки
+         * @return загальна кількість елементів
+         * @throws IOException якщо приймач не зміг записати текст
+         */
+        public int writeAllInfo(Appendable out, int offset, int limit) throws IOException {
+            if (size == 0) {
+                out.append("Масив порожній.");
+                return 0;
+            }
+            int from = Math.max(offset, 0);
+            int to = (int) Math.min((long) from + Math.max(limit, 0), size);
+            StringBuilder row = new StringBuilder(128);
+            for (int i = from; i < to; i++) {
+                ServicemanColumns c = chunks[i >>> CHUNK_SHIFT];
+                int k = i & CHUNK_MASK;
+                boolean officer = c.isOfficer(k);
+                row.setLength(0);
+                ServicemanArrayManager.appendFullRow(row, i, officer, c.name(k), c.rank(k), c.years(k),
+                        officer ? c.position(k) : null);
+                out.append(row);
+            }
+            return size;
+        }
+
+        private ServicemanColumns chunk(int index) {
+            return chunks[Objects.checkIndex(index, size) >>> CHUNK_SHIFT];
+        }
+
+        private YearsOrder yearsOrder() {
+            YearsOrder o = byYears;
+            if (o == null) {
+                o = new YearsOrder(this);
+                byYears = o;
+            }
+            return o;
+        }
+    }
+
+    /** Рядки знімка, стабільно впорядковані за зростанням стажу. */
+    private static final class YearsOrder {
+        final int[] rows;
+        /** Стаж у порядку {@link #rows} — для двійкового пошуку меж. */
+        final int[] sortedYears;
+
+        YearsOrder(Snapshot s) {
+            ServicemanColumns[] chunks = s.chunks;
+            IntUnaryOperator yearsAt = i -> chunks[i >>> CHUNK_SHIFT].years(i & CHUNK_MASK);
+            rows = ConcurrentRoster.yearsOrder(yearsAt, s.size);
+            sortedYears = new int[rows.length];
+            for (int k = 0; k < rows.length; k++) {
+                sortedYears[k] = yearsAt.applyAsInt(rows[k]);
+            }
+        }
+
+        /** Перша позиція зі стажем не меншим за {@code years}. */
+        int lowerBound(int years) {
+            int lo = 0;
+            int hi = sortedYears.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedYears[mid] < years) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        /** Перша позиція зі стажем більшим за {@code years}. */
+        int upperBound(int years) {
+            int lo = 0;
+            int hi = sortedYears.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedYears[mid] <= years) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
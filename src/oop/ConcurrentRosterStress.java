@@ -0,0 +1,153 @@
+package oop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Навантажувальна перевірка {@link ConcurrentRoster}: записувачі й читачі
+ * працюють одночасно, а читачі перевіряють цілісність кожного знімка.
+ *
+ * <p>Записувачі по черзі виконують пакет змін усіх рядків
+ * ({@link ConcurrentRoster#update}), повну заміну складу
+ * ({@link ConcurrentRoster#setStaff}) і сортування за стажем. Після кожної
+ * операції всі рядки знімка однакові: стаж {@code k}, ПІБ {@code "N"+k},
+ * звання {@code "r"+k}, посада офіцера {@code "p"+k}. Читач, який побачив
+ * у знімку різні рядки, невідповідний індекс стажу або меншу версію, ніж
+ * до того, фіксує розірване читання.</p>
+ *
+ * <p>Спершу вимірюється швидкість читання без записувачів, потім — з ними;
+ * обидва значення друкуються, щоб було видно, чи не падає пропускна здатність
+ * читачів під змішаним навантаженням.</p>
+ *
+ * <p>Запуск: {@code java oop.ConcurrentRosterStress [записувачі] [читачі]
+ * [секунди] [рядки]} (за замовчуванням 2, 4, 3, 5000). Код виходу 1, якщо
+ * знайдено хоча б одне розірване читання.</p>
+ */
+final class ConcurrentRosterStress {
+
+    private ConcurrentRosterStress() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long millis = 1000L * (args.length > 2 ? Integer.parseInt(args[2]) : 3);
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+
+        ConcurrentRoster roster = new ConcurrentRoster(uniform(rows, 0));
+
+        Result alone = run(roster, 0, readers, millis, rows);
+        Result mixed = run(roster, writers, readers, millis, rows);
+
+        System.out.printf("Читання без записувачів: %,.0f знімків/с%n", alone.readsPerSecond);
+        System.out.printf("Читання з %d записувачами: %,.0f знімків/с (%.0f%%), пакетів записувачів: %,.0f/с%n",
+                writers, mixed.readsPerSecond, 100 * mixed.readsPerSecond / Math.max(alone.readsPerSecond, 1),
+                mixed.writesPerSecond);
+        long torn = alone.torn + mixed.torn;
+        System.out.println("Розірваних читань: " + torn);
+        if (torn > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Serviceman[] uniform(int rows, int k) {
+        Serviceman[] staff = new Serviceman[rows];
+        for (int i = 0; i < rows; i++) {
+            staff[i] = i % 3 == 0 ? new Officer("N" + k, "r" + k, k, "p" + k) : new Soldier("N" + k, "r" + k, k);
+        }
+        return staff;
+    }
+
+    private static Result run(ConcurrentRoster roster, int writers, int readers, long millis, int rows)
+            throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        AtomicLong torn = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            long seed = w;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                while (!stop.get()) {
+                    int k = random.nextInt(1000);
+                    switch (random.nextInt(3)) {
+                        case 0 -> roster.update(b -> {
+                            for (int i = 0; i < b.size(); i++) {
+                                b.modify(i, "N" + k, "r" + k, k, "p" + k);
+                            }
+                            if (random.nextInt(10) == 0) {
+                                b.add(new Soldier("N" + k, "r" + k, k));
+                            }
+                        });
+                        case 1 -> roster.setStaff(uniform(rows, k));
+                        default -> roster.update(b -> {
+                            for (int i = 0; i < b.size(); i++) {
+                                b.modify(i, "N" + k, "r" + k, k, "p" + k);
+                            }
+                            b.sortByYears(random.nextBoolean());
+                        });
+                    }
+                    writes.incrementAndGet();
+                }
+            }, "writer-" + w));
+        }
+
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                long lastVersion = -1;
+                while (!stop.get()) {
+                    ConcurrentRoster.Snapshot s = roster.snapshot();
+                    if (s.getVersion() < lastVersion || !consistent(s)) {
+                        torn.incrementAndGet();
+                    }
+                    lastVersion = s.getVersion();
+                    reads.incrementAndGet();
+                }
+            }, "reader-" + r));
+        }
+
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread t : threads) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Result(reads.get() / seconds, writes.get() / seconds, torn.get());
+    }
+
+    /** Усі рядки знімка мають бути з однієї операції записувача. */
+    private static boolean consistent(ConcurrentRoster.Snapshot s) {
+        int n = s.size();
+        if (n == 0) return false;
+        int k = s.getYearsAt(0);
+        String name = "N" + k;
+        String rank = "r" + k;
+        String position = "p" + k;
+        for (int i = 0; i < n; i++) {
+            if (s.getYearsAt(i) != k || !name.equals(s.getNameAt(i)) || !rank.equals(s.getRankAt(i))
+                    || s.isOfficerAt(i) && !position.equals(s.getPositionAt(i))) {
+                return false;
+            }
+        }
+        return s.countByYearsRange(k, k) == n && s.getMinYears() == k && s.getMaxYears() == k;
+    }
+
+    private static final class Result {
+        final double readsPerSecond;
+        final double writesPerSecond;
+        final long torn;
+
+        Result(double readsPerSecond, double writesPerSecond, long torn) {
+            this.readsPerSecond = readsPerSecond;
+            this.writesPerSecond = writesPerSecond;
+            this.torn = torn;
+        }
+    }
+}
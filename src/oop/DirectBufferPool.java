@@ -0,0 +1,50 @@
+package oop;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул прямих буферів однакового розміру для стиснених блоків
+ * ({@link ServicemanBinaryFile}). Прямий буфер дорогий у створенні й
+ * звільняється лише збирачем сміття, тож буфери повертаються в пул і
+ * використовуються повторно як для запису, так і для читання.
+ */
+final class DirectBufferPool {
+
+    /** Розмір кожного буфера: більший за найбільший блок до і після стиснення. */
+    static final int BUFFER_BYTES = 1 << 20;
+
+    /** Скільки вільних буферів тримати; решта віддається збирачу сміття. */
+    private static final int MAX_FREE = 8;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> FREE = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger FREE_COUNT = new AtomicInteger();
+
+    private DirectBufferPool() {
+    }
+
+    /** @return очищений буфер розміром {@link #BUFFER_BYTES} */
+    static ByteBuffer acquire() {
+        ByteBuffer buf = FREE.poll();
+        if (buf == null) {
+            return ByteBuffer.allocateDirect(BUFFER_BYTES);
+        }
+        FREE_COUNT.decrementAndGet();
+        return buf.clear();
+    }
+
+    /**
+     * Повертає буфер у пул. Після цього буфер не можна використовувати.
+     *
+     * @param buf буфер з {@link #acquire()} або {@code null}
+     */
+    static void release(ByteBuffer buf) {
+        if (buf == null) return;
+        if (FREE_COUNT.incrementAndGet() <= MAX_FREE) {
+            FREE.offer(buf);
+        } else {
+            FREE_COUNT.decrementAndGet();
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package oop;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Клас {@code MilitaryUnit} моделює військовий підрозділ, який містить список
@@ -11,6 +18,24 @@ import java.util.List;
  *
  * <p>Клас демонструє приклад агрегації: підрозділ містить колекцію об'єктів
  * {@code Serviceman}, але не керує їх життєвим циклом за межами колекції.</p>
+ *
+ * <p>Зведені показники (загальна зарплата, чисельність за типом і званням,
+ * сума, мінімум і максимум стажу) підтримуються поточними під час додавання,
+ * зміни та вилучення військових через методи підрозділу, тому читаються за
+ * O(1). Зарплата накопичується в копійках у {@code long}, тож додавання й
+ * віднімання не накопичують похибки округлення. Підрозділ підписується
+ * на зміни кожного свого військового ({@link ServicemanListener}), тому
+ * показники лишаються поточними і тоді, коли об'єкт змінюють напряму.
+ * Повний перерахунок лишився як режим перевірки
+ * ({@link #setVerifyAggregates(boolean)}) та як
+ * {@link #recomputeAggregates()}.</p>
+ *
+ * <p>Підрозділи можуть утворювати дерево (бригада → батальйон → рота →
+ * взвод). Для кожного вузла кешуються показники всього піддерева
+ * ({@link #getRollUp()}). Зміна складу позначає «брудним» лише шлях від
+ * вузла до кореня, а показники перераховуються ліниво під час читання
+ * і лише для брудних вузлів. Великі брудні піддерева перераховуються
+ * паралельно у {@link ForkJoinPool}.</p>
  */
 public class MilitaryUnit {
 
@@ -20,6 +45,79 @@ public class MilitaryUnit {
     /** Список особового складу підрозділу. */
     private List<Serviceman> staff;
 
+    /** Загальна зарплата особового складу в копійках. */
+    private long salaryCents;
+
+    /**
+     * Сума {@link #salaryCents} застаріла: змінився військовий із власним
+     * розрахунком зарплати, для якого різницю не обчислити. Перераховується
+     * під час наступного читання.
+     */
+    private boolean salaryStale;
+
+    /** Слухач, підписаний на кожного військового підрозділу. */
+    private final ServicemanListener staffListener = new ServicemanListener() {
+        @Override
+        public void nameChanged(Serviceman s, String oldName) {
+            customChanged(s);
+        }
+
+        @Override
+        public void rankChanged(Serviceman s, String oldRank) {
+            rankCounts.merge(oldRank, -1, (a, b) -> a + b == 0 ? null : a + b);
+            rankCounts.merge(s.getRank(), 1, Integer::sum);
+            customChanged(s);
+        }
+
+        @Override
+        public void yearsChanged(Serviceman s, int oldYears) {
+            moveYears(s, oldYears, s.getYearsOfService());
+        }
+
+        @Override
+        public void positionChanged(Officer o, String oldPosition) {
+            customChanged(o);
+        }
+    };
+
+    /** Кількість офіцерів (решта — солдати). */
+    private int officerCount;
+
+    /** Кількість військових для кожного звання. */
+    private final Map<String, Integer> rankCounts = new HashMap<>();
+
+    /** Сумарний стаж особового складу. */
+    private long yearsSum;
+
+    /** Гістограма стажу; {@code null}, якщо діапазон значень завеликий. */
+    private YearsIndex yearsHistogram;
+
+    private int minYears;
+    private int maxYears;
+
+    /** Режим перевірки: кожне читання показників звіряється з повним перерахунком. */
+    private boolean verifyAggregates;
+
+    /** Мінімальний розмір піддерева (у підрозділах) для паралельного перерахунку. */
+    static final int PARALLEL_MIN_UNITS = 64;
+
+    /** Старший підрозділ; {@code null} для кореня. */
+    private MilitaryUnit parent;
+
+    /** Підпорядковані підрозділи. */
+    private final List<MilitaryUnit> children = new ArrayList<>();
+
+    /** Кількість підрозділів у піддереві разом із цим. */
+    private int subtreeUnits = 1;
+
+    /**
+     * Кешовані показники піддерева. Якщо вузол брудний, брудні й усі
+     * його предки, тож позначення шляху можна зупинити на першому
+     * вже брудному вузлі.
+     */
+    private UnitRollUp rollUp;
+    private boolean rollUpDirty = true;
+
     /**
      * Конструктор за замовчуванням.
      * Створює підрозділ із типовою назвою та порожнім списком військових.
@@ -27,6 +125,7 @@ public class MilitaryUnit {
     public MilitaryUnit() {
         this.unitName = "Безіменний підрозділ";
         this.staff = new ArrayList<>();
+        recomputeAggregates();
     }
 
     /**
@@ -37,6 +136,7 @@ public class MilitaryUnit {
     public MilitaryUnit(String unitName) {
         this.unitName = unitName;
         this.staff = new ArrayList<>();
+        recomputeAggregates();
     }
 
     /**
@@ -60,6 +160,8 @@ public class MilitaryUnit {
      */
     public void addServiceman(Serviceman s) {
         staff.add(s);
+        account(s, 1);
+        s.addListener(staffListener);
     }
 
     /**
@@ -70,7 +172,226 @@ public class MilitaryUnit {
      * @param yearsOfService стаж служби у роках
      */
     public void addServiceman(String name, String rank, int yearsOfService) {
-        staff.add(new Soldier(name, rank, yearsOfService));
+        addServiceman(new Soldier(name, rank, yearsOfService));
+    }
+
+    /**
+     * Додає підпорядкований підрозділ.
+     *
+     * @param child підрозділ без старшого підрозділу
+     * @throws IllegalArgumentException якщо підрозділ уже має старший підрозділ
+     *                                  або додавання утворило б цикл
+     */
+    public void addChild(MilitaryUnit child) {
+        if (child.parent != null)
+            throw new IllegalArgumentException("Підрозділ \"" + child.unitName + "\" уже входить до іншого");
+        for (MilitaryUnit u = this; u != null; u = u.parent) {
+            if (u == child)
+                throw new IllegalArgumentException("Підрозділ не може входити сам до себе");
+        }
+        children.add(child);
+        child.parent = this;
+        for (MilitaryUnit u = this; u != null; u = u.parent) {
+            u.subtreeUnits += child.subtreeUnits;
+        }
+        markDirty();
+    }
+
+    /**
+     * Вилучає підпорядкований підрозділ.
+     *
+     * @param child підрозділ
+     * @return {@code true}, якщо підрозділ був серед підпорядкованих
+     */
+    public boolean removeChild(MilitaryUnit child) {
+        if (child.parent != this || !children.remove(child)) return false;
+        child.parent = null;
+        for (MilitaryUnit u = this; u != null; u = u.parent) {
+            u.subtreeUnits -= child.subtreeUnits;
+        }
+        markDirty();
+        return true;
+    }
+
+    /**
+     * @return незмінний список підпорядкованих підрозділів
+     */
+    public List<MilitaryUnit> getChildren() { return Collections.unmodifiableList(children); }
+
+    /**
+     * @return старший підрозділ або {@code null} для кореня
+     */
+    public MilitaryUnit getParent() { return parent; }
+
+    /**
+     * Повертає показники підрозділу разом з усіма вкладеними. Якщо від
+     * попереднього читання нічого не змінилося, повертається кеш; інакше
+     * перераховуються лише брудні вузли піддерева.
+     *
+     * @return зведені показники піддерева
+     */
+    public UnitRollUp getRollUp() {
+        if (rollUpDirty) {
+            if (subtreeUnits >= PARALLEL_MIN_UNITS) {
+                ForkJoinPool.commonPool().invoke(new RollUpTask(this));
+            } else {
+                rollUpSequential();
+            }
+        }
+        if (verifyAggregates && !rollUp.equals(fullRollUp())) {
+            throw new IllegalStateException("Показники піддерева \"" + unitName
+                    + "\" розійшлися з повним перерахунком");
+        }
+        return rollUp;
+    }
+
+    private void markDirty() {
+        for (MilitaryUnit u = this; u != null && !u.rollUpDirty; u = u.parent) {
+            u.rollUpDirty = true;
+        }
+    }
+
+    /** Показники лише власного складу (без вкладених підрозділів). */
+    private UnitRollUp ownRollUp() {
+        return new UnitRollUp(1, staff.size(), officerCount, salary(), yearsSum, minYears, maxYears);
+    }
+
+    private UnitRollUp rollUpSequential() {
+        if (rollUpDirty) {
+            UnitRollUp r = ownRollUp();
+            for (MilitaryUnit c : children) {
+                r = r.plus(c.rollUpSequential());
+            }
+            rollUp = r;
+            rollUpDirty = false;
+        }
+        return rollUp;
+    }
+
+    /** Перерахунок піддерева без кешу — для режиму перевірки. */
+    private UnitRollUp fullRollUp() {
+        int officers = 0;
+        long salary = 0;
+        long years = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (Serviceman s : staff) {
+            int y = s.getYearsOfService();
+            if (s instanceof Officer) officers++;
+            salary += salaryCents(s);
+            years += y;
+            min = Math.min(min, y);
+            max = Math.max(max, y);
+        }
+        UnitRollUp r = new UnitRollUp(1, staff.size(), officers, salary, years, min, max);
+        for (MilitaryUnit c : children) {
+            r = r.plus(c.fullRollUp());
+        }
+        return r;
+    }
+
+    /**
+     * Паралельний перерахунок брудного піддерева: великі брудні
+     * підпорядковані піддерева обробляються окремими задачами, решта —
+     * у поточному потоці. Різні задачі змінюють лише власні вузли.
+     */
+    private static final class RollUpTask extends RecursiveTask<UnitRollUp> {
+        private final MilitaryUnit unit;
+
+        RollUpTask(MilitaryUnit unit) {
+            this.unit = unit;
+        }
+
+        @Override
+        protected UnitRollUp compute() {
+            MilitaryUnit u = unit;
+            if (!u.rollUpDirty) return u.rollUp;
+
+            List<MilitaryUnit> kids = u.children;
+            RollUpTask[] forked = new RollUpTask[kids.size()];
+            for (int i = 0; i < kids.size(); i++) {
+                MilitaryUnit c = kids.get(i);
+                if (c.rollUpDirty && c.subtreeUnits >= PARALLEL_MIN_UNITS) {
+                    forked[i] = new RollUpTask(c);
+                    forked[i].fork();
+                }
+            }
+            UnitRollUp r = u.ownRollUp();
+            for (int i = 0; i < kids.size(); i++) {
+                if (forked[i] == null) {
+                    r = r.plus(kids.get(i).rollUpSequential());
+                }
+            }
+            for (RollUpTask t : forked) {
+                if (t != null) {
+                    r = r.plus(t.join());
+                }
+            }
+            u.rollUp = r;
+            u.rollUpDirty = false;
+            return r;
+        }
+    }
+
+    /**
+     * @return список особового складу без копіювання (для пакетних розрахунків)
+     */
+    List<Serviceman> staffList() { return staff; }
+
+    /**
+     * Повертає кількість військовослужбовців у підрозділі.
+     *
+     * @return чисельність особового складу
+     */
+    public int getHeadcount() { return staff.size(); }
+
+    /**
+     * Модифікує дані військовослужбовця підрозділу за індексом і оновлює
+     * зведені показники.
+     *
+     * @param index             індекс у списку особового складу
+     * @param name              нове ім'я (або null, якщо не змінювати)
+     * @param rank              нове звання (або null, якщо не змінювати)
+     * @param years             новий стаж служби (або null, якщо не змінювати)
+     * @param positionIfOfficer нова посада, якщо військовий є офіцером (або null)
+     *
+     * @throws IndexOutOfBoundsException якщо індекс некоректний
+     */
+    public void modifyServiceman(int index, String name, String rank, Integer years, String positionIfOfficer) {
+        if (index < 0 || index >= staff.size())
+            throw new IndexOutOfBoundsException("Невірний індекс: " + index);
+
+        // показники оновлює staffListener
+        Serviceman s = staff.get(index);
+        if (name != null && !name.isBlank()) {
+            s.setName(name);
+        }
+        if (rank != null && !rank.isBlank()) {
+            s.setRank(rank);
+        }
+        if (years != null) {
+            s.setYearsOfService(years);
+        }
+        if (s instanceof Officer o && positionIfOfficer != null && !positionIfOfficer.isBlank()) {
+            o.setPosition(positionIfOfficer);
+        }
+    }
+
+    /**
+     * Вилучає військовослужбовця з підрозділу.
+     *
+     * @param index індекс у списку особового складу
+     * @return вилучений військовослужбовець
+     * @throws IndexOutOfBoundsException якщо індекс некоректний
+     */
+    public Serviceman removeServiceman(int index) {
+        if (index < 0 || index >= staff.size())
+            throw new IndexOutOfBoundsException("Невірний індекс: " + index);
+
+        Serviceman s = staff.remove(index);
+        s.removeListener(staffListener);
+        account(s, -1);
+        return s;
     }
 
     /**
@@ -85,31 +406,292 @@ public class MilitaryUnit {
      */
     public String buildUnitInfo() {
         StringBuilder sb = new StringBuilder();
-        sb.append("Підрозділ: ").append(unitName).append("\n");
+        try {
+            writeUnitInfo(sb, 0, Integer.MAX_VALUE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Записує у потік заголовок підрозділу та сторінку переліку особового
+     * складу. Рядки поза сторінкою не форматуються.
+     *
+     * @param out    приймач тексту (наприклад, {@link java.io.Writer})
+     * @param offset номер першого військового на сторінці
+     * @param limit  максимальна кількість військових на сторінці
+     * @return загальна кількість особового складу
+     * @throws IOException якщо приймач не зміг записати текст
+     */
+    public int writeUnitInfo(Appendable out, int offset, int limit) throws IOException {
+        out.append("Підрозділ: ").append(unitName).append("\n");
 
         if (staff.isEmpty()) {
-            sb.append("  Особовий склад відсутній.\n");
-        } else {
-            for (Serviceman s : staff) {
-                sb.append("  - ")
-                        .append(s.getName()).append(", ")
-                        .append(s.getRank()).append(", стаж: ")
-                        .append(s.getYearsOfService()).append("\n");
-            }
+            out.append("  Особовий склад відсутній.\n");
+            return 0;
         }
-        return sb.toString();
+
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), staff.size());
+        StringBuilder row = new StringBuilder(96);
+        for (int i = from; i < to; i++) {
+            Serviceman s = staff.get(i);
+            row.setLength(0);
+            row.append("  - ")
+                    .append(s.getName()).append(", ")
+                    .append(s.getRank()).append(", стаж: ")
+                    .append(s.getYearsOfService()).append("\n");
+            out.append(row);
+        }
+        return staff.size();
     }
 
     /**
-     * Обчислює сумарну зарплату всього особового складу підрозділу.
+     * Повертає сумарну зарплату всього особового складу підрозділу.
+     * Значення підтримується поточним, тому виклик не переглядає список.
      *
      * @return загальна зарплата
      */
     public double totalSalary() {
-        double total = 0;
+        verify();
+        return salary() / 100.0;
+    }
+
+    /**
+     * Повертає кількість офіцерів підрозділу.
+     *
+     * @return кількість офіцерів
+     */
+    public int getOfficerCount() {
+        verify();
+        return officerCount;
+    }
+
+    /**
+     * Повертає кількість солдатів (усіх, хто не є офіцером).
+     *
+     * @return кількість солдатів
+     */
+    public int getSoldierCount() {
+        verify();
+        return staff.size() - officerCount;
+    }
+
+    /**
+     * Повертає кількість військових із заданим званням.
+     *
+     * @param rank звання
+     * @return кількість (0, якщо таких немає)
+     */
+    public int getRankCount(String rank) {
+        verify();
+        return rankCounts.getOrDefault(rank, 0);
+    }
+
+    /**
+     * Повертає чисельність за званнями.
+     *
+     * @return незмінне подання «звання → кількість»
+     */
+    public Map<String, Integer> getRankCounts() {
+        verify();
+        return Collections.unmodifiableMap(rankCounts);
+    }
+
+    /**
+     * Повертає сумарний стаж особового складу.
+     *
+     * @return сума років служби
+     */
+    public long getTotalYears() {
+        verify();
+        return yearsSum;
+    }
+
+    /**
+     * Повертає найменший стаж у підрозділі.
+     *
+     * @return найменший стаж або 0, якщо особовий склад відсутній
+     */
+    public int getMinYears() {
+        verify();
+        return minYears;
+    }
+
+    /**
+     * Повертає найбільший стаж у підрозділі.
+     *
+     * @return найбільший стаж або 0, якщо особовий склад відсутній
+     */
+    public int getMaxYears() {
+        verify();
+        return maxYears;
+    }
+
+    /**
+     * Вмикає або вимикає режим перевірки: кожне читання показників
+     * перераховує їх повністю і порівнює з накопиченими значеннями.
+     * Призначений для налагодження; у звичайному режимі читання — O(1).
+     *
+     * @param verify {@code true} — звіряти показники при кожному читанні
+     */
+    public void setVerifyAggregates(boolean verify) { this.verifyAggregates = verify; }
+
+    /**
+     * Перераховує всі зведені показники з нуля. Зміни полів військових
+     * підрозділ відстежує сам; перерахунок лишився для перевірки та
+     * відновлення після непередбачених змін.
+     */
+    public void recomputeAggregates() {
+        markDirty();
+        salaryCents = 0;
+        salaryStale = false;
+        officerCount = 0;
+        rankCounts.clear();
+        yearsSum = 0;
+        yearsHistogram = YearsIndex.build(i -> staff.get(i).getYearsOfService(), staff.size());
         for (Serviceman s : staff) {
-            total += s.calculateSalary();
+            salaryCents += salaryCents(s);
+            if (s instanceof Officer) officerCount++;
+            rankCounts.merge(s.getRank(), 1, Integer::sum);
+            yearsSum += s.getYearsOfService();
+        }
+        recomputeYearsRange();
+    }
+
+    /**
+     * Враховує військового в показниках ({@code sign = 1}) або вилучає
+     * його внесок ({@code sign = -1}).
+     */
+    private void account(Serviceman s, int sign) {
+        markDirty();
+        int years = s.getYearsOfService();
+        salaryCents += sign * salaryCents(s);
+        if (s instanceof Officer) officerCount += sign;
+        rankCounts.merge(s.getRank(), sign, (a, b) -> a + b == 0 ? null : a + b);
+        yearsSum += sign * (long) years;
+
+        if (yearsHistogram == null) {
+            recomputeYearsRange();
+            return;
+        }
+        if (sign > 0) {
+            if (!yearsHistogram.add(years)) {
+                yearsHistogram = null;
+                recomputeYearsRange();
+                return;
+            }
+            if (yearsHistogram.size() == 1) {
+                minYears = years;
+                maxYears = years;
+            } else {
+                minYears = Math.min(minYears, years);
+                maxYears = Math.max(maxYears, years);
+            }
+        } else {
+            yearsHistogram.remove(years);
+            // гістограма переглядається лише тоді, коли спорожнів крайній кошик
+            if (years == minYears && yearsHistogram.countInRange(years, years) == 0) {
+                minYears = yearsHistogram.min();
+            }
+            if (years == maxYears && yearsHistogram.countInRange(years, years) == 0) {
+                maxYears = yearsHistogram.max();
+            }
+        }
+    }
+
+    /** Мінімум і максимум стажу з гістограми або (без неї) проходом по списку. */
+    private void recomputeYearsRange() {
+        if (yearsHistogram != null) {
+            minYears = yearsHistogram.min();
+            maxYears = yearsHistogram.max();
+            return;
+        }
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < staff.size(); i++) {
+            int y = staff.get(i).getYearsOfService();
+            if (i == 0 || y < min) min = y;
+            if (i == 0 || y > max) max = y;
+        }
+        minYears = min;
+        maxYears = max;
+    }
+
+    /** Переносить один рядок між кошиками стажу після зміни об'єкта. */
+    private void moveYears(Serviceman s, int oldYears, int newYears) {
+        markDirty();
+        yearsSum += newYears - (long) oldYears;
+        long bonus = PayrollEngine.yearBonusCents(s);
+        if (bonus < 0) {
+            salaryStale = true;
+        } else {
+            salaryCents += bonus * (newYears - (long) oldYears);
+        }
+
+        if (yearsHistogram == null || !yearsHistogram.update(oldYears, newYears)) {
+            yearsHistogram = null;
+            recomputeYearsRange();
+            return;
+        }
+        if (newYears < minYears) {
+            minYears = newYears;
+        } else if (oldYears == minYears && yearsHistogram.countInRange(oldYears, oldYears) == 0) {
+            minYears = yearsHistogram.min();
+        }
+        if (newYears > maxYears) {
+            maxYears = newYears;
+        } else if (oldYears == maxYears && yearsHistogram.countInRange(oldYears, oldYears) == 0) {
+            maxYears = yearsHistogram.max();
+        }
+    }
+
+    /** Зарплата нащадків із власним розрахунком може залежати від будь-якого поля. */
+    private void customChanged(Serviceman s) {
+        if (PayrollEngine.yearBonusCents(s) < 0) {
+            salaryStale = true;
+            markDirty();
+        }
+    }
+
+    /** @return загальна зарплата в копійках (перерахована, якщо застаріла) */
+    private long salary() {
+        if (salaryStale) {
+            long total = 0;
+            for (Serviceman s : staff) {
+                total += salaryCents(s);
+            }
+            salaryCents = total;
+            salaryStale = false;
+        }
+        return salaryCents;
+    }
+
+    private static long salaryCents(Serviceman s) {
+        return PayrollEngine.salaryCents(s);
+    }
+
+    /**
+     * У режимі перевірки звіряє накопичені показники з повним перерахунком.
+     *
+     * @throws IllegalStateException якщо показники розійшлися
+     */
+    private void verify() {
+        if (!verifyAggregates) return;
+
+        long salary = salary();
+        int officers = officerCount;
+        Map<String, Integer> ranks = new HashMap<>(rankCounts);
+        long years = yearsSum;
+        int min = minYears;
+        int max = maxYears;
+
+        recomputeAggregates();
+        if (salary != salaryCents || officers != officerCount || !ranks.equals(rankCounts)
+                || years != yearsSum || min != minYears || max != maxYears) {
+            throw new IllegalStateException("Зведені показники підрозділу \"" + unitName
+                    + "\" розійшлися з повним перерахунком");
         }
-        return total;
     }
 }
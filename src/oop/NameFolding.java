@@ -0,0 +1,65 @@
+package oop;
+
+/**
+ * Нормалізація ПІБ для індексів пошуку.
+ *
+ * <p>Кожен символ зводиться до спільної форми так само, як це робить
+ * {@link java.util.regex.Pattern} з прапорцями {@code CASE_INSENSITIVE}
+ * та {@code UNICODE_CASE}: символи, що відрізняються лише регістром,
+ * дають однаковий результат. Тому індекс ніколи не відкидає рядок, який
+ * знайшов би повний регулярний вираз.</p>
+ */
+final class NameFolding {
+
+    private NameFolding() {
+    }
+
+    /**
+     * Нормалізує один символ.
+     *
+     * @param c символ
+     * @return символ без урахування регістру
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Нормалізує рядок посимвольно.
+     *
+     * @param s рядок
+     * @return нормалізований рядок
+     */
+    static String fold(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Нормалізує ПІБ і розвертає його задом наперед. Один завершальний
+     * символ кінця рядка відкидається, бо {@code $} у регулярному виразі
+     * збігається й перед ним.
+     *
+     * @param name ПІБ
+     * @return ключ для пошуку за суфіксом
+     */
+    static String foldReversed(String name) {
+        return new StringBuilder(fold(stripFinalTerminator(name))).reverse().toString();
+    }
+
+    private static String stripFinalTerminator(String s) {
+        int len = s.length();
+        if (len == 0) return s;
+        char last = s.charAt(len - 1);
+        if (last == '\n') {
+            return s.substring(0, len >= 2 && s.charAt(len - 2) == '\r' ? len - 2 : len - 1);
+        }
+        if (last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029') {
+            return s.substring(0, len - 1);
+        }
+        return s;
+    }
+}
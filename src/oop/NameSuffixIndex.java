@@ -0,0 +1,91 @@
+package oop;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntFunction;
+
+/**
+ * Індекс для пошуку за закінченням ПІБ («прізвище закінчується на ...»).
+ *
+ * <p>Для кожного рядка зберігається нормалізований і розвернутий ПІБ
+ * ({@link NameFolding#foldReversed(String)}); ключі відсортовані. Тоді
+ * суфікс перетворюється на префікс, і всі збіги лежать суцільним
+ * відрізком, який знаходиться двійковим пошуком за O(log n).</p>
+ */
+final class NameSuffixIndex {
+
+    private final String[] keys;
+    private final int[] rows;
+
+    private NameSuffixIndex(String[] keys, int[] rows) {
+        this.keys = keys;
+        this.rows = rows;
+    }
+
+    /**
+     * Будує індекс за ПІБ рядків {@code 0..n-1}.
+     *
+     * @param nameAt функція «індекс рядка → ПІБ»
+     * @param n      кількість рядків
+     * @return новий індекс
+     */
+    static NameSuffixIndex build(IntFunction<String> nameAt, int n) {
+        Entry[] entries = new Entry[n];
+        for (int i = 0; i < n; i++) {
+            String name = nameAt.apply(i);
+            entries[i] = new Entry(name == null ? "" : NameFolding.foldReversed(name), i);
+        }
+        Arrays.sort(entries, Comparator.comparing((Entry e) -> e.key));
+
+        String[] keys = new String[n];
+        int[] rows = new int[n];
+        for (int k = 0; k < n; k++) {
+            keys[k] = entries[k].key;
+            rows[k] = entries[k].row;
+        }
+        return new NameSuffixIndex(keys, rows);
+    }
+
+    /**
+     * Повертає індекси рядків, ПІБ яких закінчується на {@code suffix}
+     * (без урахування регістру), у порядку зростання індексу.
+     *
+     * @param suffix шукане закінчення
+     * @return відсортований масив індексів
+     */
+    int[] rowsWithSuffix(String suffix) {
+        String prefix = new StringBuilder(NameFolding.fold(suffix)).reverse().toString();
+        int from = lowerBound(prefix);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(prefix)) {
+            to++;
+        }
+        int[] result = Arrays.copyOfRange(rows, from, to);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static final class Entry {
+        final String key;
+        final int row;
+
+        Entry(String key, int row) {
+            this.key = key;
+            this.row = row;
+        }
+    }
+}
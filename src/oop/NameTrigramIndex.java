@@ -0,0 +1,177 @@
+package oop;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Триграмний індекс ПІБ для попереднього відбору кандидатів під час
+ * пошуку за регулярним виразом.
+ *
+ * <p>Для кожної трійки сусідніх нормалізованих символів
+ * ({@link NameFolding#fold(char)}) зберігається відсортований список
+ * рядків, у ПІБ яких вона трапляється. Якщо шаблон вимагає фрагмент
+ * «Петр», кандидатами є лише рядки, що містять і «пет», і «етр».
+ * Повний регулярний вираз потім перевіряється тільки для них.</p>
+ */
+final class NameTrigramIndex {
+
+    /** Ключі триграм (відкрита адресація); 0 — вільна комірка. */
+    private long[] keys;
+    /** Номер списку рядків для кожної зайнятої комірки. */
+    private int[] slots;
+    private int[][] postings;
+    private int[] postingSizes;
+    private int count;
+
+    private NameTrigramIndex() {
+        keys = new long[1024];
+        slots = new int[1024];
+        postings = new int[256][];
+        postingSizes = new int[256];
+    }
+
+    /**
+     * Будує індекс за ПІБ рядків {@code 0..n-1}.
+     *
+     * @param nameAt функція «індекс рядка → ПІБ»
+     * @param n      кількість рядків
+     * @return новий індекс
+     */
+    static NameTrigramIndex build(IntFunction<String> nameAt, int n) {
+        NameTrigramIndex index = new NameTrigramIndex();
+        for (int row = 0; row < n; row++) {
+            index.add(row, nameAt.apply(row));
+        }
+        return index;
+    }
+
+    /**
+     * Додає до індексу рядок. Рядки мають додаватися у порядку зростання
+     * індексу, тоді списки лишаються відсортованими без додаткових зусиль.
+     *
+     * @param row  індекс рядка
+     * @param name ПІБ
+     */
+    void add(int row, String name) {
+        if (name == null || name.length() < 3) return;
+        char a = NameFolding.fold(name.charAt(0));
+        char b = NameFolding.fold(name.charAt(1));
+        for (int i = 2; i < name.length(); i++) {
+            char c = NameFolding.fold(name.charAt(i));
+            int slot = slotFor(key(a, b, c), true);
+            int size = postingSizes[slot];
+            int[] list = postings[slot];
+            // та сама триграма могла трапитися в цьому ПІБ раніше
+            if (size == 0 || list[size - 1] != row) {
+                if (size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                    postings[slot] = list;
+                }
+                list[size] = row;
+                postingSizes[slot] = size + 1;
+            }
+            a = b;
+            b = c;
+        }
+    }
+
+    /**
+     * Повертає рядки, ПІБ яких містить усі триграми заданих фрагментів.
+     *
+     * @param literals обов'язкові фрагменти шаблону
+     * @return відсортовані індекси кандидатів або {@code null}, якщо жоден
+     *         фрагмент не має трьох символів і звузити пошук неможливо
+     */
+    int[] candidates(List<String> literals) {
+        int[] result = null;
+        for (String literal : literals) {
+            for (int i = 2; i < literal.length(); i++) {
+                long k = key(NameFolding.fold(literal.charAt(i - 2)),
+                        NameFolding.fold(literal.charAt(i - 1)),
+                        NameFolding.fold(literal.charAt(i)));
+                int slot = slotFor(k, false);
+                if (slot < 0) return new int[0];
+                int[] list = Arrays.copyOf(postings[slot], postingSizes[slot]);
+                result = result == null ? list : intersect(result, list);
+                if (result.length == 0) return result;
+            }
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, k);
+    }
+
+    /** Пакує триграму в ненульовий {@code long}. */
+    private static long key(char a, char b, char c) {
+        return (1L << 48) | ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static int hash(long k) {
+        return (int) (k ^ (k >>> 29) ^ (k >>> 17)) * 0x9E3779B9;
+    }
+
+    /**
+     * Знаходить комірку триграми.
+     *
+     * @param create створити, якщо її немає
+     * @return номер списку рядків або -1
+     */
+    private int slotFor(long k, boolean create) {
+        int mask = keys.length - 1;
+        int pos = hash(k) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == k) return slots[pos];
+            pos = (pos + 1) & mask;
+        }
+        if (!create) return -1;
+
+        int slot = count++;
+        if (slot == postings.length) {
+            postings = Arrays.copyOf(postings, slot * 2);
+            postingSizes = Arrays.copyOf(postingSizes, slot * 2);
+        }
+        postings[slot] = new int[4];
+        keys[pos] = k;
+        slots[pos] = slot;
+        if (count * 2 > keys.length) {
+            rehash();
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k == 0) continue;
+            int pos = hash(k) & mask;
+            while (keys[pos] != 0) {
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = k;
+            slots[pos] = oldSlots[i];
+        }
+    }
+}
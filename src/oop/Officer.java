@@ -10,6 +10,12 @@ package oop;
  */
 public class Officer extends Serviceman {
 
+    /** Базовий оклад офіцера в копійках (25000 грн). */
+    public static final long BASE_SALARY_CENTS = 2_500_000;
+
+    /** Надбавка за кожен рік служби в копійках (800 грн). */
+    public static final long YEAR_BONUS_CENTS = 80_000;
+
     /** Посада офіцера (наприклад, «командир роти», «начальник штабу»). */
     private String position;
 
@@ -47,7 +53,13 @@ public class Officer extends Serviceman {
      *
      * @param position нова посада
      */
-    public void setPosition(String position) { this.position = position; }
+    public void setPosition(String position) {
+        String old = this.position;
+        this.position = position;
+        if (hasListeners() && !java.util.Objects.equals(old, position)) {
+            firePositionChanged(old);
+        }
+    }
 
     /**
      * Виводить на консоль повну інформацію про офіцера.
@@ -63,13 +75,15 @@ public class Officer extends Serviceman {
 
     /**
      * Обчислює орієнтовну зарплату офіцера.
-     * Зарплата вища, ніж у солдатів, і залежить від стажу служби.
+     * Зарплата вища, ніж у солдатів, і залежить від стажу служби:
+     * 25000 грн плюс 800 грн за кожен рік. Пакетний розрахунок
+     * ({@link PayrollEngine}) використовує ті самі константи.
      *
      * @return обчислена зарплата
      */
     @Override
     public double calculateSalary() {
-        return 25000 + getYearsOfService() * 800;
+        return (BASE_SALARY_CENTS + getYearsOfService() * YEAR_BONUS_CENTS) / 100.0;
     }
 
     /**
@@ -0,0 +1,207 @@
+package oop;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Паралельне виконання сканувань масиву військовослужбовців у
+ * {@link ForkJoinPool}.
+ *
+ * <p>Діапазон рядків рекурсивно ділиться навпіл; кожна частина формує
+ * власний частковий результат (масив індексів, фрагмент звіту або пару
+ * мін/макс), а результати зливаються в порядку індексів. Тому вихід
+ * паралельного режиму збігається з послідовним до символу. Якщо рядків
+ * менше за поріг, робота виконується в поточному потоці.</p>
+ */
+final class ParallelScan {
+
+    /** Найменший розмір частини, яку вже не варто ділити. */
+    private static final int MIN_LEAF = 1024;
+
+    private ParallelScan() {
+    }
+
+    /**
+     * Відбирає позиції {@code 0..n-1}, для яких рядок {@code rowAt(p)}
+     * задовольняє умову.
+     *
+     * @param n         кількість позицій
+     * @param rowAt     відображення «позиція → індекс рядка»
+     * @param test      умова для індексу рядка
+     * @param threshold мінімальна кількість позицій для паралельного режиму
+     * @return індекси рядків, що пройшли умову, у порядку позицій
+     */
+    static int[] filter(int n, IntUnaryOperator rowAt, IntPredicate test, int threshold) {
+        if (n < threshold) {
+            return filterRange(0, n, rowAt, test);
+        }
+        return ForkJoinPool.commonPool().invoke(new FilterTask(0, n, leafSize(n), rowAt, test));
+    }
+
+    /**
+     * Формує звіт за переліком рядків: кожен рядок дописує {@code writer}.
+     *
+     * @param rows      індекси рядків
+     * @param writer    функція, що дописує один рядок звіту
+     * @param threshold мінімальна кількість рядків для паралельного режиму
+     * @return сформований текст
+     */
+    static String render(int[] rows, ObjIntConsumer<StringBuilder> writer, int threshold) {
+        if (rows.length < threshold) {
+            StringBuilder sb = new StringBuilder();
+            for (int row : rows) {
+                writer.accept(sb, row);
+            }
+            return sb.toString();
+        }
+        return ForkJoinPool.commonPool()
+                .invoke(new RenderTask(rows, 0, rows.length, leafSize(rows.length), writer))
+                .toString();
+    }
+
+    /**
+     * Знаходить перші рядки з найменшим і найбільшим значенням.
+     *
+     * @param n         кількість рядків (більше нуля)
+     * @param valueAt   значення рядка
+     * @param threshold мінімальна кількість рядків для паралельного режиму
+     * @return пара {@code {мінімум, максимум}} індексів рядків
+     */
+    static int[] minMax(int n, IntUnaryOperator valueAt, int threshold) {
+        if (n < threshold) {
+            return minMaxRange(0, n, valueAt);
+        }
+        return ForkJoinPool.commonPool().invoke(new MinMaxTask(0, n, leafSize(n), valueAt));
+    }
+
+    private static int leafSize(int n) {
+        int parts = ForkJoinPool.getCommonPoolParallelism() * 4;
+        return Math.max(MIN_LEAF, n / Math.max(parts, 1));
+    }
+
+    private static int[] filterRange(int from, int to, IntUnaryOperator rowAt, IntPredicate test) {
+        int[] out = new int[to - from];
+        int count = 0;
+        for (int p = from; p < to; p++) {
+            int row = rowAt.applyAsInt(p);
+            if (test.test(row)) out[count++] = row;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private static int[] minMaxRange(int from, int to, IntUnaryOperator valueAt) {
+        int min = from;
+        int max = from;
+        int minValue = valueAt.applyAsInt(from);
+        int maxValue = minValue;
+        for (int i = from + 1; i < to; i++) {
+            int v = valueAt.applyAsInt(i);
+            if (v < minValue) {
+                min = i;
+                minValue = v;
+            }
+            if (v > maxValue) {
+                max = i;
+                maxValue = v;
+            }
+        }
+        return new int[] { min, max };
+    }
+
+    private static final class FilterTask extends RecursiveTask<int[]> {
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final IntUnaryOperator rowAt;
+        private final IntPredicate test;
+
+        FilterTask(int from, int to, int leaf, IntUnaryOperator rowAt, IntPredicate test) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.rowAt = rowAt;
+            this.test = test;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= leaf) {
+                return filterRange(from, to, rowAt, test);
+            }
+            int mid = (from + to) >>> 1;
+            FilterTask left = new FilterTask(from, mid, leaf, rowAt, test);
+            left.fork();
+            int[] right = new FilterTask(mid, to, leaf, rowAt, test).compute();
+            int[] head = left.join();
+            int[] merged = Arrays.copyOf(head, head.length + right.length);
+            System.arraycopy(right, 0, merged, head.length, right.length);
+            return merged;
+        }
+    }
+
+    private static final class RenderTask extends RecursiveTask<StringBuilder> {
+        private final int[] rows;
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final ObjIntConsumer<StringBuilder> writer;
+
+        RenderTask(int[] rows, int from, int to, int leaf, ObjIntConsumer<StringBuilder> writer) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.writer = writer;
+        }
+
+        @Override
+        protected StringBuilder compute() {
+            if (to - from <= leaf) {
+                StringBuilder sb = new StringBuilder();
+                for (int p = from; p < to; p++) {
+                    writer.accept(sb, rows[p]);
+                }
+                return sb;
+            }
+            int mid = (from + to) >>> 1;
+            RenderTask left = new RenderTask(rows, from, mid, leaf, writer);
+            left.fork();
+            StringBuilder right = new RenderTask(rows, mid, to, leaf, writer).compute();
+            return left.join().append(right);
+        }
+    }
+
+    private static final class MinMaxTask extends RecursiveTask<int[]> {
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final IntUnaryOperator valueAt;
+
+        MinMaxTask(int from, int to, int leaf, IntUnaryOperator valueAt) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.valueAt = valueAt;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= leaf) {
+                return minMaxRange(from, to, valueAt);
+            }
+            int mid = (from + to) >>> 1;
+            MinMaxTask left = new MinMaxTask(from, mid, leaf, valueAt);
+            left.fork();
+            int[] r = new MinMaxTask(mid, to, leaf, valueAt).compute();
+            int[] l = left.join();
+            // при рівних значеннях перемагає менший індекс (ліва частина)
+            int min = valueAt.applyAsInt(r[0]) < valueAt.applyAsInt(l[0]) ? r[0] : l[0];
+            int max = valueAt.applyAsInt(r[1]) > valueAt.applyAsInt(l[1]) ? r[1] : l[1];
+            return new int[] { min, max };
+        }
+    }
+}
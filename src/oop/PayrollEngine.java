@@ -0,0 +1,257 @@
+package oop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+/**
+ * Пакетний розрахунок зарплат для всього масиву або підрозділу за один прохід.
+ *
+ * <p>Замість віртуального виклику {@link Payable#calculateSalary()} на кожен
+ * об'єкт розрахунок іде по примітивних стовпцях типу і стажу. Формули
+ * {@link Soldier} та {@link Officer} лінійні, тож загальну суму за типом
+ * можна отримати з трьох сум: кількості офіцерів, сумарного стажу і
+ * сумарного стажу офіцерів. Цикл, що їх рахує, не має розгалужень і
+ * звертань до об'єктів, тому JIT-компілятор векторизує його (SIMD).
+ * Підсумки за званнями рахуються другим проходом по кодах звань.</p>
+ *
+ * <p>Усі суми — у копійках у {@code long}, без похибок округлення.
+ * Нащадки {@link Serviceman}, що мають власний розрахунок зарплати (не
+ * точні класи {@code Soldier}/{@code Officer}), обчислюються звичайним
+ * викликом {@code calculateSalary()} і потрапляють у підсумок «інші».</p>
+ */
+public final class PayrollEngine {
+
+    private static final byte SOLDIER = ServicemanColumns.TYPE_SOLDIER;
+    private static final byte OFFICER = ServicemanColumns.TYPE_OFFICER;
+
+    private PayrollEngine() {
+    }
+
+    /**
+     * Розраховує фонд оплати для всього масиву менеджера. У колонковому
+     * режимі стовпці сховища використовуються напряму, без об'єктів.
+     *
+     * @param manager менеджер масиву
+     * @return звіт про фонд оплати
+     */
+    public static PayrollReport forRoster(ServicemanArrayManager manager) {
+        ServicemanColumns c = manager.columns;
+        if (c != null) {
+            PayrollReport report = new PayrollReport();
+            accumulate(c.typesColumn(), c.yearsColumn(), c.rankCodesColumn(), c.size(),
+                    c::rankOfCode, c.rankCodeCount(), report);
+            return report;
+        }
+        Serviceman[] staff = manager.staff;
+        return staff == null ? new PayrollReport() : ofStaff(java.util.Arrays.asList(staff));
+    }
+
+    /**
+     * Розраховує фонд оплати підрозділу.
+     *
+     * @param unit підрозділ
+     * @return звіт про фонд оплати
+     */
+    public static PayrollReport forUnit(MilitaryUnit unit) {
+        return ofStaff(unit.staffList());
+    }
+
+    /**
+     * Розраховує зведений фонд оплати кількох підрозділів. Підрозділи
+     * обробляються паралельно у {@link ForkJoinPool}, а звіти зливаються.
+     *
+     * @param units підрозділи
+     * @return зведений звіт
+     */
+    public static PayrollReport forUnits(List<MilitaryUnit> units) {
+        if (units.isEmpty()) return new PayrollReport();
+        return ForkJoinPool.commonPool().invoke(new UnitsTask(units, 0, units.size()));
+    }
+
+    /**
+     * Розраховує зарплату кожного елемента масиву менеджера.
+     *
+     * @param manager менеджер масиву
+     * @return зарплати в копійках за індексом елемента
+     */
+    public static long[] salariesCents(ServicemanArrayManager manager) {
+        ServicemanColumns c = manager.columns;
+        if (c != null) {
+            long[] out = new long[c.size()];
+            salaryKernel(c.typesColumn(), c.yearsColumn(), out, c.size());
+            return out;
+        }
+        Serviceman[] staff = manager.staff;
+        if (staff == null) return new long[0];
+        long[] out = new long[staff.length];
+        for (int i = 0; i < staff.length; i++) {
+            out[i] = salaryCents(staff[i]);
+        }
+        return out;
+    }
+
+    /**
+     * Зарплата одного військового в копійках: для {@link Soldier} та
+     * {@link Officer} — за константами класу, для інших — через
+     * {@link Serviceman#calculateSalary()}.
+     *
+     * @param s військовослужбовець
+     * @return зарплата в копійках
+     */
+    public static long salaryCents(Serviceman s) {
+        Class<?> k = s.getClass();
+        if (k == Soldier.class) {
+            return Soldier.BASE_SALARY_CENTS + s.getYearsOfService() * Soldier.YEAR_BONUS_CENTS;
+        }
+        if (k == Officer.class) {
+            return Officer.BASE_SALARY_CENTS + s.getYearsOfService() * Officer.YEAR_BONUS_CENTS;
+        }
+        return Math.round(s.calculateSalary() * 100);
+    }
+
+    /**
+     * Надбавка за рік служби в копійках, якщо зарплата лінійна за стажем.
+     *
+     * @param s військовослужбовець
+     * @return надбавка для {@link Soldier} та {@link Officer}; -1 для
+     *         нащадків із власним розрахунком зарплати
+     */
+    static long yearBonusCents(Serviceman s) {
+        Class<?> k = s.getClass();
+        if (k == Soldier.class) return Soldier.YEAR_BONUS_CENTS;
+        if (k == Officer.class) return Officer.YEAR_BONUS_CENTS;
+        return -1;
+    }
+
+    /**
+     * Переносить список об'єктів у примітивні стовпці і рахує за ними.
+     */
+    static PayrollReport ofStaff(List<Serviceman> staff) {
+        int n = staff.size();
+        byte[] types = new byte[n];
+        int[] years = new int[n];
+        int[] rankCodes = new int[n];
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> ranks = new ArrayList<>();
+        PayrollReport report = new PayrollReport();
+
+        int m = 0;
+        for (Serviceman s : staff) {
+            Class<?> k = s.getClass();
+            if (k != Soldier.class && k != Officer.class) {
+                report.addOther(s.getRank(), salaryCents(s));
+                continue;
+            }
+            types[m] = k == Officer.class ? OFFICER : SOLDIER;
+            years[m] = s.getYearsOfService();
+            rankCodes[m] = codes.computeIfAbsent(s.getRank(), r -> {
+                ranks.add(r);
+                return ranks.size() - 1;
+            });
+            m++;
+        }
+        accumulate(types, years, rankCodes, m, ranks::get, ranks.size(), report);
+        return report;
+    }
+
+    /**
+     * Основний прохід: підсумки за типом і за званнями для рядків {@code 0..n-1}.
+     *
+     * @param types     теги типу ({@link ServicemanColumns#TYPE_SOLDIER} / {@code TYPE_OFFICER})
+     * @param years     стаж
+     * @param rankCodes коди звань від {@link ServicemanColumns#NO_CODE} до {@code rankCount - 1}
+     * @param n         кількість рядків
+     * @param rankOf    розшифровка коду звання
+     * @param rankCount кількість кодів звань
+     * @param report    звіт, у який додаються підсумки
+     */
+    private static void accumulate(byte[] types, int[] years, int[] rankCodes, int n,
+                                   IntFunction<String> rankOf, int rankCount, PayrollReport report) {
+        // суцільні редукції без розгалужень: тег типу — 0 або 1, тож
+        // t * y — це стаж офіцера або нуль
+        long officers = 0;
+        long yearsAll = 0;
+        long yearsOfficers = 0;
+        for (int i = 0; i < n; i++) {
+            int t = types[i];
+            int y = years[i];
+            officers += t;
+            yearsAll += y;
+            yearsOfficers += t * y;
+        }
+        long soldiers = n - officers;
+        report.addSoldiers(soldiers,
+                soldiers * Soldier.BASE_SALARY_CENTS + (yearsAll - yearsOfficers) * Soldier.YEAR_BONUS_CENTS);
+        report.addOfficers(officers,
+                officers * Officer.BASE_SALARY_CENTS + yearsOfficers * Officer.YEAR_BONUS_CENTS);
+
+        // ті самі суми окремо для кожного звання (індекс — код + 1, бо NO_CODE = -1)
+        int[] count = new int[rankCount + 1];
+        int[] rankOfficers = new int[rankCount + 1];
+        long[] rankYears = new long[rankCount + 1];
+        long[] rankOfficerYears = new long[rankCount + 1];
+        for (int i = 0; i < n; i++) {
+            int k = rankCodes[i] + 1;
+            int t = types[i];
+            int y = years[i];
+            count[k]++;
+            rankOfficers[k] += t;
+            rankYears[k] += y;
+            rankOfficerYears[k] += t * y;
+        }
+        for (int k = 0; k <= rankCount; k++) {
+            if (count[k] == 0) continue;
+            long o = rankOfficers[k];
+            long s = count[k] - o;
+            long cents = s * Soldier.BASE_SALARY_CENTS
+                    + (rankYears[k] - rankOfficerYears[k]) * Soldier.YEAR_BONUS_CENTS
+                    + o * Officer.BASE_SALARY_CENTS
+                    + rankOfficerYears[k] * Officer.YEAR_BONUS_CENTS;
+            report.addRank(rankOf.apply(k - 1), count[k], cents);
+        }
+    }
+
+    /**
+     * Зарплата кожного рядка без розгалужень: оклад і надбавка обираються
+     * арифметично за тегом типу, тож цикл векторизується.
+     */
+    private static void salaryKernel(byte[] types, int[] years, long[] out, int n) {
+        final long baseDelta = Officer.BASE_SALARY_CENTS - Soldier.BASE_SALARY_CENTS;
+        final long bonusDelta = Officer.YEAR_BONUS_CENTS - Soldier.YEAR_BONUS_CENTS;
+        for (int i = 0; i < n; i++) {
+            long t = types[i];
+            out[i] = Soldier.BASE_SALARY_CENTS + t * baseDelta
+                    + years[i] * (Soldier.YEAR_BONUS_CENTS + t * bonusDelta);
+        }
+    }
+
+    private static final class UnitsTask extends RecursiveTask<PayrollReport> {
+        private final List<MilitaryUnit> units;
+        private final int from;
+        private final int to;
+
+        UnitsTask(List<MilitaryUnit> units, int from, int to) {
+            this.units = units;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PayrollReport compute() {
+            if (to - from == 1) {
+                return forUnit(units.get(from));
+            }
+            int mid = (from + to) >>> 1;
+            UnitsTask left = new UnitsTask(units, from, mid);
+            left.fork();
+            PayrollReport right = new UnitsTask(units, mid, to).compute();
+            // звіти зливаються в порядку підрозділів
+            return left.join().merge(right);
+        }
+    }
+}
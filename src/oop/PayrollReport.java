@@ -0,0 +1,169 @@
+package oop;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Результат пакетного розрахунку зарплат ({@link PayrollEngine}).
+ *
+ * <p>Усі суми зберігаються в копійках у {@code long}: підсумовування
+ * мільйонів значень дає точний результат без похибок {@code double}.
+ * Окрім загальної суми, звіт містить підсумки за типом (солдати, офіцери,
+ * інші нащадки {@link Serviceman} з власним розрахунком) і за званнями.</p>
+ */
+public final class PayrollReport {
+
+    private long totalCents;
+    private int headcount;
+
+    private long soldierCents;
+    private int soldierCount;
+    private long officerCents;
+    private int officerCount;
+    private long otherCents;
+    private int otherCount;
+
+    /** Звання → {кількість, сума в копійках}; у порядку першої появи. */
+    private final Map<String, long[]> ranks = new LinkedHashMap<>();
+
+    PayrollReport() {
+    }
+
+    void addSoldiers(long count, long cents) {
+        soldierCount += (int) count;
+        soldierCents += cents;
+        headcount += (int) count;
+        totalCents += cents;
+    }
+
+    void addOfficers(long count, long cents) {
+        officerCount += (int) count;
+        officerCents += cents;
+        headcount += (int) count;
+        totalCents += cents;
+    }
+
+    /**
+     * Враховує військового, зарплата якого обчислюється власним методом
+     * {@link Serviceman#calculateSalary()}, у підсумках за типом і за званням.
+     */
+    void addOther(String rank, long cents) {
+        otherCount++;
+        otherCents += cents;
+        headcount++;
+        totalCents += cents;
+        addRank(rank, 1, cents);
+    }
+
+    void addRank(String rank, long count, long cents) {
+        long[] sums = ranks.computeIfAbsent(rank, r -> new long[2]);
+        sums[0] += count;
+        sums[1] += cents;
+    }
+
+    /**
+     * Додає до цього звіту підсумки іншого (наприклад, іншого підрозділу).
+     *
+     * @param other звіт, що додається
+     * @return цей звіт
+     */
+    PayrollReport merge(PayrollReport other) {
+        totalCents += other.totalCents;
+        headcount += other.headcount;
+        soldierCents += other.soldierCents;
+        soldierCount += other.soldierCount;
+        officerCents += other.officerCents;
+        officerCount += other.officerCount;
+        otherCents += other.otherCents;
+        otherCount += other.otherCount;
+        for (Map.Entry<String, long[]> e : other.ranks.entrySet()) {
+            addRank(e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+        return this;
+    }
+
+    /** @return загальний фонд оплати в копійках */
+    public long getTotalCents() { return totalCents; }
+
+    /** @return загальний фонд оплати в гривнях */
+    public double getTotal() { return totalCents / 100.0; }
+
+    /** @return кількість військових, для яких розраховано зарплату */
+    public int getHeadcount() { return headcount; }
+
+    /** @return сума зарплат солдатів у копійках */
+    public long getSoldierCents() { return soldierCents; }
+
+    /** @return кількість солдатів */
+    public int getSoldierCount() { return soldierCount; }
+
+    /** @return сума зарплат офіцерів у копійках */
+    public long getOfficerCents() { return officerCents; }
+
+    /** @return кількість офіцерів */
+    public int getOfficerCount() { return officerCount; }
+
+    /** @return сума зарплат інших типів (з власним розрахунком) у копійках */
+    public long getOtherCents() { return otherCents; }
+
+    /** @return кількість військових інших типів */
+    public int getOtherCount() { return otherCount; }
+
+    /**
+     * @return незмінне подання «звання → сума зарплат у копійках»
+     */
+    public Map<String, Long> getRankCents() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        ranks.forEach((rank, sums) -> result.put(rank, sums[1]));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return незмінне подання «звання → кількість військових»
+     */
+    public Map<String, Integer> getRankCounts() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        ranks.forEach((rank, sums) -> result.put(rank, (int) sums[0]));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Формує текстовий звіт про фонд оплати.
+     *
+     * @return текстовий звіт
+     */
+    public String buildReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Фонд оплати праці: ").append(formatCents(totalCents))
+                .append(" грн (осіб: ").append(headcount).append(")\n");
+        sb.append("  Солдати: ").append(formatCents(soldierCents))
+                .append(" грн (осіб: ").append(soldierCount).append(")\n");
+        sb.append("  Офіцери: ").append(formatCents(officerCents))
+                .append(" грн (осіб: ").append(officerCount).append(")\n");
+        if (otherCount > 0) {
+            sb.append("  Інші: ").append(formatCents(otherCents))
+                    .append(" грн (осіб: ").append(otherCount).append(")\n");
+        }
+        sb.append("За званнями:\n");
+        for (Map.Entry<String, long[]> e : ranks.entrySet()) {
+            sb.append("  ").append(e.getKey()).append(": ")
+                    .append(formatCents(e.getValue()[1]))
+                    .append(" грн (осіб: ").append(e.getValue()[0]).append(")\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Форматує суму в копійках як «гривні.копійки».
+     *
+     * @param cents сума в копійках
+     * @return текст, наприклад {@code 15400.00}
+     */
+    static String formatCents(long cents) {
+        long abs = Math.abs(cents);
+        String sign = cents < 0 ? "-" : "";
+        long kop = abs % 100;
+        return sign + (abs / 100) + "." + (kop < 10 ? "0" : "") + kop;
+    }
+}
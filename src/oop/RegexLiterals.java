@@ -0,0 +1,230 @@
+package oop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Виділяє з регулярного виразу фрагменти тексту, які обов'язково
+ * присутні в кожному збігу (наприклад, «Петр» та «енко» з {@code Петр.*енко}).
+ *
+ * <p>Розбір свідомо консервативний: якщо шаблон містить альтернативу
+ * ({@code |}), вбудовані прапорці ({@code (?...)}) або цитування
+ * ({@code \Q...\E}), жодних фрагментів не повертається. Вміст груп
+ * не враховується, а класи символів, спеціальні послідовності та
+ * необов'язкові символи ({@code ?}, {@code *}, {@code {0,n}}) лише
+ * розривають поточний фрагмент. Екранована послідовність пропускається
+ * цілком ({@code \x41}, <code>&#92;u041f</code>, {@code \0101},
+ * {@code \cA}, {@code \p{Lu}}, {@code \N{...}}, {@code \k<...>}): коди
+ * символів ({@code \x}, <code>&#92;u</code>, {@code \0}, {@code \t} тощо)
+ * розкодовуються у сам символ, решта послідовностей розривають фрагмент.
+ * Отже, будь-який повернений фрагмент справді обов'язковий, і фільтр за
+ * ним не відкине жодного збігу.</p>
+ */
+final class RegexLiterals {
+
+    private RegexLiterals() {
+    }
+
+    /**
+     * Повертає обов'язкові фрагменти тексту з шаблону.
+     *
+     * @param regex регулярний вираз
+     * @return список фрагментів (можливо, порожній)
+     */
+    static List<String> extract(String regex) {
+        List<String> result = new ArrayList<>();
+        if (regex.indexOf('|') >= 0 || regex.contains("(?") || regex.contains("\\Q")) {
+            return result;
+        }
+
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        int n = regex.length();
+        while (i < n) {
+            char c = regex.charAt(i);
+            int next = i + 1;
+            boolean literal;
+            int value = c;
+
+            if (c == '\\') {
+                if (next >= n) break;
+                next = escapeEnd(regex, i);
+                // \d, \w, \b, \p{..} тощо — не звичайний символ
+                value = escapedChar(regex, i, next);
+                literal = value >= 0;
+            } else if (c == '[') {
+                next = skipClass(regex, i);
+                literal = false;
+            } else if (c == '(') {
+                depth++;
+                literal = false;
+            } else if (c == ')') {
+                depth--;
+                literal = false;
+            } else if (".^$*+?{}".indexOf(c) >= 0) {
+                literal = false;
+            } else {
+                literal = true;
+            }
+
+            // квантифікатор після елемента
+            int q = next;
+            boolean optional = false;
+            boolean repeated = false;
+            if (q < n) {
+                char qc = regex.charAt(q);
+                if (qc == '*' || qc == '?') {
+                    optional = true;
+                    q++;
+                } else if (qc == '+') {
+                    repeated = true;
+                    q++;
+                } else if (qc == '{') {
+                    int close = regex.indexOf('}', q);
+                    if (close > 0) {
+                        optional = regex.charAt(q + 1) == '0' || regex.charAt(q + 1) == ',';
+                        repeated = !optional;
+                        q = close + 1;
+                    }
+                }
+                if (q != next && q < n && (regex.charAt(q) == '?' || regex.charAt(q) == '+')) {
+                    q++; // лінивий або присвійний квантифікатор
+                }
+            }
+
+            if (!literal || optional || depth > 0) {
+                flush(run, result);
+            } else {
+                run.appendCodePoint(value);
+                if (repeated) {
+                    flush(run, result);
+                }
+            }
+            i = q;
+        }
+        flush(run, result);
+        return result;
+    }
+
+    /**
+     * Знаходить кінець екранованої послідовності, що починається з
+     * {@code '\\'} у позиції {@code i}, разом з усіма її параметрами.
+     *
+     * @return позиція після послідовності
+     */
+    private static int escapeEnd(String regex, int i) {
+        int n = regex.length();
+        char e = regex.charAt(i + 1);
+        int p = i + 2;
+        switch (e) {
+            case 'x':
+                return p < n && regex.charAt(p) == '{' ? closing(regex, p, '}') : Math.min(p + 2, n);
+            case 'u':
+                return Math.min(p + 4, n);
+            case 'c':
+                return Math.min(p + 1, n);
+            case '0': {
+                // \0n, \0nn або \0mnn, де m <= 3
+                int max = p < n && regex.charAt(p) <= '3' ? 3 : 2;
+                int end = p;
+                while (end - p < max && end < n && regex.charAt(end) >= '0' && regex.charAt(end) <= '7') end++;
+                return end;
+            }
+            case 'N':
+                return closing(regex, p, '}');
+            case 'k':
+                return closing(regex, p, '>');
+            case 'p':
+            case 'P':
+                return p < n && regex.charAt(p) == '{' ? closing(regex, p, '}') : Math.min(p + 1, n);
+            case 'b':
+            case 'B':
+                return p < n && regex.charAt(p) == '{' ? closing(regex, p, '}') : p;
+            default:
+                // зворотне посилання \1, \12 ...
+                if (e >= '1' && e <= '9') {
+                    while (p < n && Character.isDigit(regex.charAt(p))) p++;
+                }
+                return p;
+        }
+    }
+
+    private static int closing(String regex, int from, char c) {
+        int close = regex.indexOf(c, from);
+        return close < 0 ? regex.length() : close + 1;
+    }
+
+    /**
+     * Розкодовує екрановану послідовність {@code regex[i, end)}, якщо вона
+     * означає один конкретний символ.
+     *
+     * @return код символу або -1, якщо це клас, межа, посилання тощо
+     */
+    private static int escapedChar(String regex, int i, int end) {
+        char e = regex.charAt(i + 1);
+        if (!Character.isLetterOrDigit(e)) return e;
+        try {
+            int code;
+            switch (e) {
+                case 'x':
+                    code = regex.charAt(i + 2) == '{'
+                            ? Integer.parseInt(regex.substring(i + 3, end - 1), 16)
+                            : Integer.parseInt(regex.substring(i + 2, end), 16);
+                    break;
+                case 'u':
+                    code = Integer.parseInt(regex.substring(i + 2, end), 16);
+                    break;
+                case '0':
+                    code = Integer.parseInt(regex.substring(i + 2, end), 8);
+                    break;
+                case 't': return '\t';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                case 'a': return '\u0007';
+                case 'e': return '\u001B';
+                default: return -1;
+            }
+            return Character.isValidCodePoint(code) ? code : -1;
+        } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            // некоректну послідовність однаково відхилить Pattern.compile
+            return -1;
+        }
+    }
+
+    private static void flush(StringBuilder run, List<String> result) {
+        if (run.length() > 0) {
+            result.add(run.toString());
+            run.setLength(0);
+        }
+    }
+
+    /**
+     * Пропускає клас символів {@code [...]} з урахуванням вкладених класів і екранування.
+     *
+     * @return позиція після закривальної дужки
+     */
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // "]" одразу після "[" або "[^" — звичайний символ класу
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') i++;
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') i++;
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) return i + 1;
+            }
+            i++;
+        }
+        return regex.length();
+    }
+}
@@ -0,0 +1,84 @@
+package oop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Перевірка попереднього відбору кандидатів у
+ * {@link ServicemanArrayManagerV2#findByNameRegex(String)}: для набору
+ * шаблонів (зокрема з екранованими послідовностями) результат має збігатися
+ * з повним переглядом через {@link Pattern#matcher(CharSequence)}.
+ *
+ * <p>Запуск: {@code java oop.RegexPrefilterCheck}. Код виходу 1, якщо хоча б
+ * один шаблон дав інший результат.</p>
+ */
+final class RegexPrefilterCheck {
+
+    private static final String[] FIRST = {
+            "Петро", "Іван", "Олег", "Ґанна", "Abc", "ABC", "abc.def", "A+B", "Tab\tName",
+            "Ctrl\u0001A", "Smile😀", "O'Neil", "Петренко-Сидоренко", "Zed\u007FDel"
+    };
+
+    private static final String[] PATTERNS = {
+            "Петро17.*", "\\u041f\\u0435\\u0442\\u0440\\u043e17.*", "\\x41bc.*", "Abc.*", "\\x{41}bc",
+            "\\0101bc", "\\0141bc\\.def", "\\N{LATIN CAPITAL LETTER A}bc", "\\cAA", "Ctrl\\cA",
+            "\\tName", "Tab\\tNa", "\\x{1F600}", "Smile\\uD83D\\uDE00", "\\p{Lu}bc", "\\pLbc",
+            "\\P{Ll}+etro", "A\\+B", "abc\\.def", "(Пет)ро\\1?", "(.)\\1", "(?<x>Пет)ро\\k<x>?",
+            "\\bОлег\\b", "\\Bван", "енко$", ".*ренко-Сид.*", "\\Qabc.def\\E", "Zed\\x7FDel",
+            "Пе{1}тро", "Пе{0,1}тро", "Петр[оа]1", "[Пп]етро", "Іва?н", "Олег|Іван", "O'Neil\\d{2}"
+    };
+
+    private RegexPrefilterCheck() {
+    }
+
+    public static void main(String[] args) {
+        int failures = 0;
+        for (boolean columnar : new boolean[] { false, true }) {
+            ServicemanArrayManagerV2 manager = new ServicemanArrayManagerV2();
+            manager.setColumnarStorage(columnar);
+            Random random = new Random(42);
+            manager.setStaff(names(random, 0, 5000));
+            failures += check(manager, "columnar=" + columnar);
+
+            // рядки, додані після побудови індексів, доповнюють їх на місці
+            manager.addServicemen(names(random, 5000, 500));
+            failures += check(manager, "columnar=" + columnar + " після додавання");
+        }
+        if (failures > 0) {
+            System.out.println("Розбіжностей: " + failures);
+            System.exit(1);
+        }
+        System.out.println("OK: " + PATTERNS.length + " шаблонів");
+    }
+
+    private static Serviceman[] names(Random random, int from, int count) {
+        Serviceman[] staff = new Serviceman[count];
+        for (int i = 0; i < count; i++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + (from + i) % 200;
+            staff[i] = new Soldier(name, "солдат", i % 40);
+        }
+        return staff;
+    }
+
+    private static int check(ServicemanArrayManagerV2 manager, String label) {
+        int failures = 0;
+        for (String regex : PATTERNS) {
+            Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < manager.getSize(); i++) {
+                if (pattern.matcher(manager.getNameAt(i)).find()) expected.add(i);
+            }
+            int[] actual = manager.findByNameRegex(regex);
+            int[] want = expected.stream().mapToInt(Integer::intValue).toArray();
+            if (!Arrays.equals(want, actual)) {
+                failures++;
+                System.out.println(label + ": " + regex + " — очікувалось " + want.length
+                        + ", знайдено " + actual.length + "; фрагменти " + RegexLiterals.extract(regex));
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,399 @@
+package oop;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал змін поруч зі знімком {@link ServicemanBinaryFile}: кожна зміна
+ * дописується в кінець файлу одним записом, тож зміна одного поля коштує
+ * кількох десятків байтів запису замість перезапису всього знімка.
+ *
+ * <p>Формат файлу:</p>
+ * <pre>
+ *   int   magic    0x5352564A ("SRVJ")
+ *   short version  1
+ *   short reserved
+ *   записи:
+ *     int  bodyLength
+ *     body:
+ *       long seq   порядковий номер запису (зростає без пропусків)
+ *       byte op    {@link #OP_INSERT}, {@link #OP_DELETE}, {@link #OP_MODIFY},
+ *                  {@link #OP_SORT_YEARS} або {@link #OP_SORT_NAME}
+ *       ...        параметри операції
+ *     int  crc32   контрольна сума body
+ * </pre>
+ *
+ * <p>Знімок пам'ятає номер останнього врахованого в ньому запису
+ * ({@link ServicemanBinaryFile#getJournalSeq()}), тож під час відкриття
+ * відтворюються лише новіші записи. Обірваний останній запис (збій під час
+ * дописування) відкидається, а файл обрізається до останнього цілого запису.</p>
+ *
+ * <p>Дописування синхронізоване, тож журнал можна ущільнювати
+ * ({@link #dropThrough(long)}) в іншому потоці паралельно з новими записами.</p>
+ */
+final class RosterJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x5352564A;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    static final byte OP_INSERT = 1;
+    static final byte OP_DELETE = 2;
+    static final byte OP_MODIFY = 3;
+    static final byte OP_SORT_YEARS = 4;
+    static final byte OP_SORT_NAME = 5;
+
+    // Прапорці полів OP_MODIFY, переданих не як null
+    private static final int HAS_NAME = 1;
+    private static final int HAS_RANK = 2;
+    private static final int HAS_YEARS = 4;
+    private static final int HAS_POSITION = 8;
+
+    /** Верхня межа довжини запису: три рядки writeUTF і кілька чисел. */
+    private static final int MAX_BODY = 1 << 20;
+
+    /** Отримувач операцій під час відтворення журналу. */
+    interface Handler {
+        void insert(byte type, String name, String rank, int years, String position);
+
+        void delete(int index);
+
+        void modify(int index, String name, String rank, Integer years, String position);
+
+        void sortByYears(boolean descending);
+
+        void sortByName(boolean descending);
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    /** Кінець останнього цілого запису (позиція наступного дописування). */
+    private long end;
+    private long lastSeq;
+    private boolean closed;
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+
+    private RosterJournal(Path path, FileChannel channel, long end, long lastSeq) {
+        this.path = path;
+        this.channel = channel;
+        this.end = end;
+        this.lastSeq = lastSeq;
+    }
+
+    /**
+     * Відкриває (або створює) журнал і відтворює записи, новіші за знімок.
+     *
+     * @param path        шлях до журналу
+     * @param snapshotSeq останній запис, уже врахований у знімку
+     * @param handler     отримувач відтворених операцій
+     * @return відкритий журнал, готовий до дописування
+     * @throws IOException якщо файл не є журналом або записи не відповідають знімку
+     */
+    static RosterJournal open(Path path, long snapshotSeq, Handler handler) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (ch.size() < HEADER_BYTES) {
+                // новий файл або обірваний під час створення
+                ch.truncate(0);
+                writeHeader(ch);
+                return new RosterJournal(path, ch, HEADER_BYTES, snapshotSeq);
+            }
+            long[] state = { HEADER_BYTES, snapshotSeq };
+            scan(ch, (seq, op, in) -> {
+                if (seq <= snapshotSeq) return; // уже у знімку
+                if (seq != state[1] + 1) {
+                    throw new IOException("Пропущено записи журналу: очікувався №"
+                            + (state[1] + 1) + ", знайдено №" + seq);
+                }
+                apply(op, in, handler);
+                state[1] = seq;
+            }, state);
+            if (state[0] < ch.size()) {
+                ch.truncate(state[0]);
+            }
+            return new RosterJournal(path, ch, state[0], state[1]);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /** @return шлях до файлу журналу */
+    Path getPath() { return path; }
+
+    /** @return номер останнього запису (або знімка, якщо журнал порожній) */
+    synchronized long getLastSeq() { return lastSeq; }
+
+    /** @return розмір журналу в байтах */
+    synchronized long size() { return end; }
+
+    /**
+     * Дописує вставки всіх записів одним записом у файл: якщо будь-який
+     * запис не вдалося скласти або записати, журнал лишається без змін.
+     */
+    synchronized void appendInserts(Serviceman[] added) throws IOException {
+        if (added.length == 0) return;
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(64 * added.length);
+        for (int k = 0; k < added.length; k++) {
+            Serviceman s = added[k];
+            begin(OP_INSERT, lastSeq + 1 + k);
+            boolean officer = s instanceof Officer;
+            out.writeByte(officer ? ServicemanColumns.TYPE_OFFICER : ServicemanColumns.TYPE_SOLDIER);
+            out.writeUTF(s.getName());
+            out.writeUTF(s.getRank());
+            out.writeInt(s.getYearsOfService());
+            String position = officer ? ((Officer) s).getPosition() : null;
+            out.writeUTF(position == null ? "" : position);
+            ByteBuffer framed = framed();
+            batch.write(framed.array(), 0, framed.limit());
+        }
+        write(ByteBuffer.wrap(batch.toByteArray()), added.length);
+    }
+
+    synchronized void appendDelete(int index) throws IOException {
+        begin(OP_DELETE);
+        out.writeInt(index);
+        commit();
+    }
+
+    synchronized void appendModify(int index, String name, String rank, Integer years, String position) throws IOException {
+        begin(OP_MODIFY);
+        out.writeInt(index);
+        out.writeByte((name != null ? HAS_NAME : 0) | (rank != null ? HAS_RANK : 0)
+                | (years != null ? HAS_YEARS : 0) | (position != null ? HAS_POSITION : 0));
+        if (name != null) out.writeUTF(name);
+        if (rank != null) out.writeUTF(rank);
+        if (years != null) out.writeInt(years);
+        if (position != null) out.writeUTF(position);
+        commit();
+    }
+
+    synchronized void appendSort(byte op, boolean descending) throws IOException {
+        begin(op);
+        out.writeBoolean(descending);
+        commit();
+    }
+
+    /**
+     * Вилучає записи з номерами до {@code seq} включно (вони вже у новому
+     * знімку). Решта записів переписується в тимчасовий файл, який атомарно
+     * замінює журнал. Поточний файл лишається відкритим, доки заміна не
+     * вдалася, тож після помилки записи й далі дописуються в нього.
+     *
+     * @param seq номер останнього запису, врахованого у знімку
+     * @throws IOException якщо переписати журнал не вдалося
+     */
+    synchronized void dropThrough(long seq) throws IOException {
+        ensureOpen();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel dst = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(dst);
+                // записи йдуть за зростанням номера, тож решта — суцільний хвіст файлу
+                long[] tail = { -1 };
+                long[] state = { HEADER_BYTES, 0 };
+                scan(channel, (recSeq, op, in) -> {
+                    if (recSeq > seq && tail[0] < 0) tail[0] = state[0];
+                }, state);
+                long from = tail[0] < 0 ? end : tail[0];
+                long to = HEADER_BYTES;
+                while (from < end) {
+                    long n = channel.transferTo(from, end - from, dst.position(to));
+                    from += n;
+                    to += n;
+                }
+                dst.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        // усі записи старого файлу вже є в новому або у знімку
+        FileChannel replaced = channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = channel.size();
+        } finally {
+            // якщо відкрити не вдалося, наступний запис повторить спробу (ensureOpen)
+            replaced.close();
+        }
+    }
+
+    /**
+     * Скидає дописані записи на диск.
+     *
+     * @throws IOException якщо скидання не вдалося
+     */
+    synchronized void sync() throws IOException {
+        ensureOpen();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /** Повторно відкриває файл, якщо це не вдалося в {@link #dropThrough(long)}. */
+    private void ensureOpen() throws IOException {
+        if (closed) throw new ClosedChannelException();
+        if (!channel.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = channel.size();
+        }
+    }
+
+    private void begin(byte op) throws IOException {
+        begin(op, lastSeq + 1);
+    }
+
+    private void begin(byte op, long seq) throws IOException {
+        record.reset();
+        out.writeInt(0); // довжина, заповнюється у framed()
+        out.writeLong(seq);
+        out.writeByte(op);
+    }
+
+    /** Складений запис з довжиною і контрольною сумою. */
+    private ByteBuffer framed() {
+        int bodyLength = record.size() - 4;
+        crc.reset();
+        byte[] bytes = record.toByteArray();
+        crc.update(bytes, 4, bodyLength);
+        ByteBuffer buf = ByteBuffer.allocate(bytes.length + 4);
+        buf.putInt(bodyLength).put(bytes, 4, bodyLength).putInt((int) crc.getValue()).flip();
+        return buf;
+    }
+
+    private void commit() throws IOException {
+        write(framed(), 1);
+    }
+
+    // Позиція і номер зсуваються лише після успішного запису
+    private void write(ByteBuffer buf, int records) throws IOException {
+        ensureOpen();
+        ServicemanBinaryFile.writeFully(channel, buf, end);
+        end += buf.limit();
+        lastSeq += records;
+    }
+
+    private static void writeHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+        ServicemanBinaryFile.writeFully(ch, header, 0);
+    }
+
+    /** Отримувач цілих записів під час проходу по файлу. */
+    private interface RecordVisitor {
+        void visit(long seq, byte op, DataInputStream body) throws IOException;
+    }
+
+    /**
+     * Проходить по записах від заголовка до першого обірваного або
+     * пошкодженого запису.
+     *
+     * @param state {@code state[0]} — після виклику кінець останнього цілого запису
+     */
+    private static void scan(FileChannel ch, RecordVisitor visitor, long[] state) throws IOException {
+        long size = ch.size();
+        InputStream raw = new BufferedInputStream(Channels.newInputStream(ch.position(0)), 1 << 16);
+        DataInputStream in = new DataInputStream(raw);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Файл не є журналом змін");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Непідтримувана версія журналу: " + version);
+        }
+        in.readShort();
+
+        long pos = HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        byte[] body = new byte[256];
+        while (pos + 4 <= size) {
+            int length;
+            try {
+                length = in.readInt();
+                if (length < 9 || length > MAX_BODY || pos + 8 + length > size) break;
+                if (body.length < length) body = new byte[Math.max(length, body.length * 2)];
+                in.readFully(body, 0, length);
+                crc.reset();
+                crc.update(body, 0, length);
+                if (in.readInt() != (int) crc.getValue()) break;
+            } catch (EOFException ex) {
+                break;
+            }
+            DataInputStream rec = new DataInputStream(new ByteArrayInputStream(body, 0, length));
+            long seq = rec.readLong();
+            byte op = rec.readByte();
+            visitor.visit(seq, op, rec);
+            pos += 8 + length;
+            state[0] = pos;
+        }
+    }
+
+    private static void apply(byte op, DataInputStream in, Handler handler) throws IOException {
+        try {
+            switch (op) {
+                case OP_INSERT: {
+                    byte type = in.readByte();
+                    String name = in.readUTF();
+                    String rank = in.readUTF();
+                    int years = in.readInt();
+                    String position = in.readUTF();
+                    handler.insert(type, name, rank, years, position);
+                    break;
+                }
+                case OP_DELETE:
+                    handler.delete(in.readInt());
+                    break;
+                case OP_MODIFY: {
+                    int index = in.readInt();
+                    int flags = in.readByte();
+                    String name = (flags & HAS_NAME) != 0 ? in.readUTF() : null;
+                    String rank = (flags & HAS_RANK) != 0 ? in.readUTF() : null;
+                    Integer years = (flags & HAS_YEARS) != 0 ? in.readInt() : null;
+                    String position = (flags & HAS_POSITION) != 0 ? in.readUTF() : null;
+                    handler.modify(index, name, rank, years, position);
+                    break;
+                }
+                case OP_SORT_YEARS:
+                    handler.sortByYears(in.readBoolean());
+                    break;
+                case OP_SORT_NAME:
+                    handler.sortByName(in.readBoolean());
+                    break;
+                default:
+                    throw new IOException("Невідома операція журналу: " + op);
+            }
+        } catch (IndexOutOfBoundsException | IllegalStateException ex) {
+            throw new IOException("Журнал не відповідає знімку: " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package oop;
 
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Абстрактний базовий клас, який описує загальні характеристики військовослужбовця.
  * Містить спільні атрибути: імʼя, звання та кількість років служби.
@@ -8,6 +13,10 @@ package oop;
  * <p>Класи-нащадки (наприклад, {@link Soldier} та {@link Officer})
  * повинні реалізувати абстрактний метод {@link #showInfo()},
  * а також можуть перевизначати інші поведінкові методи.</p>
+ *
+ * <p>На зміни полів можна підписатися ({@link #addListener(ServicemanListener)}).
+ * Поки слухачів немає, поле зі слухачами дорівнює {@code null} і сеттери
+ * лише перевіряють його на {@code null}.</p>
  */
 public abstract class Serviceman implements Payable {
 
@@ -20,6 +29,15 @@ public abstract class Serviceman implements Payable {
     /** Стаж служби у роках. */
     private int yearsOfService;
 
+    /** Кешований ключ сортування ПІБ; скидається у {@link #setName(String)}. */
+    private CollationKey nameKey;
+
+    /** Колатор, для якого обчислено {@link #nameKey}. */
+    private Collator nameKeyCollator;
+
+    /** Слухачі змін (копіюється при зміні); {@code null}, якщо їх немає. */
+    private ServicemanListener[] listeners;
+
     /**
      * Конструктор за замовчуванням — створює узагальненого військовослужбовця
      * з типовими значеннями полів.
@@ -55,7 +73,87 @@ public abstract class Serviceman implements Payable {
      *
      * @param name новий ПІБ
      */
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) {
+        String old = this.name;
+        this.name = name;
+        this.nameKey = null;
+        if (listeners != null && !Objects.equals(old, name)) {
+            for (ServicemanListener l : listeners) l.nameChanged(this, old);
+        }
+    }
+
+    /**
+     * Додає слухача змін. Один слухач може бути доданий кілька разів
+     * (наприклад, якщо об'єкт кілька разів входить до підрозділу) —
+     * тоді й сповіщення він отримує стільки ж разів.
+     *
+     * @param listener слухач
+     */
+    public void addListener(ServicemanListener listener) {
+        ServicemanListener[] ls = listeners;
+        if (ls == null) {
+            listeners = new ServicemanListener[] { listener };
+        } else {
+            ls = Arrays.copyOf(ls, ls.length + 1);
+            ls[ls.length - 1] = listener;
+            listeners = ls;
+        }
+    }
+
+    /**
+     * Вилучає одне входження слухача.
+     *
+     * @param listener слухач
+     * @return {@code true}, якщо слухача було знайдено
+     */
+    public boolean removeListener(ServicemanListener listener) {
+        ServicemanListener[] ls = listeners;
+        if (ls == null) return false;
+        for (int i = 0; i < ls.length; i++) {
+            if (ls[i] == listener) {
+                if (ls.length == 1) {
+                    listeners = null;
+                } else {
+                    ServicemanListener[] rest = new ServicemanListener[ls.length - 1];
+                    System.arraycopy(ls, 0, rest, 0, i);
+                    System.arraycopy(ls, i + 1, rest, i, ls.length - i - 1);
+                    listeners = rest;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Сповіщає слухачів про зміну посади (викликається з {@link Officer}).
+     *
+     * @param oldPosition попередня посада
+     */
+    void firePositionChanged(String oldPosition) {
+        if (listeners == null) return;
+        for (ServicemanListener l : listeners) l.positionChanged((Officer) this, oldPosition);
+    }
+
+    /** @return {@code true}, якщо є хоча б один слухач */
+    boolean hasListeners() { return listeners != null; }
+
+    /**
+     * Повертає ключ сортування ПІБ для заданого колатора. Ключ обчислюється
+     * один раз і використовується повторно, доки не зміниться ПІБ або колатор.
+     *
+     * @param collator колатор, яким порівнюються імена
+     * @return ключ сортування
+     */
+    CollationKey getNameCollationKey(Collator collator) {
+        CollationKey key = nameKey;
+        if (key == null || nameKeyCollator != collator) {
+            key = collator.getCollationKey(name);
+            nameKey = key;
+            nameKeyCollator = collator;
+        }
+        return key;
+    }
 
     /**
      * Повертає звання військовослужбовця.
@@ -69,7 +167,13 @@ public abstract class Serviceman implements Payable {
      *
      * @param rank нове звання
      */
-    public void setRank(String rank) { this.rank = rank; }
+    public void setRank(String rank) {
+        String old = this.rank;
+        this.rank = rank;
+        if (listeners != null && !Objects.equals(old, rank)) {
+            for (ServicemanListener l : listeners) l.rankChanged(this, old);
+        }
+    }
 
     /**
      * Повертає кількість років служби.
@@ -83,7 +187,13 @@ public abstract class Serviceman implements Payable {
      *
      * @param yearsOfService кількість років служби
      */
-    public void setYearsOfService(int yearsOfService) { this.yearsOfService = yearsOfService; }
+    public void setYearsOfService(int yearsOfService) {
+        int old = this.yearsOfService;
+        this.yearsOfService = yearsOfService;
+        if (listeners != null && old != yearsOfService) {
+            for (ServicemanListener l : listeners) l.yearsChanged(this, old);
+        }
+    }
 
     /**
      * Перевантажений метод, який дозволяє одночасно задати звання і стаж.
@@ -92,8 +202,8 @@ public abstract class Serviceman implements Payable {
      * @param yearsOfService  новий стаж служби
      */
     public void setRank(String rank, int yearsOfService) {
-        this.rank = rank;
-        this.yearsOfService = yearsOfService;
+        setRank(rank);
+        setYearsOfService(yearsOfService);
     }
 
     /**
@@ -1,5 +1,11 @@
 package oop;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+
 /**
  * Клас {@code ServicemanArrayManager} відповідає за керування масивом
  * військовослужбовців ({@link Serviceman}). Він забезпечує:
@@ -9,16 +15,80 @@ package oop;
  *     <li>модифікацію окремого елемента масиву;</li>
  *     <li>сортування за стажем служби (зростання/спадання);</li>
  *     <li>формування текстових звітів для GUI або консолі;</li>
- *     <li>фільтрацію особового складу за мінімальним стажем.</li>
+ *     <li>фільтрацію особового складу за мінімальним стажем або діапазоном стажу.</li>
  * </ul>
  *
  * <p>Цей клас використовується у ЛР8 для демонстрації роботи з масивами об'єктів.</p>
+ *
+ * <p>Для великих списків передбачено колонкове сховище
+ * ({@link #setColumnarStorage(boolean)}): дані тримаються у примітивних
+ * стовпцях {@link ServicemanColumns}, а сортування за стажем, фільтрація
+ * та звіти працюють напряму з ними. Об'єкти {@link Serviceman} створюються
+ * лише тоді, коли їх явно запитують через {@link #getStaff()}.</p>
+ *
+ * <p>Менеджер підтримує гістограмний індекс стажу ({@link YearsIndex}),
+ * який оновлюється у {@link #setStaff(Serviceman[])}, {@link #initDefault()}
+ * та {@link #modifyServiceman(int, String, String, Integer, String)}, а
+ * під час додавання в кінець ({@link #addServicemen(Serviceman[])}) — на місці.
+ * Завдяки йому сортування за стажем лінійне, а фільтри за стажем одразу
+ * переходять до потрібних кошиків. Зміни об'єктів з {@link #getStaff()}
+ * менеджер відстежує сам через {@link ServicemanListener}.</p>
+ *
+ * <p>Менеджер не потокобезпечний. Для читання з багатьох потоків під час
+ * запису призначено {@link ConcurrentRoster}.</p>
+ *
+ * <p>Сканування (фільтри, пошук мін/макс) та формування звітів для великих
+ * списків виконуються паралельно у {@link java.util.concurrent.ForkJoinPool}
+ * (див. {@link #setParallelThreshold(int)}); результат не залежить від режиму.</p>
+ *
+ * <p>Кожен звіт можна також записувати потоково у будь-який {@link Appendable}
+ * (наприклад, {@link java.io.Writer}) і лише для потрібної сторінки
+ * (зміщення та кількість рядків): методи {@code write...} не форматують
+ * рядки поза сторінкою і не будують звіт цілком у пам'яті.</p>
  */
 public class ServicemanArrayManager {
 
     /** Масив військовослужбовців, яким керує менеджер. */
     protected Serviceman[] staff;
 
+    /**
+     * Колонкове сховище. Якщо не {@code null}, саме воно містить актуальні
+     * дані, а {@link #staff} дорівнює {@code null}.
+     */
+    ServicemanColumns columns;
+
+    /** Чи потрібно зберігати нові дані у колонковому вигляді. */
+    private boolean columnarStorage;
+
+    /** Індекс стажу; {@code null}, якщо діапазон значень завеликий. */
+    private YearsIndex yearsIndex;
+
+    /** Типовий поріг кількості рядків для паралельних сканувань. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 100_000;
+
+    /** Поріг, нижче якого сканування виконуються послідовно. */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Слухач, підписаний на кожен об'єкт масиву в об'єктному режимі: зміни
+     * через {@link #modifyServiceman} або напряму через об'єкти з
+     * {@link #getStaff()} одразу оновлюють індекси.
+     */
+    private final ServicemanListener staffListener = new ServicemanListener() {
+        @Override
+        public void nameChanged(Serviceman s, String oldName) {
+            staffNamesChanged();
+        }
+
+        @Override
+        public void yearsChanged(Serviceman s, int oldYears) {
+            ServicemanArrayManager.this.yearsChanged(oldYears, s.getYearsOfService());
+        }
+    };
+
+    /** Масив, на об'єкти якого підписано {@link #staffListener}. */
+    private Serviceman[] listenedStaff;
+
     /**
      * Конструктор за замовчуванням.
      * Ініціалізує масив стандартними даними, викликаючи {@link #initDefault()}.
@@ -44,24 +114,190 @@ public class ServicemanArrayManager {
                 new Officer("Ірина Романюк", "підполковник", 15, "начальник штабу"),
                 new Soldier("Юрій Кравченко", "солдат", 0)
         };
+        storeStaff();
+        reindex();
     }
 
     /**
      * Повертає поточний масив військовослужбовців.
      *
+     * <p>У колонковому режимі масив об'єктів спершу матеріалізується, і
+     * менеджер переходить до звичайного (об'єктного) сховища, адже
+     * повернуті об'єкти можуть змінюватися ззовні. Наступні
+     * {@link #setStaff(Serviceman[])} або {@link #initDefault()} знову
+     * збережуть дані у стовпцях.</p>
+     *
      * @return масив {@link Serviceman}
      */
     public Serviceman[] getStaff() {
+        if (columns != null) {
+            staff = columns.toServicemanArray();
+            columns = null;
+            listenTo(staff);
+        }
         return staff;
     }
 
     /**
      * Встановлює новий масив військовослужбовців.
      *
+     * <p>У колонковому режимі дані копіюються у стовпці, тож подальші зміни
+     * переданих об'єктів на менеджер не впливають.</p>
+     *
      * @param staff масив, який буде використано менеджером
      */
     public void setStaff(Serviceman[] staff) {
         this.staff = staff;
+        this.columns = null;
+        storeStaff();
+        reindex();
+    }
+
+    /**
+     * Вмикає або вимикає колонкове сховище. Поточні дані одразу
+     * переносяться у відповідне представлення.
+     *
+     * @param columnar {@code true} — зберігати дані у примітивних стовпцях
+     */
+    public void setColumnarStorage(boolean columnar) {
+        this.columnarStorage = columnar;
+        if (columnar) {
+            storeStaff();
+        } else {
+            getStaff();
+        }
+    }
+
+    /**
+     * Повідомляє, чи дані зараз зберігаються у стовпцях.
+     *
+     * @return {@code true}, якщо активне колонкове сховище
+     */
+    public boolean isColumnarStorage() {
+        return columns != null;
+    }
+
+    /**
+     * Повідомляє, чи нові дані слід зберігати у стовпцях (режим, заданий
+     * {@link #setColumnarStorage(boolean)}).
+     *
+     * @return {@code true}, якщо колонковий режим увімкнено
+     */
+    boolean isColumnarStorageEnabled() {
+        return columnarStorage;
+    }
+
+    /**
+     * Переносить {@link #staff} у стовпці, якщо увімкнено колонковий режим.
+     */
+    private void storeStaff() {
+        if (columnarStorage && staff != null) {
+            columns = ServicemanColumns.of(staff);
+            staff = null;
+        }
+        listenTo(staff);
+    }
+
+    /**
+     * Переносить підписку {@link #staffListener} на об'єкти нового масиву.
+     *
+     * @param arr масив об'єктів або {@code null} (колонковий режим)
+     */
+    private void listenTo(Serviceman[] arr) {
+        if (listenedStaff != null) {
+            for (Serviceman s : listenedStaff) {
+                if (s != null) s.removeListener(staffListener);
+            }
+        }
+        listenedStaff = arr;
+        if (arr != null) {
+            for (Serviceman s : arr) {
+                if (s != null) s.addListener(staffListener);
+            }
+        }
+    }
+
+    /**
+     * Встановлює вже готове колонкове сховище (наприклад, після потокового
+     * зчитування файлу без створення проміжних об'єктів).
+     *
+     * @param columns нові дані у стовпцях
+     */
+    void setColumns(ServicemanColumns columns) {
+        this.columns = columns;
+        this.staff = null;
+        listenTo(null);
+        reindex();
+    }
+
+    /**
+     * Повністю перебудовує індекс стажу. Зміни полів об'єктів індекси
+     * відстежують самі (через {@link ServicemanListener}); перебудова
+     * потрібна лише тоді, коли елементи масиву з {@link #getStaff()}
+     * замінювали іншими об'єктами.
+     */
+    public void reindex() {
+        yearsIndex = YearsIndex.build(yearsAccessor(), getSize());
+    }
+
+    /**
+     * Повідомляє індекси, що рядки було переставлено без зміни значень
+     * (наприклад, сортування за ПІБ у нащадках).
+     */
+    protected void staffReordered() {
+        if (yearsIndex != null) {
+            yearsIndex.invalidateOrder();
+        }
+    }
+
+    /**
+     * Повідомляє індекси нащадків, що змінився ПІБ хоча б одного елемента.
+     */
+    protected void staffNamesChanged() {
+    }
+
+    /**
+     * Повідомляє індекси нащадків, що в кінець масиву додано рядки
+     * {@code from..getSize()-1}. За замовчуванням — як зміна ПІБ.
+     *
+     * @param from індекс першого нового рядка
+     */
+    protected void staffAppended(int from) {
+        staffNamesChanged();
+    }
+
+    /**
+     * Повертає швидкий доступ до стажу за індексом для поточного сховища.
+     *
+     * @return функція «індекс → стаж»
+     */
+    protected java.util.function.IntUnaryOperator yearsAccessor() {
+        if (columns != null) {
+            int[] years = columns.yearsColumn();
+            return i -> years[i];
+        }
+        Serviceman[] arr = staff;
+        return i -> arr[i].getYearsOfService();
+    }
+
+    /**
+     * Задає кількість рядків, починаючи з якої сканування та звіти
+     * виконуються паралельно. {@link Integer#MAX_VALUE} вимикає паралельний режим.
+     *
+     * @param threshold поріг кількості рядків (не менше 1)
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("Поріг має бути додатним: " + threshold);
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Повертає поріг паралельного режиму.
+     *
+     * @return кількість рядків, починаючи з якої сканування паралельні
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
     }
 
     /**
@@ -70,9 +306,62 @@ public class ServicemanArrayManager {
      * @return розмір масиву або 0, якщо масив не ініціалізовано
      */
     public int getSize() {
+        if (columns != null) return columns.size();
         return staff == null ? 0 : staff.length;
     }
 
+    /**
+     * Повертає ПІБ військовослужбовця за індексом без створення об'єктів
+     * у колонковому режимі.
+     *
+     * @param index індекс елемента
+     * @return ПІБ
+     */
+    public String getNameAt(int index) {
+        return columns != null ? columns.name(index) : staff[index].getName();
+    }
+
+    /**
+     * Повертає звання військовослужбовця за індексом.
+     *
+     * @param index індекс елемента
+     * @return звання
+     */
+    public String getRankAt(int index) {
+        return columns != null ? columns.rank(index) : staff[index].getRank();
+    }
+
+    /**
+     * Повертає стаж служби військовослужбовця за індексом.
+     *
+     * @param index індекс елемента
+     * @return стаж у роках
+     */
+    public int getYearsAt(int index) {
+        return columns != null ? columns.years(index) : staff[index].getYearsOfService();
+    }
+
+    /**
+     * Перевіряє, чи є військовослужбовець за індексом офіцером.
+     *
+     * @param index індекс елемента
+     * @return {@code true} для офіцера
+     */
+    public boolean isOfficerAt(int index) {
+        return columns != null ? columns.isOfficer(index) : staff[index] instanceof Officer;
+    }
+
+    /**
+     * Повертає посаду офіцера за індексом.
+     *
+     * @param index індекс елемента
+     * @return посада або {@code null}, якщо це не офіцер
+     */
+    public String getPositionAt(int index) {
+        if (columns != null) return columns.position(index);
+        return staff[index] instanceof Officer o ? o.getPosition() : null;
+    }
+
     /**
      * Модифікує дані військовослужбовця за індексом.
      *
@@ -86,10 +375,29 @@ public class ServicemanArrayManager {
      * @throws IndexOutOfBoundsException якщо індекс некоректний
      */
     public void modifyServiceman(int index, String name, String rank, Integer years, String positionIfOfficer) {
-        if (staff == null) throw new IllegalStateException("Масив не ініціалізовано");
-        if (index < 0 || index >= staff.length)
+        if (staff == null && columns == null) throw new IllegalStateException("Масив не ініціалізовано");
+        if (index < 0 || index >= getSize())
             throw new IndexOutOfBoundsException("Невірний індекс: " + index);
 
+        if (columns != null) {
+            if (name != null && !name.isBlank()) {
+                staffNamesChanged();
+                columns.setName(index, name);
+            }
+            if (rank != null && !rank.isBlank()) {
+                columns.setRank(index, rank);
+            }
+            if (years != null) {
+                yearsChanged(columns.years(index), years);
+                columns.setYears(index, years);
+            }
+            if (positionIfOfficer != null && !positionIfOfficer.isBlank()) {
+                columns.setPosition(index, positionIfOfficer);
+            }
+            return;
+        }
+
+        // індекси оновлює staffListener, на який підписано кожен об'єкт масиву
         Serviceman s = staff[index];
 
         if (name != null && !name.isBlank()) {
@@ -106,18 +414,178 @@ public class ServicemanArrayManager {
         }
     }
 
+    /**
+     * Додає військовослужбовця в кінець масиву (див. {@link #addServicemen(Serviceman[])}).
+     *
+     * @param s новий військовослужбовець
+     */
+    public void addServiceman(Serviceman s) {
+        addServicemen(new Serviceman[] { s });
+    }
+
+    /**
+     * Додає військовослужбовців у кінець масиву. Індекси оновлюються на
+     * місці: гістограма стажу — для кожного нового рядка, індекси нащадків —
+     * через {@link #staffAppended(int)}. В об'єктному режимі масив
+     * копіюється з більшою довжиною один раз на виклик, тож рядки вигідніше
+     * додавати пакетами; у колонковому режимі вставка в кінець амортизовано
+     * O(1), а об'єкти копіюються у стовпці.
+     *
+     * @param added нові військовослужбовці
+     */
+    public void addServicemen(Serviceman[] added) {
+        for (Serviceman s : added) {
+            Objects.requireNonNull(s, "s");
+        }
+        if (added.length == 0) return;
+        int from = getSize();
+        if (columns != null) {
+            for (Serviceman s : added) {
+                columns.add(s);
+            }
+        } else {
+            Serviceman[] grown = staff == null ? new Serviceman[added.length]
+                    : Arrays.copyOf(staff, staff.length + added.length);
+            System.arraycopy(added, 0, grown, from, added.length);
+            staff = grown;
+            // решта об'єктів ті самі, тож підписки на них лишаються
+            listenedStaff = grown;
+            for (Serviceman s : added) {
+                s.addListener(staffListener);
+            }
+        }
+        if (yearsIndex != null) {
+            for (Serviceman s : added) {
+                if (!yearsIndex.add(s.getYearsOfService())) {
+                    yearsIndex = null;
+                    break;
+                }
+            }
+        }
+        staffAppended(from);
+    }
+
+    /**
+     * Вилучає військовослужбовця за індексом; наступні елементи зсуваються.
+     *
+     * @param index індекс елемента масиву
+     * @return вилучений військовослужбовець (у колонковому режимі — новий об'єкт)
+     *
+     * @throws IllegalStateException      якщо масив не ініціалізовано
+     * @throws IndexOutOfBoundsException якщо індекс некоректний
+     */
+    public Serviceman removeServiceman(int index) {
+        if (staff == null && columns == null) throw new IllegalStateException("Масив не ініціалізовано");
+        if (index < 0 || index >= getSize())
+            throw new IndexOutOfBoundsException("Невірний індекс: " + index);
+
+        Serviceman removed;
+        if (columns != null) {
+            removed = columns.toServiceman(index);
+            columns.remove(index);
+        } else {
+            removed = staff[index];
+            Serviceman[] shrunk = new Serviceman[staff.length - 1];
+            System.arraycopy(staff, 0, shrunk, 0, index);
+            System.arraycopy(staff, index + 1, shrunk, index, shrunk.length - index);
+            staff = shrunk;
+            listenedStaff = shrunk;
+            removed.removeListener(staffListener);
+        }
+        if (yearsIndex != null) {
+            yearsIndex.remove(removed.getYearsOfService());
+        }
+        staffNamesChanged();
+        return removed;
+    }
+
+    /**
+     * Оновлює індекс стажу після зміни одного елемента.
+     *
+     * @param oldYears попередній стаж
+     * @param newYears новий стаж
+     */
+    private void yearsChanged(int oldYears, int newYears) {
+        if (yearsIndex != null && !yearsIndex.update(oldYears, newYears)) {
+            yearsIndex = null;
+        }
+    }
+
     /**
      * Сортує масив військовослужбовців за стажем служби у порядку зростання.
      */
     public void sortByYearsAscending() {
-        java.util.Arrays.sort(staff, java.util.Comparator.comparingInt(Serviceman::getYearsOfService));
+        sortByYears(false);
     }
 
     /**
      * Сортує масив військовослужбовців за стажем служби у порядку спадання.
      */
     public void sortByYearsDescending() {
-        java.util.Arrays.sort(staff, java.util.Comparator.comparingInt(Serviceman::getYearsOfService).reversed());
+        sortByYears(true);
+    }
+
+    /**
+     * Стабільно сортує масив за стажем. За наявності індексу виконується
+     * лінійне сортування підрахунком, інакше — звичайне сортування.
+     *
+     * @param descending {@code true} — за спаданням
+     */
+    private void sortByYears(boolean descending) {
+        staffReordered();
+        if (yearsIndex != null) {
+            applyOrder(yearsIndex.sortOrder(yearsAccessor(), descending));
+            yearsIndex.markSorted(descending);
+            return;
+        }
+        if (columns != null) {
+            columns.permute(yearsOrder(descending));
+            return;
+        }
+        java.util.Comparator<Serviceman> byYears = java.util.Comparator.comparingInt(Serviceman::getYearsOfService);
+        Arrays.sort(staff, descending ? byYears.reversed() : byYears);
+    }
+
+    /**
+     * Переставляє елементи на місці: новий елемент {@code k} — це старий
+     * елемент {@code order[k]}.
+     *
+     * @param order перестановка індексів
+     */
+    private void applyOrder(int[] order) {
+        if (columns != null) {
+            columns.permute(order);
+            return;
+        }
+        Serviceman[] sorted = new Serviceman[order.length];
+        for (int k = 0; k < order.length; k++) {
+            sorted[k] = staff[order[k]];
+        }
+        System.arraycopy(sorted, 0, staff, 0, sorted.length);
+    }
+
+    /**
+     * Обчислює стабільну перестановку рядків колонкового сховища за стажем.
+     * Стаж і початковий індекс пакуються в один {@code long}, тож сортується
+     * примітивний масив без компаратора.
+     *
+     * @param descending {@code true} — за спаданням
+     * @return перестановка індексів
+     */
+    private int[] yearsOrder(boolean descending) {
+        int n = columns.size();
+        int[] years = columns.yearsColumn();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            int y = descending ? ~years[i] : years[i];
+            keys[i] = ((long) y << 32) | i;
+        }
+        java.util.Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int k = 0; k < n; k++) {
+            order[k] = (int) keys[k];
+        }
+        return order;
     }
 
     /**
@@ -126,30 +594,74 @@ public class ServicemanArrayManager {
      * @return текст із переліком усіх елементів
      */
     public String buildAllInfo() {
-        if (staff == null || staff.length == 0) return "Масив порожній.";
+        if (getSize() == 0) return "Масив порожній.";
 
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < staff.length; i++) {
-            Serviceman s = staff[i];
-            sb.append("[").append(i).append("] ");
-            if (s instanceof Officer o) {
-                sb.append("Офіцер: ")
-                        .append(o.getName())
-                        .append(", звання: ").append(o.getRank())
-                        .append(", стаж: ").append(o.getYearsOfService())
-                        .append(" років, посада: ").append(o.getPosition());
-            } else {
-                sb.append("Солдат: ")
-                        .append(s.getName())
-                        .append(", звання: ").append(s.getRank())
-                        .append(", стаж: ").append(s.getYearsOfService())
-                        .append(" років");
-            }
-            sb.append("\n");
-        }
+        writeUnchecked(() -> writeAllInfo(sb, 0, Integer.MAX_VALUE));
         return sb.toString();
     }
 
+    /**
+     * Записує сторінку повного опису масиву у потік.
+     *
+     * @param out    приймач тексту
+     * @param offset індекс першого рядка сторінки
+     * @param limit  максимальна кількість рядків сторінки
+     * @return загальна кількість елементів масиву
+     * @throws IOException якщо приймач не зміг записати текст
+     */
+    public int writeAllInfo(Appendable out, int offset, int limit) throws IOException {
+        int n = getSize();
+        if (n == 0) {
+            out.append("Масив порожній.");
+            return 0;
+        }
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), n);
+        StringBuilder row = new StringBuilder(128);
+        for (int i = from; i < to; i++) {
+            row.setLength(0);
+            appendFullRow(row, i);
+            out.append(row);
+        }
+        return n;
+    }
+
+    /**
+     * Дописує рядок повного опису «[i] Солдат/Офіцер: ...».
+     *
+     * @param sb буфер звіту
+     * @param i  індекс елемента
+     */
+    protected void appendFullRow(StringBuilder sb, int i) {
+        boolean officer = isOfficerAt(i);
+        appendFullRow(sb, i, officer, getNameAt(i), getRankAt(i), getYearsAt(i),
+                officer ? getPositionAt(i) : null);
+    }
+
+    /**
+     * Дописує рядок повного опису за значеннями полів. Спільний для
+     * менеджера та знімків {@link ConcurrentRoster}.
+     */
+    static void appendFullRow(StringBuilder sb, int i, boolean officer,
+                              String name, String rank, int years, String position) {
+        sb.append("[").append(i).append("] ");
+        if (officer) {
+            sb.append("Офіцер: ")
+                    .append(name)
+                    .append(", звання: ").append(rank)
+                    .append(", стаж: ").append(years)
+                    .append(" років, посада: ").append(position);
+        } else {
+            sb.append("Солдат: ")
+                    .append(name)
+                    .append(", звання: ").append(rank)
+                    .append(", стаж: ").append(years)
+                    .append(" років");
+        }
+        sb.append("\n");
+    }
+
     /**
      * Будує текстовий звіт про військовослужбовців, стаж яких
      * більший або дорівнює вказаному значенню.
@@ -158,28 +670,216 @@ public class ServicemanArrayManager {
      * @return список військових, які задовольняють умову, або повідомлення про їх відсутність
      */
     public String buildFilteredByMinYears(int minYears) {
-        if (staff == null || staff.length == 0) return "Масив порожній.";
+        if (getSize() == 0) return "Масив порожній.";
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("Військовослужбовці зі стажем ≥ ").append(minYears).append(" років:\n");
-        boolean any = false;
-
-        for (int i = 0; i < staff.length; i++) {
-            Serviceman s = staff[i];
-            if (s.getYearsOfService() >= minYears) {
-                any = true;
-                sb.append("[").append(i).append("] ")
-                        .append(s.getName())
-                        .append(", ").append(s.getRank())
-                        .append(", стаж: ").append(s.getYearsOfService())
-                        .append(" років\n");
-            }
+        StringBuilder sb = new StringBuilder(minYearsHeader(minYears));
+        appendYearsRows(sb, findByYearsRange(minYears, Integer.MAX_VALUE));
+        return sb.toString();
+    }
+
+    /**
+     * Записує сторінку звіту про військовослужбовців зі стажем ≥ {@code minYears}.
+     * Форматуються лише рядки сторінки.
+     *
+     * @param out      приймач тексту
+     * @param minYears мінімальний стаж для фільтрації
+     * @param offset   номер першого знайденого рядка на сторінці
+     * @param limit    максимальна кількість рядків сторінки
+     * @return загальна кількість знайдених елементів
+     * @throws IOException якщо приймач не зміг записати текст
+     */
+    public int writeFilteredByMinYears(Appendable out, int minYears, int offset, int limit) throws IOException {
+        if (getSize() == 0) {
+            out.append("Масив порожній.");
+            return 0;
         }
+        out.append(minYearsHeader(minYears));
+        return writeYearsRows(out, findByYearsRange(minYears, Integer.MAX_VALUE), offset, limit);
+    }
 
-        if (!any) {
+    private static String minYearsHeader(int minYears) {
+        return "Військовослужбовці зі стажем ≥ " + minYears + " років:\n";
+    }
+
+    /**
+     * Будує текстовий звіт про військовослужбовців, стаж яких
+     * належить діапазону {@code [fromYears, toYears]}.
+     *
+     * @param fromYears нижня межа стажу (включно)
+     * @param toYears   верхня межа стажу (включно)
+     * @return список військових, які задовольняють умову, або повідомлення про їх відсутність
+     */
+    public String buildFilteredByYearsRange(int fromYears, int toYears) {
+        if (getSize() == 0) return "Масив порожній.";
+
+        StringBuilder sb = new StringBuilder(yearsRangeHeader(fromYears, toYears));
+        appendYearsRows(sb, findByYearsRange(fromYears, toYears));
+        return sb.toString();
+    }
+
+    /**
+     * Записує сторінку звіту про військовослужбовців зі стажем у діапазоні
+     * {@code [fromYears, toYears]}.
+     *
+     * @param out       приймач тексту
+     * @param fromYears нижня межа стажу (включно)
+     * @param toYears   верхня межа стажу (включно)
+     * @param offset    номер першого знайденого рядка на сторінці
+     * @param limit     максимальна кількість рядків сторінки
+     * @return загальна кількість знайдених елементів
+     * @throws IOException якщо приймач не зміг записати текст
+     */
+    public int writeFilteredByYearsRange(Appendable out, int fromYears, int toYears,
+                                         int offset, int limit) throws IOException {
+        if (getSize() == 0) {
+            out.append("Масив порожній.");
+            return 0;
+        }
+        out.append(yearsRangeHeader(fromYears, toYears));
+        return writeYearsRows(out, findByYearsRange(fromYears, toYears), offset, limit);
+    }
+
+    private static String yearsRangeHeader(int fromYears, int toYears) {
+        return "Військовослужбовці зі стажем від " + fromYears + " до " + toYears + " років:\n";
+    }
+
+    private int writeYearsRows(Appendable out, int[] rows, int offset, int limit) throws IOException {
+        writeShortRows(out, rows, offset, limit);
+        if (rows.length == 0) {
+            out.append("  Немає військовослужбовців, які задовольняють умову.\n");
+        }
+        return rows.length;
+    }
+
+    /**
+     * Рахує військовослужбовців зі стажем у діапазоні {@code [fromYears, toYears]}.
+     * За наявності індексу працює за O(1).
+     *
+     * @param fromYears нижня межа стажу (включно)
+     * @param toYears   верхня межа стажу (включно)
+     * @return кількість елементів
+     */
+    public int countByYearsRange(int fromYears, int toYears) {
+        if (yearsIndex != null) {
+            return yearsIndex.countInRange(fromYears, toYears);
+        }
+        int n = getSize();
+        java.util.function.IntUnaryOperator yearsAt = yearsAccessor();
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int y = yearsAt.applyAsInt(i);
+            if (y >= fromYears && y <= toYears) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Повертає індекси елементів зі стажем у діапазоні {@code [fromYears, toYears]}
+     * у порядку зростання індексу.
+     *
+     * @param fromYears нижня межа стажу (включно)
+     * @param toYears   верхня межа стажу (включно)
+     * @return масив індексів (можливо, порожній)
+     */
+    public int[] findByYearsRange(int fromYears, int toYears) {
+        java.util.function.IntUnaryOperator yearsAt = yearsAccessor();
+        if (yearsIndex != null) {
+            return yearsIndex.rowsInRange(fromYears, toYears, yearsAt);
+        }
+        return ParallelScan.filter(getSize(), i -> i, i -> {
+            int y = yearsAt.applyAsInt(i);
+            return y >= fromYears && y <= toYears;
+        }, parallelThreshold);
+    }
+
+    /**
+     * Дописує до звіту знайдені за стажем рядки або повідомлення про їх відсутність.
+     *
+     * @param sb   буфер звіту
+     * @param rows індекси знайдених елементів
+     */
+    private void appendYearsRows(StringBuilder sb, int[] rows) {
+        sb.append(renderShortRows(rows));
+        if (rows.length == 0) {
             sb.append("  Немає військовослужбовців, які задовольняють умову.\n");
         }
+    }
 
-        return sb.toString();
+    /**
+     * Формує короткі рядки звіту для переліку індексів (паралельно для
+     * великих переліків, у порядку індексів).
+     *
+     * @param rows індекси елементів
+     * @return текст звіту
+     */
+    protected String renderShortRows(int[] rows) {
+        return ParallelScan.render(rows, this::appendShortRow, parallelThreshold);
+    }
+
+    /**
+     * Записує у потік короткі рядки звіту для сторінки переліку індексів.
+     *
+     * @param out    приймач тексту
+     * @param rows   індекси всіх знайдених елементів
+     * @param offset позиція першого рядка сторінки у {@code rows}
+     * @param limit  максимальна кількість рядків сторінки
+     * @throws IOException якщо приймач не зміг записати текст
+     */
+    protected void writeShortRows(Appendable out, int[] rows, int offset, int limit) throws IOException {
+        int from = Math.max(offset, 0);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), rows.length);
+        StringBuilder row = new StringBuilder(96);
+        for (int p = from; p < to; p++) {
+            row.setLength(0);
+            appendShortRow(row, rows[p]);
+            out.append(row);
+        }
+    }
+
+    /**
+     * Перериває тривалу операцію, якщо її потік отримав запит на переривання
+     * (наприклад, користувач скасував завантаження в графічному інтерфейсі).
+     * Викликається в циклах до того, як масив змінено, тож скасована
+     * операція лишає дані без змін.
+     *
+     * @throws CancellationException якщо потік перервано
+     */
+    protected static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Операцію скасовано");
+        }
+    }
+
+    /** Запис у потік, який не може завершитися помилкою (наприклад, у {@link StringBuilder}). */
+    @FunctionalInterface
+    protected interface TextWrite {
+        void run() throws IOException;
+    }
+
+    /**
+     * Виконує запис у {@link StringBuilder}, де {@link IOException} неможлива.
+     *
+     * @param write операція запису
+     */
+    protected static void writeUnchecked(TextWrite write) {
+        try {
+            write.run();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Дописує короткий рядок звіту «[i] ПІБ, звання, стаж: N років».
+     *
+     * @param sb    буфер звіту
+     * @param index індекс елемента
+     */
+    protected void appendShortRow(StringBuilder sb, int index) {
+        sb.append("[").append(index).append("] ")
+                .append(getNameAt(index))
+                .append(", ").append(getRankAt(index))
+                .append(", стаж: ").append(getYearsAt(index))
+                .append(" років\n");
     }
 }
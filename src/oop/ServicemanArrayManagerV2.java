@@ -1,100 +1,288 @@
 package oop;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import java.text.CollationKey;
 import java.text.Collator;
 
 public class ServicemanArrayManagerV2 extends ServicemanArrayManager {
 
-    // Сортування за ПІБ (name) за зростанням
-    public void sortByNameAscending() {
-        Serviceman[] staff = getStaff();
-        if (staff == null) return;
+    // Спільний колатор для ПІБ (uk_UA, лише базові літери). Створюється один раз;
+    // методи RuleBasedCollator синхронізовані, тож його можна ділити між викликами.
+    private static final Collator NAME_COLLATOR = createNameCollator();
+
+    private static Collator createNameCollator() {
         Collator collator = Collator.getInstance(new Locale("uk", "UA"));
         collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+
+    // Кеш скомпільованих шаблонів (LRU): оператори повторюють ті самі regex
+    private static final int PATTERN_CACHE_SIZE = 64;
+
+    private static final Map<String, Pattern> PATTERN_CACHE =
+            new LinkedHashMap<>(PATTERN_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > PATTERN_CACHE_SIZE;
+                }
+            };
+
+    private static Pattern compileName(String regex) {
+        synchronized (PATTERN_CACHE) {
+            Pattern pattern = PATTERN_CACHE.get(regex);
+            if (pattern == null) {
+                pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+                PATTERN_CACHE.put(regex, pattern);
+            }
+            return pattern;
+        }
+    }
+
+    // Індекси за ПІБ (суфіксний і триграмний); будуються ліниво
+    // і скидаються при зміні імен або порядку
+    private NameSuffixIndex suffixIndex;
+    private NameTrigramIndex trigramIndex;
+
+    @Override
+    public void reindex() {
+        super.reindex();
+        dropNameIndexes();
+    }
 
-        Arrays.sort(staff, (a, b) ->
-                collator.compare(a.getName(), b.getName())
-        );
+    @Override
+    protected void staffReordered() {
+        super.staffReordered();
+        dropNameIndexes();
+    }
+
+    @Override
+    protected void staffNamesChanged() {
+        super.staffNamesChanged();
+        dropNameIndexes();
+    }
+
+    // Рядки в кінці: триграмний індекс доповнюється на місці (списки рядків
+    // лишаються відсортованими), суфіксний — відсортований масив — скидається
+    @Override
+    protected void staffAppended(int from) {
+        suffixIndex = null;
+        if (trigramIndex != null) {
+            for (int row = from, n = getSize(); row < n; row++) {
+                trigramIndex.add(row, getNameAt(row));
+            }
+        }
+    }
+
+    private void dropNameIndexes() {
+        suffixIndex = null;
+        trigramIndex = null;
+    }
+
+    // Сортування за ПІБ (name) за зростанням
+    public void sortByNameAscending() {
+        sortByName(false);
     }
 
     // Сортування за ПІБ (name) за спаданням
     public void sortByNameDescending() {
+        sortByName(true);
+    }
+
+    // Порівнюються готові CollationKey: для об'єктів вони кешуються в Serviceman
+    // (до наступного setName), у колонковому режимі обчислюються раз на сортування.
+    // Ключі обчислюються до перестановки, тож переривання потоку на цьому етапі
+    // (найдовшому) скасовує сортування без змін у масиві.
+    private void sortByName(boolean descending) {
+        if (columns != null) {
+            int n = columns.size();
+            KeyedRow[] rows = new KeyedRow[n];
+            for (int i = 0; i < n; i++) {
+                if ((i & 1023) == 0) checkCancelled();
+                rows[i] = new KeyedRow(NAME_COLLATOR.getCollationKey(columns.name(i)), i);
+            }
+            Comparator<KeyedRow> byKey = Comparator.comparing(r -> r.key);
+            Arrays.sort(rows, descending ? byKey.reversed() : byKey);
+            int[] order = new int[n];
+            for (int k = 0; k < n; k++) {
+                order[k] = rows[k].row;
+            }
+            columns.permute(order);
+            staffReordered();
+            return;
+        }
+
         Serviceman[] staff = getStaff();
         if (staff == null) return;
 
-        Collator collator = Collator.getInstance(new Locale("uk", "UA"));
-        collator.setStrength(Collator.PRIMARY);
+        for (int i = 0; i < staff.length; i++) {
+            if ((i & 1023) == 0) checkCancelled();
+            staff[i].getNameCollationKey(NAME_COLLATOR);
+        }
+        Comparator<Serviceman> byKey = Comparator.comparing(s -> s.getNameCollationKey(NAME_COLLATOR));
+        Arrays.sort(staff, descending ? byKey.reversed() : byKey);
+        staffReordered();
+    }
+
+    // Ключ сортування разом з початковим індексом рядка
+    private static final class KeyedRow {
+        final CollationKey key;
+        final int row;
 
-        Arrays.sort(staff, (a, b) ->
-                collator.compare(b.getName(), a.getName())
-        );
+        KeyedRow(CollationKey key, int row) {
+            this.key = key;
+            this.row = row;
+        }
     }
 
     // Фільтрація за регулярним виразом по полю name
     public String buildFilteredByNameRegex(String regex) throws PatternSyntaxException {
-        Serviceman[] staff = getStaff();
-        if (staff == null || staff.length == 0) {
+        if (getSize() == 0) {
             return "Масив порожній.";
         }
 
-        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
         StringBuilder sb = new StringBuilder();
-        sb.append("Військовослужбовці, для яких ПІБ відповідає шаблону \"")
-                .append(regex).append("\":\n");
+        sb.append(regexHeader(regex));
 
-        boolean any = false;
-        for (int i = 0; i < staff.length; i++) {
-            Serviceman s = staff[i];
-            if (pattern.matcher(s.getName()).find()) {
-                any = true;
-                sb.append("[").append(i).append("] ")
-                        .append(s.getName())
-                        .append(", ").append(s.getRank())
-                        .append(", стаж: ").append(s.getYearsOfService())
-                        .append(" років\n");
+        int[] rows = findByNameRegex(regex);
+        sb.append(renderShortRows(rows));
+
+        if (rows.length == 0) {
+            sb.append("  Немає елементів, що задовольняють умову.\n");
+        }
+
+        return sb.toString();
+    }
+
+    // Потоковий запис сторінки звіту за regex; форматуються лише рядки сторінки.
+    // Повертає загальну кількість збігів.
+    public int writeFilteredByNameRegex(Appendable out, String regex, int offset, int limit)
+            throws IOException, PatternSyntaxException {
+        if (getSize() == 0) {
+            out.append("Масив порожній.");
+            return 0;
+        }
+
+        int[] rows = findByNameRegex(regex);
+        out.append(regexHeader(regex));
+        writeShortRows(out, rows, offset, limit);
+        if (rows.length == 0) {
+            out.append("  Немає елементів, що задовольняють умову.\n");
+        }
+        return rows.length;
+    }
+
+    private static String regexHeader(String regex) {
+        return "Військовослужбовці, для яких ПІБ відповідає шаблону \"" + regex + "\":\n";
+    }
+
+    // Індекси елементів, ПІБ яких відповідає regex (без урахування регістру).
+    // Шаблони виду ".*ко$" звужуються індексом суфіксів, інші — триграмним
+    // індексом за обов'язковими фрагментами шаблону; повний regex
+    // перевіряється лише для кандидатів.
+    public int[] findByNameRegex(String regex) throws PatternSyntaxException {
+        Pattern pattern = compileName(regex);
+        int n = getSize();
+
+        int[] candidates;
+        String suffix = suffixLiteral(regex);
+        if (suffix != null) {
+            candidates = findByNameSuffix(suffix);
+        } else {
+            List<String> literals = RegexLiterals.extract(regex);
+            candidates = null;
+            if (literals.stream().anyMatch(l -> l.length() >= 3)) {
+                if (trigramIndex == null) {
+                    trigramIndex = NameTrigramIndex.build(this::getNameAt, n);
+                }
+                candidates = trigramIndex.candidates(literals);
             }
         }
 
-        if (!any) {
-            sb.append("  Немає елементів, що задовольняють умову.\n");
+        // перевірка regex паралельна для великої кількості кандидатів
+        IntPredicate matches = i -> pattern.matcher(getNameAt(i)).find();
+        if (candidates == null) {
+            return ParallelScan.filter(n, i -> i, matches, getParallelThreshold());
+        }
+        int[] c = candidates;
+        return ParallelScan.filter(c.length, p -> c[p], matches, getParallelThreshold());
+    }
+
+    // Пошук за закінченням ПІБ (без урахування регістру) через індекс суфіксів
+    public int[] findByNameSuffix(String suffix) {
+        if (suffixIndex == null) {
+            suffixIndex = NameSuffixIndex.build(this::getNameAt, getSize());
+        }
+        return suffixIndex.rowsWithSuffix(suffix);
+    }
+
+    // Звіт про військовослужбовців, чий ПІБ закінчується на suffix
+    public String buildFilteredByNameSuffix(String suffix) {
+        if (getSize() == 0) {
+            return "Масив порожній.";
         }
 
+        StringBuilder sb = new StringBuilder();
+        sb.append("Військовослужбовці, чий ПІБ закінчується на \"")
+                .append(suffix).append("\":\n");
+        int[] rows = findByNameSuffix(suffix);
+        sb.append(renderShortRows(rows));
+        if (rows.length == 0) {
+            sb.append("  Немає елементів, що задовольняють умову.\n");
+        }
         return sb.toString();
     }
 
+    // Якщо шаблон має вигляд ".*літерал$", "^.*літерал$" або "літерал$",
+    // повертає літерал; інакше null
+    private static String suffixLiteral(String regex) {
+        if (!regex.endsWith("$")) return null;
+        String body = regex.substring(0, regex.length() - 1);
+        if (body.startsWith("^.*")) {
+            body = body.substring(3);
+        } else if (body.startsWith(".*")) {
+            body = body.substring(2);
+        }
+        if (body.isEmpty()) return null;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            // метасимволи regex та символи кінця рядка (з ними "$" поводиться інакше)
+            if ("\\.[]{}()*+?^$|\n\r\u0085\u2028\u2029".indexOf(c) >= 0) return null;
+        }
+        return body;
+    }
+
     // Інфо про мінімальний та максимальний стаж
+    // (у колонковому режимі — прохід по примітивному стовпцю стажу,
+    // для великих масивів — паралельно)
     public String buildMinMaxYearsInfo() {
-        Serviceman[] staff = getStaff();
-        if (staff == null || staff.length == 0) {
+        int n = getSize();
+        if (n == 0) {
             return "Масив порожній.";
         }
 
-        Serviceman min = staff[0];
-        Serviceman max = staff[0];
-
-        for (Serviceman s : staff) {
-            if (s.getYearsOfService() < min.getYearsOfService()) {
-                min = s;
-            }
-            if (s.getYearsOfService() > max.getYearsOfService()) {
-                max = s;
-            }
-        }
+        int[] minMax = ParallelScan.minMax(n, yearsAccessor(), getParallelThreshold());
+        int min = minMax[0];
+        int max = minMax[1];
 
         StringBuilder sb = new StringBuilder();
         sb.append("Найменший стаж має: ")
-                .append(min.getName())
-                .append(" (").append(min.getYearsOfService()).append(" років, звання: ")
-                .append(min.getRank()).append(").\n");
+                .append(getNameAt(min))
+                .append(" (").append(getYearsAt(min)).append(" років, звання: ")
+                .append(getRankAt(min)).append(").\n");
 
         sb.append("Найбільший стаж має: ")
-                .append(max.getName())
-                .append(" (").append(max.getYearsOfService()).append(" років, звання: ")
-                .append(max.getRank()).append(").\n");
+                .append(getNameAt(max))
+                .append(" (").append(getYearsAt(max)).append(" років, звання: ")
+                .append(getRankAt(max)).append(").\n");
 
         return sb.toString();
     }
@@ -2,12 +2,41 @@ package oop;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
-public class ServicemanArrayManagerV3 extends ServicemanArrayManagerV2 {
+public class ServicemanArrayManagerV3 extends ServicemanArrayManagerV2 implements AutoCloseable {
+
+    private static final IntConsumer NO_PROGRESS = percent -> { };
+
+    // Найменший розмір текстового файлу, з якого імпорт іде паралельно
+    static final long PARALLEL_IMPORT_MIN_BYTES = 16L << 20;
+
+    // Типовий розмір журналу, після якого він ущільнюється у новий знімок
+    public static final long DEFAULT_JOURNAL_COMPACTION_BYTES = 64L << 20;
+
+    // Журнал змін поточного знімка (null — зміни не журналюються)
+    private RosterJournal journal;
+    private Path snapshotPath;
+    private long journalCompactionBytes = DEFAULT_JOURNAL_COMPACTION_BYTES;
+    // Окремий потік вводу-виводу (фонові знімки й ущільнення журналу)
+    // та поточне завдання ущільнення
+    private ExecutorService io;
+    private Future<?> compaction;
 
     // ---------- Зчитування з ТЕКСТОВОГО файлу ----------
 
@@ -19,99 +48,647 @@ public class ServicemanArrayManagerV3 extends ServicemanArrayManagerV2 {
      * type: S - Soldier, O - Officer
      */
     public void loadFromTextFile(Path path) throws IOException {
-        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
-        List<Serviceman> list = new ArrayList<>();
-
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
-                continue; // пропускаємо коментарі/порожні рядки
-            }
+        loadFromTextFile(path, NO_PROGRESS);
+    }
 
-            String[] parts = trimmed.split(";");
-            if (parts.length < 4) {
-                // мінімум: type;name;rank;years[;position]
-                continue;
-            }
+    // Те саме з повідомленням про прогрес (у відсотках) і можливістю скасування
+    // через переривання потоку; масив замінюється лише після успішного читання.
+    // Файл розбирається потоково (ServicemanTextParser), у колонковому режимі —
+    // одразу у стовпці, без проміжних об'єктів. Файли від PARALLEL_IMPORT_MIN_BYTES
+    // розбираються паралельно частинами; результат той самий.
+    public void loadFromTextFile(Path path, IntConsumer progress) throws IOException {
+        if (Files.size(path) >= PARALLEL_IMPORT_MIN_BYTES
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            loadFromTextFileParallel(path, progress);
+            return;
+        }
+        ServicemanTextParser parser = new ServicemanTextParser();
 
-            String type = parts[0].trim();
-            String name = parts[1].trim();
-            String rank = parts[2].trim();
-            int years = Integer.parseInt(parts[3].trim());
-            String position = parts.length >= 5 ? parts[4].trim() : "";
+        if (isColumnarStorageEnabled()) {
+            ServicemanColumns loaded = new ServicemanColumns(1024);
+            parser.parse(path, loaded::add, progress);
+            checkCancelled();
+            setColumns(loaded);
+        } else {
+            List<Serviceman> list = new ArrayList<>();
+            parser.parse(path, (type, name, rank, years, position) -> list.add(
+                    type == ServicemanColumns.TYPE_OFFICER
+                            ? new Officer(name, rank, years, position)
+                            : new Soldier(name, rank, years)), progress);
+            checkCancelled();
+            setStaff(list.toArray(new Serviceman[0]));
+        }
+        progress.accept(100);
+    }
 
-            if (type.equalsIgnoreCase("S")) {
-                list.add(new Soldier(name, rank, years));
-            } else if (type.equalsIgnoreCase("O")) {
-                list.add(new Officer(name, rank, years, position));
+    // Паралельний розбір: файл ділиться на частини за межами рядків, кожна
+    // читається позиційним читанням; частини розбираються у ForkJoinPool і склеюються в порядку файлу.
+    void loadFromTextFileParallel(Path path, IntConsumer progress) throws IOException {
+        if (isColumnarStorageEnabled()) {
+            List<ServicemanColumns> parts = ServicemanTextParser.parseParallel(path,
+                    () -> new ServicemanColumns(1024), part -> part::add, progress);
+            ServicemanColumns loaded = parts.isEmpty() ? new ServicemanColumns(0) : parts.get(0);
+            for (int k = 1; k < parts.size(); k++) {
+                loaded.addAll(parts.get(k));
             }
+            checkCancelled();
+            setColumns(loaded);
+        } else {
+            List<List<Serviceman>> parts = ServicemanTextParser.parseParallel(path,
+                    ArrayList::new, part -> (type, name, rank, years, position) -> part.add(
+                            type == ServicemanColumns.TYPE_OFFICER
+                                    ? new Officer(name, rank, years, position)
+                                    : new Soldier(name, rank, years)), progress);
+            int total = 0;
+            for (List<Serviceman> part : parts) total += part.size();
+            Serviceman[] arr = new Serviceman[total];
+            int pos = 0;
+            for (List<Serviceman> part : parts) {
+                for (Serviceman s : part) arr[pos++] = s;
+            }
+            checkCancelled();
+            setStaff(arr);
         }
+        progress.accept(100);
+    }
+
+    // ---------- Запис у ТЕКСТОВИЙ файл ----------
 
-        setStaff(list.toArray(new Serviceman[0]));
+    /**
+     * Записує масив у текстовий формат, який читає {@link #loadFromTextFile(Path)},
+     * і читання повертає ті самі записи. Рядки кодуються потоково
+     * ({@link ServicemanTextWriter}), тож пам'ять не залежить від розміру
+     * масиву. Значення, які в цьому форматі не зберегти (роздільник
+     * {@code ';'} чи кінець рядка в полі, пробіли на краях поля, відсутня
+     * посада офіцера), дають {@link IOException}, а недописаний файл
+     * видаляється.
+     */
+    public void saveToTextFile(Path path) throws IOException {
+        saveToTextFile(path, NO_PROGRESS);
+    }
+
+    // Запис з прогресом; файл пишеться в тимчасовий і атомарно замінює
+    // попередній, тож якщо запис не вдався або скасований, попередній лишається
+    public void saveToTextFile(Path path, IntConsumer progress) throws IOException {
+        if (staff == null && columns == null) return;
+
+        ServicemanTextWriter.write(path, ServicemanBinaryFile.rowsOf(this), progress);
+        progress.accept(100);
+    }
+
+    /**
+     * Зчитує текстовий файл, у кінець якого дописуються нові рядки, і
+     * повертає об'єкт для стеження за ним ({@link ServicemanTextFollower}).
+     * Масив замінюється завершеними рядками файлу; незавершений останній
+     * рядок буде прочитано першим {@link ServicemanTextFollower#poll()}
+     * після того, як його допишуть. Об'єкт слід закрити, коли стеження
+     * більше не потрібне.
+     */
+    public ServicemanTextFollower followTextFile(Path path) throws IOException {
+        return followTextFile(path, NO_PROGRESS);
+    }
+
+    // Те саме з прогресом і можливістю скасування (див. loadFromTextFile)
+    public ServicemanTextFollower followTextFile(Path path, IntConsumer progress) throws IOException {
+        ServicemanTextFollower follower = new ServicemanTextFollower(this, path, 0);
+        try {
+            follower.load(progress);
+        } catch (IOException | RuntimeException ex) {
+            follower.close();
+            throw ex;
+        }
+        return follower;
     }
 
     // ---------- Запис у БІНАРНИЙ файл ----------
 
     /**
-     * Бінарний формат:
-     * int count;
-     * для кожного елемента:
+     * Бінарний формат версії 2 (див. {@link ServicemanBinaryFile}):
+     * заголовок із сигнатурою, таблиця зміщень записів і самі записи
      *   byte type (0 - Soldier, 1 - Officer)
      *   UTF name
      *   UTF rank
      *   int years
      *   UTF position (для солдата може бути порожній рядок)
+     * Завдяки таблиці зміщень окремі записи читаються без завантаження файлу.
      */
     public void saveToBinaryFile(Path path) throws IOException {
-        Serviceman[] arr = getStaff();
-        if (arr == null) return;
-
-        try (DataOutputStream out = new DataOutputStream(
-                new BufferedOutputStream(new FileOutputStream(path.toFile()))
-        )) {
-            out.writeInt(arr.length);
-            for (Serviceman s : arr) {
-                if (s instanceof Officer o) {
-                    out.writeByte(1); // Officer
-                    out.writeUTF(o.getName());
-                    out.writeUTF(o.getRank());
-                    out.writeInt(o.getYearsOfService());
-                    out.writeUTF(o.getPosition() == null ? "" : o.getPosition());
-                } else {
-                    out.writeByte(0); // Soldier (або базовий Serviceman)
-                    out.writeUTF(s.getName());
-                    out.writeUTF(s.getRank());
-                    out.writeInt(s.getYearsOfService());
-                    out.writeUTF(""); // немає посади
-                }
-            }
+        saveToBinaryFile(path, NO_PROGRESS);
+    }
+
+    // Запис з прогресом; якщо запис не вдався або скасований, попередній файл лишається
+    public void saveToBinaryFile(Path path, IntConsumer progress) throws IOException {
+        saveToBinaryFile(path, ServicemanBinaryFile.CODEC_NONE, progress);
+    }
+
+    /**
+     * Стиснений варіант бінарного файлу: записи стискаються блоками
+     * (Deflate), кодек записується в заголовок, тож loadFromBinaryFile
+     * розпізнає такий файл сам. Звання й посади повторюються, тому файл
+     * зазвичай у кілька разів менший.
+     */
+    public void saveToCompressedBinaryFile(Path path) throws IOException {
+        saveToCompressedBinaryFile(path, NO_PROGRESS);
+    }
+
+    public void saveToCompressedBinaryFile(Path path, IntConsumer progress) throws IOException {
+        saveToBinaryFile(path, ServicemanBinaryFile.CODEC_DEFLATE, progress);
+    }
+
+    // Якщо журнал відкрито, файл пам'ятає номер його останнього запису. Знімок
+    // самого журналу перезаписується лише разом з ущільненням: інакше журнал
+    // почав би з запису, якого знімок уже не очікує. Файл пишеться в
+    // тимчасовий і атомарно замінює попередній, тож відкриті на попередній
+    // файл об'єкти (ServicemanBinaryFile, View) не ламаються, а після помилки
+    // чи скасування попередній файл лишається без змін.
+    private void saveToBinaryFile(Path path, short codec, IntConsumer progress) throws IOException {
+        if (staff == null && columns == null) return;
+
+        if (journal != null && isSnapshotPath(path)) {
+            awaitCompaction();
+            startCompaction(codec, progress);
+            awaitCompaction();
+            progress.accept(100);
+            return;
         }
+        long seq = journal == null ? 0 : journal.getLastSeq();
+        writeSnapshot(path, ServicemanBinaryFile.rowsOf(this), seq, codec, progress);
+        progress.accept(100);
+    }
+
+    /**
+     * Зберігає поточний стан у бінарний файл у фоні, не блокуючи подальших
+     * змін. Рядки заморожуються одразу, у потоці виклику (у колонковому
+     * режимі — без копіювання, див. {@link ServicemanColumns#freeze()}), а
+     * файл пишеться в окремому потоці вводу-виводу: спершу тимчасовий файл,
+     * потім атомарне перейменування, тож читач ніколи не бачить недописаний
+     * файл. Зміни після виклику в знімок не потрапляють.
+     *
+     * <p>Знімки виконуються по черзі в одному потоці разом з ущільненням
+     * журналу змін. Якщо журнал відкрито, знімок пам'ятає номер його
+     * останнього запису, тож годиться і як знімок для {@link #openJournal(Path)}.</p>
+     *
+     * @param path     файл знімка
+     * @param progress прогрес у відсотках (викликається з потоку вводу-виводу)
+     * @return завершується шляхом до файлу або помилкою запису
+     */
+    public CompletableFuture<Path> saveToBinaryFileInBackground(Path path, IntConsumer progress) {
+        ServicemanBinaryFile.Rows rows = freezeRows();
+        long seq = journal == null ? 0 : journal.getLastSeq();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                writeSnapshot(path, rows, seq, ServicemanBinaryFile.CODEC_NONE, progress);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            progress.accept(100);
+            return path;
+        }, io());
+    }
+
+    public CompletableFuture<Path> saveToBinaryFileInBackground(Path path) {
+        return saveToBinaryFileInBackground(path, NO_PROGRESS);
     }
 
     // ---------- Зчитування з БІНАРНОГО файлу ----------
 
     public void loadFromBinaryFile(Path path) throws IOException {
-        List<Serviceman> list = new ArrayList<>();
-
-        try (DataInputStream in = new DataInputStream(
-                new BufferedInputStream(new FileInputStream(path.toFile()))
-        )) {
-            int count = in.readInt();
-            for (int i = 0; i < count; i++) {
-                byte type = in.readByte();
-                String name = in.readUTF();
-                String rank = in.readUTF();
-                int years = in.readInt();
-                String position = in.readUTF();
-
-                if (type == 1) {
-                    list.add(new Officer(name, rank, years, position));
-                } else {
-                    list.add(new Soldier(name, rank, years));
+        loadFromBinaryFile(path, NO_PROGRESS);
+    }
+
+    // Читання з прогресом і можливістю скасування (див. loadFromTextFile).
+    // Файли попереднього формату (без сигнатури) і стиснені файли теж читаються.
+    public void loadFromBinaryFile(Path path, IntConsumer progress) throws IOException {
+        try (ServicemanBinaryFile file = ServicemanBinaryFile.openUnmapped(path)) {
+            int count = file.size();
+            ServicemanColumns loaded = isColumnarStorageEnabled() ? new ServicemanColumns(count) : null;
+            Serviceman[] arr = loaded == null ? new Serviceman[count] : null;
+            int[] pos = new int[1];
+            ServicemanRowSink sink = loaded != null ? loaded::add
+                    : (type, name, rank, years, position) -> arr[pos[0]++] = type == ServicemanColumns.TYPE_OFFICER
+                            ? new Officer(name, rank, years, position)
+                            : new Soldier(name, rank, years);
+
+            final int step = 1 << 16;
+            for (int from = 0; from < count; from += step) {
+                checkCancelled();
+                progress.accept((int) (100L * from / count));
+                file.readRows(from, Math.min(from + step, count), sink);
+            }
+
+            checkCancelled();
+            if (loaded != null) {
+                setColumns(loaded);
+            } else {
+                setStaff(arr);
+            }
+        } catch (UncheckedIOException ex) {
+            // помилка читання вікна файлу або стисненого блоку
+            throw ex.getCause();
+        }
+        progress.accept(100);
+    }
+
+    // ---------- КОЛОНКОВИЙ файл ----------
+
+    /**
+     * Колонковий формат (див. {@link ServicemanColumnFile}): кожне поле —
+     * окремий стовпець, поділений на блоки з мін/макс стажу, тож запити за
+     * стажем до файлу пропускають цілі блоки і не декодують рядкових полів.
+     */
+    public void saveToColumnFile(Path path) throws IOException {
+        saveToColumnFile(path, NO_PROGRESS);
+    }
+
+    // Запис з прогресом; файл пишеться в тимчасовий і атомарно замінює
+    // попередній, тож якщо запис не вдався або скасований, попередній лишається
+    public void saveToColumnFile(Path path, IntConsumer progress) throws IOException {
+        if (staff == null && columns == null) return;
+
+        ServicemanColumnFile.write(path, ServicemanBinaryFile.rowsOf(this), progress);
+        progress.accept(100);
+    }
+
+    public void loadFromColumnFile(Path path) throws IOException {
+        loadFromColumnFile(path, NO_PROGRESS);
+    }
+
+    // Читання з прогресом і можливістю скасування (див. loadFromTextFile)
+    public void loadFromColumnFile(Path path, IntConsumer progress) throws IOException {
+        try (ServicemanColumnFile file = ServicemanColumnFile.open(path)) {
+            ServicemanColumns loaded = isColumnarStorageEnabled() ? new ServicemanColumns(file.size()) : null;
+            Serviceman[] arr = loaded == null ? new Serviceman[file.size()] : null;
+            int[] pos = new int[1];
+            file.readAll(loaded != null ? loaded::add
+                    : (type, name, rank, years, position) -> arr[pos[0]++] = type == ServicemanColumns.TYPE_OFFICER
+                            ? new Officer(name, rank, years, position)
+                            : new Soldier(name, rank, years), progress);
+
+            checkCancelled();
+            if (loaded != null) {
+                setColumns(loaded);
+            } else {
+                setStaff(arr);
+            }
+        }
+        progress.accept(100);
+    }
+
+    // ---------- Журнал змін ----------
+
+    /**
+     * Відкриває знімок разом із журналом змін {@code snapshot + ".journal"}.
+     * Знімок завантажується (або створюється з поточних даних, якщо його ще
+     * немає), після чого відтворюються новіші за нього записи журналу.
+     *
+     * <p>Далі кожна зміна через менеджер (modifyServiceman, addServiceman(s),
+     * removeServiceman, сортування) дописується в журнал одним записом, а
+     * знімок не перезаписується. Коли журнал перевищує поріг
+     * ({@link #setJournalCompactionThreshold(long)}), дані копіюються в
+     * пам'яті, і фоновий потік записує з копії новий знімок та вкорочує
+     * журнал; редагування при цьому не зупиняється. Повна заміна даних
+     * (setStaff, initDefault, завантаження файлів) одразу записує новий знімок.</p>
+     *
+     * <p>modifyServiceman, addServiceman(s) і removeServiceman спершу
+     * перевіряють аргументи й дописують зміну в журнал і лише потім змінюють
+     * масив: якщо дописати не вдалося ({@link UncheckedIOException}), дані в
+     * пам'яті не змінюються. Сортування дописується після перестановки, бо
+     * його можна скасувати посередині; якщо тоді запис у журнал не вдався,
+     * масив у пам'яті вже відсортовано, а на диску — ні, доки не буде
+     * записано новий знімок ({@link #compactJournal()}).</p>
+     *
+     * <p>Зміни об'єктів, отриманих через getStaff(), напряму в журнал не
+     * потрапляють — їх слід вносити через modifyServiceman.</p>
+     *
+     * @param snapshot шлях до бінарного знімка
+     * @throws IOException якщо знімок або журнал не читається чи журнал не відповідає знімку
+     */
+    public void openJournal(Path snapshot) throws IOException {
+        closeJournal();
+        long seq = 0;
+        if (Files.exists(snapshot)) {
+            loadFromBinaryFile(snapshot);
+            try (ServicemanBinaryFile file = ServicemanBinaryFile.openUnmapped(snapshot)) {
+                seq = file.getJournalSeq();
+            }
+        } else {
+            writeSnapshot(snapshot, freezeRows(), 0);
+        }
+
+        RosterJournal opened = RosterJournal.open(journalPath(snapshot), seq, new RosterJournal.Handler() {
+            public void insert(byte type, String name, String rank, int years, String position) {
+                addServiceman(type == ServicemanColumns.TYPE_OFFICER
+                        ? new Officer(name, rank, years, position)
+                        : new Soldier(name, rank, years));
+            }
+
+            public void delete(int index) {
+                removeServiceman(index);
+            }
+
+            public void modify(int index, String name, String rank, Integer years, String position) {
+                modifyServiceman(index, name, rank, years, position);
+            }
+
+            public void sortByYears(boolean descending) {
+                if (descending) sortByYearsDescending(); else sortByYearsAscending();
+            }
+
+            public void sortByName(boolean descending) {
+                if (descending) sortByNameDescending(); else sortByNameAscending();
+            }
+        });
+        snapshotPath = snapshot;
+        journal = opened;
+    }
+
+    // Чи ведеться журнал змін
+    public boolean isJournalOpen() {
+        return journal != null;
+    }
+
+    // Поріг розміру журналу (у байтах), після якого запускається фонове ущільнення
+    public void setJournalCompactionThreshold(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("Поріг має бути додатним");
+        journalCompactionBytes = bytes;
+    }
+
+    /**
+     * Одразу записує новий знімок і вкорочує журнал (чекає на фонове
+     * ущільнення, якщо воно триває).
+     */
+    public void compactJournal() throws IOException {
+        if (journal == null) return;
+        // попереднє ущільнення (якщо ще йде) виконається раніше в тому самому потоці
+        startCompaction();
+        awaitCompaction();
+    }
+
+    /**
+     * Завершує фонове ущільнення і закриває журнал. Дані в пам'яті
+     * лишаються; подальші зміни не журналюються.
+     *
+     * @throws IOException якщо фонове ущільнення завершилось помилкою
+     *                     (журнал при цьому лишається цілим)
+     */
+    public void closeJournal() throws IOException {
+        if (journal == null) return;
+        RosterJournal closing = journal;
+        journal = null;
+        try {
+            awaitCompaction();
+        } finally {
+            snapshotPath = null;
+            closing.close();
+        }
+    }
+
+    // Зміна спершу дописується в журнал, потім вноситься в масив (див. openJournal)
+    @Override
+    public void modifyServiceman(int index, String name, String rank, Integer years, String positionIfOfficer) {
+        if (journal != null) {
+            checkJournaledIndex(index);
+            try {
+                journal.appendModify(index, name, rank, years, positionIfOfficer);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        super.modifyServiceman(index, name, rank, years, positionIfOfficer);
+        if (journal != null) journalAppended();
+    }
+
+    @Override
+    public void addServicemen(Serviceman[] added) {
+        if (journal != null) {
+            for (Serviceman s : added) {
+                Objects.requireNonNull(s, "s");
+            }
+            try {
+                journal.appendInserts(added);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        super.addServicemen(added);
+        if (journal != null) journalAppended();
+    }
+
+    @Override
+    public Serviceman removeServiceman(int index) {
+        if (journal != null) {
+            checkJournaledIndex(index);
+            try {
+                journal.appendDelete(index);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        Serviceman removed = super.removeServiceman(index);
+        if (journal != null) journalAppended();
+        return removed;
+    }
+
+    // Ті самі перевірки, що й у базовому класі, але до запису в журнал:
+    // зміна, яку масив відхилить, не має потрапити на диск
+    private void checkJournaledIndex(int index) {
+        if (staff == null && columns == null) throw new IllegalStateException("Масив не ініціалізовано");
+        if (index < 0 || index >= getSize())
+            throw new IndexOutOfBoundsException("Невірний індекс: " + index);
+    }
+
+    @Override
+    public void sortByYearsAscending() {
+        super.sortByYearsAscending();
+        journalSort(RosterJournal.OP_SORT_YEARS, false);
+    }
+
+    @Override
+    public void sortByYearsDescending() {
+        super.sortByYearsDescending();
+        journalSort(RosterJournal.OP_SORT_YEARS, true);
+    }
+
+    @Override
+    public void sortByNameAscending() {
+        super.sortByNameAscending();
+        journalSort(RosterJournal.OP_SORT_NAME, false);
+    }
+
+    @Override
+    public void sortByNameDescending() {
+        super.sortByNameDescending();
+        journalSort(RosterJournal.OP_SORT_NAME, true);
+    }
+
+    // Повна заміна даних не виражається записами журналу, тож одразу пишеться знімок.
+    // initDefault викликається ще з конструктора, коли журналу немає.
+    @Override
+    public void initDefault() {
+        super.initDefault();
+        snapshotReplaced();
+    }
+
+    @Override
+    public void setStaff(Serviceman[] staff) {
+        super.setStaff(staff);
+        snapshotReplaced();
+    }
+
+    @Override
+    void setColumns(ServicemanColumns columns) {
+        super.setColumns(columns);
+        snapshotReplaced();
+    }
+
+    private void journalSort(byte op, boolean descending) {
+        if (journal == null) return;
+        try {
+            journal.appendSort(op, descending);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        journalAppended();
+    }
+
+    private void snapshotReplaced() {
+        if (journal == null) return;
+        try {
+            compactJournal();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Після запису: якщо журнал завеликий і ущільнення ще не йде, стартує нове.
+    // Рядки копіюються тут, у потоці менеджера, а на диск пишуться у фоні.
+    private void journalAppended() {
+        if (journal.size() < journalCompactionBytes) return;
+        if (compaction != null && !compaction.isDone()) return;
+        startCompaction();
+    }
+
+    // Знімок пишеться в потоці вводу-виводу, тож не перетинається з фоновими знімками
+    private void startCompaction() {
+        startCompaction(ServicemanBinaryFile.CODEC_NONE, NO_PROGRESS);
+    }
+
+    private void startCompaction(short codec, IntConsumer progress) {
+        ServicemanBinaryFile.Rows rows = freezeRows();
+        long seq = journal.getLastSeq();
+        RosterJournal target = journal;
+        Path snapshot = snapshotPath;
+        compaction = io().submit(() -> {
+            writeSnapshot(snapshot, rows, seq, codec, progress);
+            target.dropThrough(seq);
+            return null;
+        });
+    }
+
+    private boolean isSnapshotPath(Path path) throws IOException {
+        if (snapshotPath == null) return false;
+        if (path.toAbsolutePath().normalize().equals(snapshotPath.toAbsolutePath().normalize())) return true;
+        return Files.exists(path) && Files.exists(snapshotPath) && Files.isSameFile(path, snapshotPath);
+    }
+
+    private void awaitCompaction() throws IOException {
+        Future<?> pending = compaction;
+        compaction = null;
+        if (pending == null) return;
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    pending.get();
+                    return;
+                } catch (InterruptedException ex) {
+                    // запис знімка не можна кинути напівдорозі
+                    interrupted = true;
                 }
             }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
         }
+    }
+
+    /**
+     * Закриває журнал (див. {@link #closeJournal()}), дочікується фонових
+     * знімків і зупиняє потік вводу-виводу. Дані в пам'яті лишаються;
+     * менеджером можна користуватися й далі — потік створиться знову, коли
+     * знадобиться.
+     *
+     * @throws IOException якщо фонове ущільнення завершилось помилкою
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeJournal();
+        } finally {
+            if (io != null) {
+                ExecutorService stopping = io;
+                io = null;
+                stopping.shutdown();
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        // уже поставлені знімки дописуються до кінця
+                        if (stopping.awaitTermination(1, TimeUnit.SECONDS)) break;
+                    } catch (InterruptedException ex) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private ExecutorService io() {
+        if (io == null) {
+            io = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "roster-io");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return io;
+    }
+
+    // Незмінна копія поточних рядків для запису знімка. У колонковому режимі
+    // стовпці стають спільними (копіювання під час запису, O(1)); в об'єктному
+    // об'єкти змінні, тож рядки копіюються у стовпці — у пам'яті, без диска.
+    private ServicemanBinaryFile.Rows freezeRows() {
+        ServicemanColumns frozen = columns != null ? columns.freeze()
+                : ServicemanColumns.of(staff == null ? new Serviceman[0] : staff);
+        return ServicemanBinaryFile.rowsOf(frozen);
+    }
+
+    private static void writeSnapshot(Path snapshot, ServicemanBinaryFile.Rows rows, long seq) throws IOException {
+        writeSnapshot(snapshot, rows, seq, ServicemanBinaryFile.CODEC_NONE, NO_PROGRESS);
+    }
+
+    // Знімок пишеться у тимчасовий файл і атомарно замінює попередній
+    private static void writeSnapshot(Path snapshot, ServicemanBinaryFile.Rows rows, long seq,
+                                      short codec, IntConsumer progress) throws IOException {
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            ServicemanBinaryFile.write(tmp, rows, seq, codec, progress);
+            // знімок має бути на диску раніше, ніж з журналу зникнуть враховані в ньому записи
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
 
-        setStaff(list.toArray(new Serviceman[0]));
+    private static Path journalPath(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".journal");
     }
 }
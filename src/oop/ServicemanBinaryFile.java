@@ -0,0 +1,990 @@
+package oop;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Бінарний файл особового складу з довільним доступом до записів.
+ *
+ * <p>Формат версії 2 (усі числа — big-endian):</p>
+ * <pre>
+ * заголовок, 32 байти:
+ *   int   magic              ({@link #MAGIC}, «SRVM»)
+ *   short version            ({@link #VERSION})
+ *   short codec              ({@link #CODEC_NONE} або {@link #CODEC_DEFLATE})
+ *   long  count              кількість записів
+ *   long  offsetTableOffset  позиція таблиці зміщень
+ *   long  journalSeq         останній запис журналу змін, врахований у файлі
+ *                            ({@link RosterJournal}; 0 — без журналу)
+ * таблиця зміщень: long на запис — позиція запису у файлі
+ * записи: byte type, UTF name, UTF rank, int years, UTF position
+ * </pre>
+ *
+ * <p>Стиснений варіант ({@link #CODEC_DEFLATE}) групує записи у блоки до
+ * {@link #BLOCK_RECORDS} записів (або до {@link #BLOCK_BYTES} байтів) і
+ * стискає кожен блок окремо (Deflate, {@link java.util.zip}). Замість
+ * таблиці зміщень записів — таблиця блоків у кінці файлу:</p>
+ * <pre>
+ * заголовок — як вище, offsetTableOffset вказує на таблицю блоків
+ * блоки: стиснені байти блоку
+ * таблиця блоків:
+ *   int blockCount
+ *   на блок: long offset, int packedLength, int rawLength, int firstRecord
+ * блок після розпакування: записи підряд, далі int-зміщення кожного
+ * запису від початку блоку і int кількість записів
+ * </pre>
+ *
+ * <p>Рядки звань і посад повторюються, тож стиснення суттєво зменшує
+ * файл. Блоки стискаються й розпаковуються у прямі буфери з пулу
+ * ({@link DirectBufferPool}). Усі методи читання працюють однаково для
+ * обох кодеків: кожен потік тримає останній розпакований блок, тож
+ * послідовне читання розпаковує кожен блок один раз. Кодек визначається
+ * за заголовком під час відкриття.</p>
+ *
+ * <p>Запис має той самий вигляд, що й у попередньому форматі (ЛР10), але
+ * завдяки таблиці зміщень запис {@code i} читається без декодування
+ * попередніх. Файл відображається в пам'ять ({@link FileChannel#map})
+ * сегментами по 1 ГБ із перекриттям, більшим за найдовший можливий запис,
+ * тож кожен запис цілком лежить в одному сегменті. Читання використовує
+ * лише абсолютні позиції, тому один відкритий файл можна читати з кількох
+ * потоків.</p>
+ *
+ * <p>Відображення звільняє лише збирач сміття, і {@link #close()} його не
+ * прискорює, а на Windows відображений файл не можна замінити
+ * ({@code Files.move(..., REPLACE_EXISTING)}), поки відображення живе.
+ * Тому менеджер, який читає файл цілком і потім перезаписує його (знімок
+ * журналу, повторне збереження), відкриває файл через
+ * {@link #openUnmapped(Path)}: ті самі методи читають файл позиційними
+ * читаннями каналу у вікна з {@link DirectBufferPool} (по два вікна на
+ * потік — для таблиці зміщень і для записів), і після закриття файл нічим
+ * не утримується.</p>
+ *
+ * <p>Файли попереднього формату ({@code int count} і записи підряд)
+ * розпізнаються за відсутністю сигнатури: для них таблиця зміщень
+ * будується одним проходом під час відкриття, далі доступ той самий.</p>
+ *
+ * <p>Для підрахунків, фільтрів і показу сторінки об'єкти не потрібні:
+ * {@link View} — це один багаторазовий «курсор» над відображеним файлом,
+ * який декодує поле лише під час виклику гетера, а стаж читає прямо з
+ * буфера. Купа при цьому не росте з розміром файлу (для попереднього
+ * формату — лише таблиця зміщень, 8 байтів на запис).</p>
+ */
+public final class ServicemanBinaryFile implements AutoCloseable {
+
+    /** Сигнатура формату: байти «SRVM». */
+    public static final int MAGIC = 0x5352564D;
+
+    /** Поточна версія формату. */
+    public static final short VERSION = 2;
+
+    /** Кодек записів: без стиснення. */
+    public static final short CODEC_NONE = 0;
+
+    /** Кодек записів: блоки, стиснені Deflate. */
+    public static final short CODEC_DEFLATE = 1;
+
+    /** Найбільша кількість записів у стисненому блоці. */
+    static final int BLOCK_RECORDS = 4096;
+
+    /** Блок закривається, щойно його записи займають стільки байтів. */
+    static final int BLOCK_BYTES = 1 << 18;
+
+    private static final int BLOCK_ENTRY_BYTES = 20;
+
+    static final int HEADER_BYTES = 32;
+
+    /** Розмір сегмента відображення. */
+    private static final long SEGMENT = 1L << 30;
+
+    /** Перекриття сегментів: не менше за найдовший запис (3 рядки writeUTF + тип + стаж). */
+    private static final long OVERLAP = 1L << 18;
+
+    /** Крок вікон читання без відображення; вікно з перекриттям вміщується в буфер пулу. */
+    private static final long WINDOW = 1L << 19;
+
+    /** Скільки зміщень записувати за раз під час збереження. */
+    private static final int OFFSET_BATCH = 4096;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    /** Відображені сегменти; {@code null} — читання вікнами або файл закрито. */
+    private MappedByteBuffer[] segments;
+    private final boolean mapped;
+    private final int version;
+    private final int count;
+    /** Позиція таблиці зміщень (версія 2). */
+    private final long offsetTable;
+    /** Зміщення записів, зібрані проходом по файлу (попередній формат). */
+    private final long[] legacyOffsets;
+    private final long journalSeq;
+    private final int codec;
+
+    // Таблиця блоків стисненого файлу; blockFirst == null — файл без стиснення.
+    // У стисненому файлі позиція запису «віртуальна»: номер блоку * SEGMENT +
+    // зміщення в розпакованому блоці (див. segment()).
+    private int[] blockFirst;
+    private long[] blockOffsets;
+    private int[] blockPacked;
+    private int[] blockRaw;
+
+    /** Останній розпакований блок для кожного потоку. */
+    private final ThreadLocal<BlockCache> blockCache = ThreadLocal.withInitial(BlockCache::new);
+
+    /** Вікна читання без відображення для кожного потоку. */
+    private final ThreadLocal<WindowCache> windowCache = ThreadLocal.withInitial(WindowCache::new);
+
+    private ServicemanBinaryFile(FileChannel channel, boolean mapped) throws IOException {
+        this.channel = channel;
+        this.mapped = mapped;
+        long size = channel.size();
+        fileSize = size;
+        if (mapped) {
+            int segmentCount = (int) Math.max(1, (size + SEGMENT - 1) / SEGMENT);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int k = 0; k < segmentCount; k++) {
+                long from = k * SEGMENT;
+                long len = Math.min(size - from, SEGMENT + OVERLAP);
+                segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.max(len, 0));
+            }
+        }
+
+        if (size >= HEADER_BYTES && getInt(0) == MAGIC) {
+            version = getShort(4);
+            if (version != VERSION) {
+                throw new IOException("Непідтримувана версія файлу: " + version);
+            }
+            codec = getShort(6);
+            if (codec != CODEC_NONE && codec != CODEC_DEFLATE) {
+                throw new IOException("Непідтримуваний кодек файлу: " + codec);
+            }
+            long n = getLong(8);
+            offsetTable = getLong(16);
+            if (n < 0 || n > Integer.MAX_VALUE || offsetTable < HEADER_BYTES
+                    || (codec == CODEC_NONE && offsetTable + 8 * n > size)) {
+                throw new IOException("Пошкоджений заголовок файлу");
+            }
+            count = (int) n;
+            legacyOffsets = null;
+            journalSeq = getLong(24);
+            if (codec == CODEC_DEFLATE) {
+                readBlockTable(size);
+            }
+        } else {
+            version = 1;
+            offsetTable = -1;
+            journalSeq = 0;
+            codec = CODEC_NONE;
+            if (size < 4) throw new IOException("Файл занадто короткий");
+            int n = getInt(0);
+            if (n < 0) throw new IOException("Пошкоджений заголовок файлу");
+            count = n;
+            legacyOffsets = scanLegacy(n, size);
+        }
+    }
+
+    /**
+     * Відкриває файл будь-якого з підтримуваних форматів.
+     *
+     * @param path шлях до файлу
+     * @return відкритий файл (закривається через {@link #close()})
+     * @throws IOException якщо файл не вдалося прочитати або він пошкоджений
+     */
+    public static ServicemanBinaryFile open(Path path) throws IOException {
+        return open(path, true);
+    }
+
+    /**
+     * Відкриває файл без відображення в пам'ять: записи читаються
+     * позиційними читаннями каналу. Після {@link #close()} файл можна
+     * одразу замінити чи видалити на будь-якій ОС.
+     *
+     * @param path шлях до файлу
+     * @return відкритий файл (закривається через {@link #close()})
+     * @throws IOException якщо файл не вдалося прочитати або він пошкоджений
+     */
+    static ServicemanBinaryFile openUnmapped(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    private static ServicemanBinaryFile open(Path path, boolean mapped) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ServicemanBinaryFile(ch, mapped);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /** @return версія формату: 1 — попередній формат, 2 — з таблицею зміщень */
+    public int getVersion() { return version; }
+
+    /** @return кодек записів ({@link #CODEC_NONE} або {@link #CODEC_DEFLATE}) */
+    public int getCodec() { return codec; }
+
+    /** @return останній запис журналу змін, врахований у файлі (0 — без журналу) */
+    public long getJournalSeq() { return journalSeq; }
+
+    /** @return кількість записів (з заголовка, без читання записів) */
+    public int size() { return count; }
+
+    /**
+     * Читає один запис.
+     *
+     * @param index номер запису
+     * @return новий {@link Soldier} або {@link Officer}
+     * @throws IOException якщо запис пошкоджений
+     */
+    public Serviceman getServiceman(int index) throws IOException {
+        Serviceman[] one = new Serviceman[1];
+        readRows(index, index + 1, (type, name, rank, years, position) -> one[0] = type == ServicemanColumns.TYPE_OFFICER
+                ? new Officer(name, rank, years, position)
+                : new Soldier(name, rank, years));
+        return one[0];
+    }
+
+    /**
+     * Читає записи {@code [from, to)}.
+     *
+     * @param from перший запис (включно)
+     * @param to   останній запис (не включно)
+     * @return нові об'єкти в порядку файлу
+     * @throws IOException якщо запис пошкоджений
+     */
+    public Serviceman[] read(int from, int to) throws IOException {
+        Serviceman[] arr = new Serviceman[Math.max(to - from, 0)];
+        int[] pos = new int[1];
+        readRows(from, to, (type, name, rank, years, position) -> arr[pos[0]++] = type == ServicemanColumns.TYPE_OFFICER
+                ? new Officer(name, rank, years, position)
+                : new Soldier(name, rank, years));
+        return arr;
+    }
+
+    /**
+     * Читає стаж запису, не декодуючи рядків.
+     *
+     * @param index номер запису
+     * @return стаж служби
+     */
+    public int getYears(int index) {
+        long p = offset(Objects.checkIndex(index, count)) + 1;
+        p += 2 + getUnsignedShort(p);
+        p += 2 + getUnsignedShort(p);
+        return getInt(p);
+    }
+
+    /**
+     * Рахує записи зі стажем у діапазоні {@code [fromYears, toYears]},
+     * читаючи лише поле стажу кожного запису.
+     *
+     * @param fromYears нижня межа (включно)
+     * @param toYears   верхня межа (включно)
+     * @return кількість записів
+     */
+    public int countByYearsRange(int fromYears, int toYears) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int y = getYears(i);
+            if (y >= fromYears && y <= toYears) found++;
+        }
+        return found;
+    }
+
+    /**
+     * Повертає номери записів зі стажем у діапазоні {@code [fromYears, toYears]}.
+     * Стаж читається з буфера, рядки не декодуються.
+     *
+     * @param fromYears нижня межа (включно)
+     * @param toYears   верхня межа (включно)
+     * @return номери записів у порядку файлу
+     */
+    public int[] findByYearsRange(int fromYears, int toYears) {
+        int[] found = new int[16];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int y = getYears(i);
+            if (y >= fromYears && y <= toYears) {
+                if (n == found.length) found = Arrays.copyOf(found, n * 2);
+                found[n++] = i;
+            }
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    /**
+     * Створює курсор для читання записів без створення об'єктів.
+     * Курсор не потокобезпечний: кожному потоку — власний.
+     *
+     * @return курсор, встановлений на запис 0 (якщо записи є)
+     */
+    public View view() {
+        View v = new View();
+        if (count > 0) v.moveTo(0);
+        return v;
+    }
+
+    /**
+     * Легке представлення запису над відображеним файлом (flyweight).
+     * Один об'єкт переставляється між записами методом {@link #moveTo(int)};
+     * рядки декодуються лише під час виклику гетера, тож прохід по всьому
+     * файлу курсором не створює об'єкта на запис.
+     */
+    public final class View {
+        private int index = -1;
+        private long start;
+        /** Позиція поля стажу; -1, поки не обчислена. */
+        private long yearsPos;
+
+        private View() {
+        }
+
+        /**
+         * Переставляє курсор на запис.
+         *
+         * @param index номер запису
+         * @return цей самий курсор
+         */
+        public View moveTo(int index) {
+            this.start = offset(Objects.checkIndex(index, count));
+            this.index = index;
+            this.yearsPos = -1;
+            return this;
+        }
+
+        /** @return номер поточного запису */
+        public int getIndex() { return index; }
+
+        public boolean isOfficer() {
+            return getByte(start()) == ServicemanColumns.TYPE_OFFICER;
+        }
+
+        /** @return стаж, прочитаний прямо з буфера */
+        public int getYearsOfService() {
+            return getInt(yearsPos());
+        }
+
+        public String getName() throws UTFDataFormatException {
+            return readUTF(new long[] { start() + 1 });
+        }
+
+        public String getRank() throws UTFDataFormatException {
+            return readUTF(new long[] { start() + 3 + getUnsignedShort(start + 1) });
+        }
+
+        /** @return посада офіцера або {@code null} для солдата */
+        public String getPosition() throws UTFDataFormatException {
+            if (!isOfficer()) return null;
+            return readUTF(new long[] { yearsPos() + 4 });
+        }
+
+        /**
+         * Створює звичайний об'єкт для поточного запису.
+         *
+         * @return новий {@link Soldier} або {@link Officer}
+         * @throws IOException якщо запис пошкоджений
+         */
+        public Serviceman toServiceman() throws IOException {
+            return getServiceman(index);
+        }
+
+        private long start() {
+            if (index < 0) throw new IllegalStateException("Курсор не встановлено на запис");
+            return start;
+        }
+
+        private long yearsPos() {
+            if (yearsPos < 0) {
+                long p = start() + 1;
+                p += 2 + getUnsignedShort(p);
+                p += 2 + getUnsignedShort(p);
+                yearsPos = p;
+            }
+            return yearsPos;
+        }
+    }
+
+    /**
+     * Передає записи {@code [from, to)} у приймач без створення об'єктів.
+     *
+     * @param from перший запис (включно)
+     * @param to   останній запис (не включно)
+     * @param sink приймач записів
+     * @throws IOException якщо запис пошкоджений
+     */
+    void readRows(int from, int to, ServicemanRowSink sink) throws IOException {
+        if (from < 0 || to > count || from > to) {
+            throw new IndexOutOfBoundsException("Невірний діапазон: [" + from + ", " + to + ")");
+        }
+        long[] cursor = new long[1];
+        for (int i = from; i < to; i++) {
+            if ((i & 4095) == 0) {
+                ServicemanArrayManager.checkCancelled();
+            }
+            cursor[0] = offset(i);
+            byte type = getByte(cursor[0]++);
+            String name = readUTF(cursor);
+            String rank = readUTF(cursor);
+            int years = getInt(cursor[0]);
+            cursor[0] += 4;
+            String position = readUTF(cursor);
+            if (type == ServicemanColumns.TYPE_OFFICER) {
+                sink.row(ServicemanColumns.TYPE_OFFICER, name, rank, years, position);
+            } else {
+                sink.row(ServicemanColumns.TYPE_SOLDIER, name, rank, years, null);
+            }
+        }
+    }
+
+    /**
+     * Закриває файл. Посилання на відображені сегменти відпускаються, але
+     * саме відображення живе, доки сегменти не прибере збирач сміття (див.
+     * {@link #openUnmapped(Path)}). Читати файл після закриття не можна.
+     */
+    @Override
+    public void close() throws IOException {
+        // буфери потоку, що закриває файл, повертаються в пул; буфери
+        // інших потоків звільнить збирач сміття
+        BlockCache cache = blockCache.get();
+        blockCache.remove();
+        cache.release();
+        WindowCache windows = windowCache.get();
+        windowCache.remove();
+        windows.release();
+        segments = null;
+        channel.close();
+    }
+
+    // ---------- Запис ----------
+
+    /**
+     * Доступ до рядків, що зберігаються: менеджер або знімок стовпців.
+     * Назви методів збігаються з методами {@link ServicemanArrayManager}.
+     */
+    interface Rows {
+        int getSize();
+
+        boolean isOfficerAt(int i);
+
+        String getNameAt(int i);
+
+        String getRankAt(int i);
+
+        int getYearsAt(int i);
+
+        String getPositionAt(int i);
+    }
+
+    /** Представляє менеджер як {@link Rows}. */
+    static Rows rowsOf(ServicemanArrayManager m) {
+        return new Rows() {
+            public int getSize() { return m.getSize(); }
+            public boolean isOfficerAt(int i) { return m.isOfficerAt(i); }
+            public String getNameAt(int i) { return m.getNameAt(i); }
+            public String getRankAt(int i) { return m.getRankAt(i); }
+            public int getYearsAt(int i) { return m.getYearsAt(i); }
+            public String getPositionAt(int i) { return m.getPositionAt(i); }
+        };
+    }
+
+    /** Представляє колонкове сховище як {@link Rows}. */
+    static Rows rowsOf(ServicemanColumns c) {
+        return new Rows() {
+            public int getSize() { return c.size(); }
+            public boolean isOfficerAt(int i) { return c.isOfficer(i); }
+            public String getNameAt(int i) { return c.name(i); }
+            public String getRankAt(int i) { return c.rank(i); }
+            public int getYearsAt(int i) { return c.years(i); }
+            public String getPositionAt(int i) { return c.position(i); }
+        };
+    }
+
+    /**
+     * Зберігає рядки у форматі версії 2. Таблиця зміщень розміщується
+     * одразу після заголовка й дописується пакетами, тож пам'ять не
+     * залежить від кількості записів. Заголовок пишеться останнім.
+     *
+     * @param path       шлях до файлу
+     * @param rows       рядки, що зберігаються
+     * @param journalSeq останній запис журналу змін, врахований у рядках
+     * @param progress   прогрес у відсотках
+     * @throws IOException якщо запис не вдався
+     */
+    static void write(Path path, Rows rows, long journalSeq, IntConsumer progress) throws IOException {
+        write(path, rows, journalSeq, CODEC_NONE, progress);
+    }
+
+    /**
+     * Зберігає рядки у форматі версії 2 з указаним кодеком.
+     *
+     * @param codec {@link #CODEC_NONE} або {@link #CODEC_DEFLATE}
+     * @see #write(Path, Rows, long, IntConsumer)
+     */
+    static void write(Path path, Rows rows, long journalSeq, short codec, IntConsumer progress)
+            throws IOException {
+        if (codec == CODEC_DEFLATE) {
+            writeDeflated(path, rows, journalSeq, progress);
+            return;
+        }
+        if (codec != CODEC_NONE) throw new IllegalArgumentException("Невідомий кодек: " + codec);
+        int n = rows.getSize();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long recordsStart = HEADER_BYTES + 8L * n;
+            ch.position(recordsStart);
+            CountingStream counter = new CountingStream(
+                    new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            DataOutputStream out = new DataOutputStream(counter);
+
+            ByteBuffer offsets = ByteBuffer.allocate(8 * OFFSET_BATCH);
+            long offsetsPos = HEADER_BYTES;
+            for (int i = 0; i < n; i++) {
+                if ((i & 4095) == 0) {
+                    ServicemanArrayManager.checkCancelled();
+                    progress.accept((int) (100L * i / n));
+                }
+                offsets.putLong(recordsStart + counter.written);
+                if (!offsets.hasRemaining()) {
+                    offsetsPos = flushOffsets(ch, offsets, offsetsPos);
+                }
+                writeRecord(out, rows, i);
+            }
+            out.flush();
+            flushOffsets(ch, offsets, offsetsPos);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort(CODEC_NONE)
+                    .putLong(n).putLong(HEADER_BYTES).putLong(journalSeq).flip();
+            writeFully(ch, header, 0);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Rows rows, int i) throws IOException {
+        if (rows.isOfficerAt(i)) {
+            String position = rows.getPositionAt(i);
+            out.writeByte(ServicemanColumns.TYPE_OFFICER);
+            out.writeUTF(rows.getNameAt(i));
+            out.writeUTF(rows.getRankAt(i));
+            out.writeInt(rows.getYearsAt(i));
+            out.writeUTF(position == null ? "" : position);
+        } else {
+            out.writeByte(ServicemanColumns.TYPE_SOLDIER);
+            out.writeUTF(rows.getNameAt(i));
+            out.writeUTF(rows.getRankAt(i));
+            out.writeInt(rows.getYearsAt(i));
+            out.writeUTF(""); // немає посади
+        }
+    }
+
+    /**
+     * Записує стиснений варіант: записи збираються у прямий буфер блоку,
+     * блок стискається в інший прямий буфер і дописується у файл. Таблиця
+     * блоків невелика (20 байтів на блок) і пишеться в кінці.
+     */
+    private static void writeDeflated(Path path, Rows rows, long journalSeq, IntConsumer progress)
+            throws IOException {
+        int n = rows.getSize();
+        ByteBuffer raw = DirectBufferPool.acquire();
+        ByteBuffer packed = DirectBufferPool.acquire();
+        // повтори звань і посад стискаються добре вже на найшвидшому рівні
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferStream(raw));
+            java.io.ByteArrayOutputStream tableBytes = new java.io.ByteArrayOutputStream();
+            DataOutputStream table = new DataOutputStream(tableBytes);
+            int[] recordOffsets = new int[BLOCK_RECORDS];
+            int inBlock = 0;
+            int blocks = 0;
+            long pos = HEADER_BYTES;
+            for (int i = 0; i < n; i++) {
+                if ((i & 4095) == 0) {
+                    ServicemanArrayManager.checkCancelled();
+                    progress.accept((int) (100L * i / n));
+                }
+                recordOffsets[inBlock++] = raw.position();
+                writeRecord(out, rows, i);
+                if (inBlock == BLOCK_RECORDS || raw.position() >= BLOCK_BYTES || i == n - 1) {
+                    for (int k = 0; k < inBlock; k++) raw.putInt(recordOffsets[k]);
+                    raw.putInt(inBlock);
+                    int rawLength = raw.position();
+                    raw.flip();
+                    deflater.reset();
+                    deflater.setInput(raw);
+                    deflater.finish();
+                    long start = pos;
+                    while (!deflater.finished()) {
+                        packed.clear();
+                        deflater.deflate(packed);
+                        packed.flip();
+                        int len = packed.remaining();
+                        writeFully(ch, packed, pos);
+                        pos += len;
+                    }
+                    table.writeLong(start);
+                    table.writeInt((int) (pos - start));
+                    table.writeInt(rawLength);
+                    table.writeInt(i + 1 - inBlock);
+                    blocks++;
+                    raw.clear();
+                    inBlock = 0;
+                }
+            }
+
+            long tablePos = pos;
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(blocks).flip();
+            writeFully(ch, count, tablePos);
+            writeFully(ch, ByteBuffer.wrap(tableBytes.toByteArray()), tablePos + 4);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort(CODEC_DEFLATE)
+                    .putLong(n).putLong(tablePos).putLong(journalSeq).flip();
+            writeFully(ch, header, 0);
+        } finally {
+            deflater.end();
+            DirectBufferPool.release(raw);
+            DirectBufferPool.release(packed);
+        }
+    }
+
+    /** Потік, що пише в буфер блоку. */
+    private static final class BufferStream extends OutputStream {
+        private final ByteBuffer buf;
+
+        BufferStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public void write(int b) {
+            buf.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buf.put(b, off, len);
+        }
+    }
+
+    private static long flushOffsets(FileChannel ch, ByteBuffer offsets, long pos) throws IOException {
+        offsets.flip();
+        int len = offsets.remaining();
+        writeFully(ch, offsets, pos);
+        offsets.clear();
+        return pos + len;
+    }
+
+    static void writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            pos += ch.write(buf, pos);
+        }
+    }
+
+    /** Рахує записані байти (DataOutputStream.size() обмежений типом int). */
+    private static final class CountingStream extends FilterOutputStream {
+        long written;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+    }
+
+    // ---------- Читання з відображених сегментів або вікон ----------
+
+    private long offset(int index) {
+        if (legacyOffsets != null) return legacyOffsets[index];
+        if (blockFirst != null) {
+            int b = blockOf(index);
+            ByteBuffer raw = block(b);
+            int records = raw.getInt(raw.limit() - 4);
+            int at = raw.limit() - 4 - 4 * records + 4 * (index - blockFirst[b]);
+            return b * SEGMENT + raw.getInt(at);
+        }
+        return getLong(offsetTable + 8L * index);
+    }
+
+    /** Читає й перевіряє таблицю блоків стисненого файлу. */
+    private void readBlockTable(long size) throws IOException {
+        if (offsetTable + 4 > size) throw new IOException("Пошкоджений заголовок файлу");
+        int blocks = getInt(offsetTable);
+        if (blocks < 0 || offsetTable + 4 + (long) blocks * BLOCK_ENTRY_BYTES > size
+                || (blocks == 0) != (count == 0)) {
+            throw new IOException("Пошкоджена таблиця блоків");
+        }
+        int[] first = new int[blocks];
+        long[] offsets = new long[blocks];
+        int[] packed = new int[blocks];
+        int[] raw = new int[blocks];
+        long p = offsetTable + 4;
+        for (int b = 0; b < blocks; b++, p += BLOCK_ENTRY_BYTES) {
+            offsets[b] = getLong(p);
+            packed[b] = getInt(p + 8);
+            raw[b] = getInt(p + 12);
+            first[b] = getInt(p + 16);
+            if (offsets[b] < HEADER_BYTES || packed[b] < 0 || offsets[b] + packed[b] > offsetTable
+                    || packed[b] > DirectBufferPool.BUFFER_BYTES
+                    || raw[b] < 4 || raw[b] > DirectBufferPool.BUFFER_BYTES
+                    || (b == 0 ? first[b] != 0 : first[b] <= first[b - 1])
+                    || first[b] >= count) {
+                throw new IOException("Пошкоджена таблиця блоків");
+            }
+        }
+        blockOffsets = offsets;
+        blockPacked = packed;
+        blockRaw = raw;
+        blockFirst = first;
+    }
+
+    private int blockOf(int index) {
+        int b = Arrays.binarySearch(blockFirst, index);
+        return b >= 0 ? b : -b - 2;
+    }
+
+    /** Розпакований блок і розпаковувач одного потоку. */
+    private static final class BlockCache {
+        int block = -1;
+        ByteBuffer raw;
+        Inflater inflater;
+
+        void release() {
+            if (raw != null) {
+                DirectBufferPool.release(raw);
+                inflater.end();
+                raw = null;
+            }
+        }
+    }
+
+    /**
+     * Повертає розпакований блок (з кешу потоку або розпаковує заново).
+     * Стиснені байти читаються з каналу в буфер з пулу.
+     */
+    private ByteBuffer block(int b) {
+        BlockCache cache = blockCache.get();
+        if (cache.block == b) return cache.raw;
+        if (cache.raw == null) {
+            cache.raw = DirectBufferPool.acquire();
+            cache.inflater = new Inflater();
+        }
+        cache.block = -1;
+        ByteBuffer packed = DirectBufferPool.acquire();
+        try {
+            long p = blockOffsets[b];
+            packed.limit(blockPacked[b]);
+            while (packed.hasRemaining()) {
+                if (channel.read(packed, p + packed.position()) < 0) {
+                    throw new IOException("Файл обірвано в стисненому блоці " + b);
+                }
+            }
+            packed.flip();
+            Inflater inflater = cache.inflater;
+            inflater.reset();
+            inflater.setInput(packed);
+            ByteBuffer raw = cache.raw.clear().limit(blockRaw[b]);
+            while (raw.hasRemaining()) {
+                if (inflater.inflate(raw) == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Пошкоджений стиснений блок " + b);
+                }
+            }
+            raw.flip();
+            int records = raw.getInt(raw.limit() - 4);
+            int expected = (b + 1 < blockFirst.length ? blockFirst[b + 1] : count) - blockFirst[b];
+            if (records != expected || 4 + 4L * records > raw.limit()) {
+                throw new IOException("Пошкоджений стиснений блок " + b);
+            }
+        } catch (IOException | DataFormatException ex) {
+            throw new UncheckedIOException(ex instanceof IOException ? (IOException) ex
+                    : new IOException("Пошкоджений стиснений блок " + b, ex));
+        } finally {
+            DirectBufferPool.release(packed);
+        }
+        cache.block = b;
+        return cache.raw;
+    }
+
+    /** Прохід по записах попереднього формату: лише довжини, без декодування. */
+    private long[] scanLegacy(int n, long size) throws IOException {
+        long[] offsets = new long[n];
+        long p = 4;
+        for (int i = 0; i < n; i++) {
+            if ((i & 4095) == 0) {
+                ServicemanArrayManager.checkCancelled();
+            }
+            offsets[i] = p;
+            p = skipUTF(p + 1, size, i);
+            p = skipUTF(p, size, i);
+            p = skipUTF(p + 4, size, i);
+            if (p > size) throw new IOException("Файл обірвано на записі " + i);
+        }
+        return offsets;
+    }
+
+    private long skipUTF(long p, long size, int record) throws IOException {
+        if (p + 2 > size) throw new IOException("Файл обірвано на записі " + record);
+        return p + 2 + getUnsignedShort(p);
+    }
+
+    /** Два останні вікна файлу одного потоку (без відображення). */
+    private static final class WindowCache {
+        final long[] start = { -1, -1 };
+        final ByteBuffer[] buf = new ByteBuffer[2];
+
+        void release() {
+            for (int k = 0; k < 2; k++) {
+                DirectBufferPool.release(buf[k]);
+                buf[k] = null;
+                start[k] = -1;
+            }
+        }
+    }
+
+    /**
+     * Буфер, що містить байт {@code pos}: розпакований блок, відображений
+     * сегмент або вікно, прочитане з каналу. Позиція в буфері — {@link #index(long)}.
+     */
+    private ByteBuffer segment(long pos) {
+        if (blockFirst != null) return block((int) (pos / SEGMENT));
+        if (mapped) return segments[(int) (pos / SEGMENT)];
+        return window(pos - pos % WINDOW);
+    }
+
+    private int index(long pos) {
+        return (int) (blockFirst != null || mapped ? pos % SEGMENT : pos % WINDOW);
+    }
+
+    /**
+     * Повертає вікно {@code [start, start + WINDOW + OVERLAP)} з кешу потоку
+     * або читає його в буфер, який використовувався найдавніше. Двох вікон
+     * вистачає, щоб чергування таблиці зміщень і записів не перечитувало файл.
+     */
+    private ByteBuffer window(long start) {
+        WindowCache w = windowCache.get();
+        if (w.start[0] == start) return w.buf[0];
+        if (w.start[1] != start) {
+            if (start >= fileSize) {
+                throw new UncheckedIOException(new IOException("Позиція за межами файлу: " + start));
+            }
+            ByteBuffer buf = w.buf[1] != null ? w.buf[1].clear() : DirectBufferPool.acquire();
+            w.buf[1] = buf;
+            w.start[1] = -1;
+            buf.limit((int) Math.min(fileSize - start, WINDOW + OVERLAP));
+            try {
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, start + buf.position()) < 0) {
+                        throw new IOException("Файл обірвано на позиції " + (start + buf.position()));
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            buf.flip();
+            w.start[1] = start;
+        }
+        // останнє використане вікно — першим
+        ByteBuffer buf = w.buf[1];
+        w.buf[1] = w.buf[0];
+        w.buf[0] = buf;
+        w.start[1] = w.start[0];
+        w.start[0] = start;
+        return buf;
+    }
+
+    private byte getByte(long pos) {
+        return segment(pos).get(index(pos));
+    }
+
+    private int getUnsignedShort(long pos) {
+        return segment(pos).getShort(index(pos)) & 0xFFFF;
+    }
+
+    private short getShort(long pos) {
+        return segment(pos).getShort(index(pos));
+    }
+
+    private int getInt(long pos) {
+        return segment(pos).getInt(index(pos));
+    }
+
+    private long getLong(long pos) {
+        return segment(pos).getLong(index(pos));
+    }
+
+    /**
+     * Декодує рядок у форматі {@link java.io.DataInput#readUTF()} і
+     * зсуває курсор за нього.
+     */
+    private String readUTF(long[] cursor) throws UTFDataFormatException {
+        long start = cursor[0];
+        int len = getUnsignedShort(start);
+        ByteBuffer seg = segment(start);
+        int p = index(start) + 2;
+        int end = p + len;
+        cursor[0] = start + 2 + len;
+
+        char[] chars = new char[len];
+        int n = 0;
+        // ASCII — найчастіший випадок для рядків без кирилиці
+        while (p < end) {
+            int c = seg.get(p) & 0xFF;
+            if (c >= 0x80) break;
+            chars[n++] = (char) c;
+            p++;
+        }
+        while (p < end) {
+            int c = seg.get(p) & 0xFF;
+            switch (c >> 4) {
+                case 0, 1, 2, 3, 4, 5, 6, 7 -> {
+                    chars[n++] = (char) c;
+                    p++;
+                }
+                case 12, 13 -> {
+                    if (p + 2 > end) throw new UTFDataFormatException("Обірваний символ у рядку");
+                    int c2 = seg.get(p + 1);
+                    if ((c2 & 0xC0) != 0x80) throw new UTFDataFormatException("Некоректний символ у рядку");
+                    chars[n++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    p += 2;
+                }
+                case 14 -> {
+                    if (p + 3 > end) throw new UTFDataFormatException("Обірваний символ у рядку");
+                    int c2 = seg.get(p + 1);
+                    int c3 = seg.get(p + 2);
+                    if ((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("Некоректний символ у рядку");
+                    }
+                    chars[n++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    p += 3;
+                }
+                default -> throw new UTFDataFormatException("Некоректний символ у рядку");
+            }
+        }
+        return new String(chars, 0, n);
+    }
+}
@@ -0,0 +1,511 @@
+package oop;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Колонковий файл особового складу: кожне поле зберігається окремим
+ * стовпцем, а стовпці поділено на блоки по {@link #BLOCK_ROWS} рядків.
+ *
+ * <p>Для кожного блоку в індексі записано найменший і найбільший стаж,
+ * тож запит за діапазоном стажу ({@link #countByYearsRange(int, int)},
+ * {@link #findByYearsRange(int, int)}, {@link #readByYearsRange(int, int)})
+ * пропускає блоки, що не перетинаються з діапазоном, зовсім не читаючи
+ * їх, для блоків, що повністю в діапазоні, рахує рядки за індексом, а
+ * з решти блоків читає лише потрібні стовпці: для підрахунку — тільки
+ * стаж, рядкові стовпці — лише якщо в блоці є збіги. Чим краще дані
+ * впорядковані за стажем (наприклад, після sortByYearsAscending), тим
+ * більше блоків пропускається.</p>
+ *
+ * <p>Формат (усі числа — big-endian):</p>
+ * <pre>
+ * заголовок, 48 байтів:
+ *   int   magic            ({@link #MAGIC}, «SRVC»)
+ *   short version          ({@link #VERSION})
+ *   short codec            (0 — без стиснення)
+ *   int   blockRows        рядків у повному блоці
+ *   int   blockCount
+ *   long  count            кількість рядків
+ *   long  dictionaryOffset словники звань і посад
+ *   long  blockIndexOffset індекс блоків
+ *   long  reserved
+ * блоки: для кожного блоку стовпці підряд
+ *   type      byte на рядок (0 — солдат, 1 — офіцер)
+ *   years     int на рядок
+ *   rank      int на рядок — код у словнику звань (-1 — немає)
+ *   position  int на рядок — код у словнику посад (-1 — немає)
+ *   name      int на рядок — довжина ПІБ у символах (-1 — немає),
+ *             далі символи всіх ПІБ блоку (UTF-16, по 2 байти)
+ * словники: int n, далі n рядків writeUTF — спершу звання, потім посади
+ * індекс блоків, на блок:
+ *   int rows, int minYears, int maxYears,
+ *   для кожного стовпця: long offset, int length
+ * </pre>
+ *
+ * <p>Читання використовує лише абсолютні позиції, тож один відкритий файл
+ * можна читати з кількох потоків.</p>
+ */
+public final class ServicemanColumnFile implements AutoCloseable {
+
+    /** Сигнатура формату: байти «SRVC». */
+    public static final int MAGIC = 0x53525643;
+
+    /** Поточна версія формату. */
+    public static final short VERSION = 1;
+
+    /** Рядків у блоці. */
+    static final int BLOCK_ROWS = 1 << 16;
+
+    static final int HEADER_BYTES = 48;
+
+    // Порядок стовпців у блоці та в індексі
+    private static final int COL_TYPE = 0;
+    private static final int COL_YEARS = 1;
+    private static final int COL_RANK = 2;
+    private static final int COL_POSITION = 3;
+    private static final int COL_NAME = 4;
+    private static final int COLUMNS = 5;
+
+    private static final int INDEX_ENTRY_BYTES = 12 + COLUMNS * 12;
+
+    private final FileChannel channel;
+    private final long count;
+    private final int blockRows;
+    private final int blockCount;
+    private final String[] ranks;
+    private final String[] positions;
+
+    private final int[] rowsInBlock;
+    private final int[] minYears;
+    private final int[] maxYears;
+    /** Зміщення і довжини стовпців: елемент {@code block * COLUMNS + column}. */
+    private final long[] columnOffsets;
+    private final int[] columnLengths;
+
+    private ServicemanColumnFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < HEADER_BYTES) throw new IOException("Файл занадто короткий");
+        ByteBuffer header = read(0, HEADER_BYTES, null);
+        if (header.getInt() != MAGIC) throw new IOException("Файл не є колонковим файлом особового складу");
+        int version = header.getShort();
+        if (version != VERSION) throw new IOException("Непідтримувана версія файлу: " + version);
+        int codec = header.getShort();
+        if (codec != 0) throw new IOException("Непідтримуваний кодек файлу: " + codec);
+        blockRows = header.getInt();
+        blockCount = header.getInt();
+        count = header.getLong();
+        long dictionaryOffset = header.getLong();
+        long indexOffset = header.getLong();
+        if (blockRows <= 0 || blockCount < 0 || count < 0 || count > Integer.MAX_VALUE
+                || (long) blockCount * blockRows < count
+                || indexOffset + (long) blockCount * INDEX_ENTRY_BYTES > size
+                || dictionaryOffset < HEADER_BYTES || dictionaryOffset > indexOffset) {
+            throw new IOException("Пошкоджений заголовок файлу");
+        }
+
+        ByteBuffer dictionaries = read(dictionaryOffset, (int) (indexOffset - dictionaryOffset), null);
+        ranks = readDictionary(dictionaries);
+        positions = readDictionary(dictionaries);
+
+        rowsInBlock = new int[blockCount];
+        minYears = new int[blockCount];
+        maxYears = new int[blockCount];
+        columnOffsets = new long[blockCount * COLUMNS];
+        columnLengths = new int[blockCount * COLUMNS];
+        ByteBuffer index = read(indexOffset, blockCount * INDEX_ENTRY_BYTES, null);
+        for (int b = 0; b < blockCount; b++) {
+            rowsInBlock[b] = index.getInt();
+            if (rowsInBlock[b] < 0 || rowsInBlock[b] > blockRows) {
+                throw new IOException("Пошкоджений індекс блоків");
+            }
+            minYears[b] = index.getInt();
+            maxYears[b] = index.getInt();
+            for (int c = 0; c < COLUMNS; c++) {
+                long offset = index.getLong();
+                int length = index.getInt();
+                if (offset < HEADER_BYTES || length < 0 || offset + length > dictionaryOffset) {
+                    throw new IOException("Пошкоджений індекс блоків");
+                }
+                columnOffsets[b * COLUMNS + c] = offset;
+                columnLengths[b * COLUMNS + c] = length;
+            }
+        }
+    }
+
+    /**
+     * Відкриває колонковий файл.
+     *
+     * @param path шлях до файлу
+     * @return відкритий файл (закривається через {@link #close()})
+     * @throws IOException якщо файл не вдалося прочитати або він пошкоджений
+     */
+    public static ServicemanColumnFile open(Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ServicemanColumnFile(ch);
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /** @return кількість рядків (з заголовка) */
+    public int size() { return (int) count; }
+
+    /** @return кількість блоків */
+    public int getBlockCount() { return blockCount; }
+
+    /**
+     * Рахує рядки зі стажем у діапазоні {@code [fromYears, toYears]}.
+     * Читається лише стовпець стажу і лише тих блоків, які перетинаються
+     * з діапазоном частково.
+     *
+     * @param fromYears нижня межа (включно)
+     * @param toYears   верхня межа (включно)
+     * @return кількість рядків
+     * @throws IOException якщо читання не вдалося
+     */
+    public int countByYearsRange(int fromYears, int toYears) throws IOException {
+        int total = 0;
+        ByteBuffer buf = null;
+        for (int b = 0; b < blockCount; b++) {
+            if (skips(b, fromYears, toYears)) continue;
+            if (covers(b, fromYears, toYears)) {
+                total += rowsInBlock[b];
+                continue;
+            }
+            buf = readColumn(b, COL_YEARS, buf);
+            for (int k = 0, n = rowsInBlock[b]; k < n; k++) {
+                int y = buf.getInt();
+                if (y >= fromYears && y <= toYears) total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Повертає індекси рядків зі стажем у діапазоні {@code [fromYears, toYears]}
+     * за зростанням (див. {@link #countByYearsRange(int, int)}).
+     *
+     * @param fromYears нижня межа (включно)
+     * @param toYears   верхня межа (включно)
+     * @return відсортований масив індексів
+     * @throws IOException якщо читання не вдалося
+     */
+    public int[] findByYearsRange(int fromYears, int toYears) throws IOException {
+        int[] rows = new int[16];
+        int found = 0;
+        ByteBuffer buf = null;
+        for (int b = 0; b < blockCount; b++) {
+            if (skips(b, fromYears, toYears)) continue;
+            int first = b * blockRows;
+            int n = rowsInBlock[b];
+            if (found + n > rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(rows.length * 2, found + n));
+            }
+            if (covers(b, fromYears, toYears)) {
+                for (int k = 0; k < n; k++) rows[found++] = first + k;
+                continue;
+            }
+            buf = readColumn(b, COL_YEARS, buf);
+            for (int k = 0; k < n; k++) {
+                int y = buf.getInt();
+                if (y >= fromYears && y <= toYears) rows[found++] = first + k;
+            }
+        }
+        return Arrays.copyOf(rows, found);
+    }
+
+    /**
+     * Читає рядки зі стажем у діапазоні {@code [fromYears, toYears]}.
+     *
+     * @param fromYears нижня межа (включно)
+     * @param toYears   верхня межа (включно)
+     * @return нові об'єкти у порядку файлу
+     * @throws IOException якщо читання не вдалося
+     */
+    public Serviceman[] readByYearsRange(int fromYears, int toYears) throws IOException {
+        List<Serviceman> result = new ArrayList<>();
+        scanByYearsRange(fromYears, toYears, (type, name, rank, years, position) -> result.add(
+                type == ServicemanColumns.TYPE_OFFICER
+                        ? new Officer(name, rank, years, position)
+                        : new Soldier(name, rank, years)));
+        return result.toArray(new Serviceman[0]);
+    }
+
+    /**
+     * Передає у {@code sink} рядки зі стажем у діапазоні. Рядкові стовпці
+     * блоку читаються лише тоді, коли в ньому є хоча б один збіг.
+     */
+    void scanByYearsRange(int fromYears, int toYears, ServicemanRowSink sink) throws IOException {
+        Block block = new Block();
+        boolean[] match = new boolean[blockRows];
+        for (int b = 0; b < blockCount; b++) {
+            if (skips(b, fromYears, toYears)) continue;
+            int n = rowsInBlock[b];
+            block.years = readColumn(b, COL_YEARS, block.years);
+            int matches = 0;
+            for (int k = 0; k < n; k++) {
+                int y = block.years.getInt(k * 4);
+                match[k] = y >= fromYears && y <= toYears;
+                if (match[k]) matches++;
+            }
+            if (matches == 0) continue;
+            readStrings(b, block);
+            for (int k = 0; k < n; k++) {
+                String name = block.nextName();
+                if (match[k]) block.emit(k, name, sink);
+            }
+        }
+    }
+
+    /**
+     * Передає у {@code sink} усі рядки у порядку файлу.
+     *
+     * @param progress прогрес у відсотках
+     */
+    void readAll(ServicemanRowSink sink, IntConsumer progress) throws IOException {
+        Block block = new Block();
+        for (int b = 0; b < blockCount; b++) {
+            ServicemanArrayManager.checkCancelled();
+            progress.accept((int) (100L * b / Math.max(blockCount, 1)));
+            block.years = readColumn(b, COL_YEARS, block.years);
+            readStrings(b, block);
+            for (int k = 0, n = rowsInBlock[b]; k < n; k++) {
+                block.emit(k, block.nextName(), sink);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Зберігає рядки у колонковому форматі. Блоки пишуться по черзі з
+     * буферів розміром у блок, тож пам'ять не залежить від кількості рядків.
+     * Файл пишеться в тимчасовий поруч ({@code <ім'я>.tmp}), який після
+     * успішного запису атомарно замінює цільовий; якщо запис не вдався або
+     * скасований, наявний файл лишається без змін.
+     *
+     * @param path     шлях до файлу
+     * @param rows     рядки, що зберігаються
+     * @param progress прогрес у відсотках
+     * @throws IOException якщо запис не вдався
+     */
+    static void write(Path path, ServicemanBinaryFile.Rows rows, IntConsumer progress) throws IOException {
+        int n = rows.getSize();
+        int blocks = (n + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ServicemanColumns.Dictionary rankCodes = new ServicemanColumns.Dictionary();
+        ServicemanColumns.Dictionary positionCodes = new ServicemanColumns.Dictionary();
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES);
+
+        ByteBuffer types = ByteBuffer.allocate(BLOCK_ROWS);
+        ByteBuffer years = ByteBuffer.allocate(4 * BLOCK_ROWS);
+        ByteBuffer rankColumn = ByteBuffer.allocate(4 * BLOCK_ROWS);
+        ByteBuffer positionColumn = ByteBuffer.allocate(4 * BLOCK_ROWS);
+        ByteBuffer names = ByteBuffer.allocate(4 * BLOCK_ROWS);
+        ByteBuffer nameChars = ByteBuffer.allocate(32 * BLOCK_ROWS);
+        ByteBuffer[] columns = { types, years, rankColumn, positionColumn, names };
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long pos = HEADER_BYTES;
+            for (int b = 0; b < blocks; b++) {
+                ServicemanArrayManager.checkCancelled();
+                progress.accept((int) (100L * b / blocks));
+                int from = b * BLOCK_ROWS;
+                int to = Math.min(from + BLOCK_ROWS, n);
+                for (ByteBuffer c : columns) c.clear();
+                nameChars.clear();
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (int i = from; i < to; i++) {
+                    boolean officer = rows.isOfficerAt(i);
+                    int y = rows.getYearsAt(i);
+                    if (y < min) min = y;
+                    if (y > max) max = y;
+                    types.put(officer ? ServicemanColumns.TYPE_OFFICER : ServicemanColumns.TYPE_SOLDIER);
+                    years.putInt(y);
+                    rankColumn.putInt(rankCodes.encode(rows.getRankAt(i)));
+                    positionColumn.putInt(officer ? positionCodes.encode(rows.getPositionAt(i))
+                            : ServicemanColumns.NO_CODE);
+                    String name = rows.getNameAt(i);
+                    if (name == null) {
+                        names.putInt(-1);
+                        continue;
+                    }
+                    names.putInt(name.length());
+                    if (nameChars.remaining() < 2 * name.length()) {
+                        nameChars = grow(nameChars, 2 * name.length());
+                    }
+                    for (int k = 0; k < name.length(); k++) {
+                        nameChars.putChar(name.charAt(k));
+                    }
+                }
+
+                index.putInt(to - from).putInt(min).putInt(max);
+                for (int c = 0; c < COLUMNS; c++) {
+                    ByteBuffer column = columns[c];
+                    int length = column.position();
+                    column.flip();
+                    ServicemanBinaryFile.writeFully(ch, column, pos);
+                    if (c == COL_NAME) {
+                        length += nameChars.position();
+                        nameChars.flip();
+                        ServicemanBinaryFile.writeFully(ch, nameChars, pos + column.limit());
+                    }
+                    index.putLong(pos).putInt(length);
+                    pos += length;
+                }
+            }
+
+            long dictionaryOffset = pos;
+            pos = writeDictionary(ch, rankCodes, pos);
+            pos = writeDictionary(ch, positionCodes, pos);
+            long indexOffset = pos;
+            index.flip();
+            ServicemanBinaryFile.writeFully(ch, index, pos);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putInt(BLOCK_ROWS).putInt(blocks).putLong(n)
+                    .putLong(dictionaryOffset).putLong(indexOffset).putLong(0).flip();
+            ServicemanBinaryFile.writeFully(ch, header, 0);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buf, int extra) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + extra));
+        buf.flip();
+        return grown.put(buf);
+    }
+
+    private static long writeDictionary(FileChannel ch, ServicemanColumns.Dictionary dictionary, long pos)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(dictionary.size());
+        for (int code = 0; code < dictionary.size(); code++) {
+            out.writeUTF(dictionary.decode(code));
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+        ServicemanBinaryFile.writeFully(ch, buf, pos);
+        return pos + bytes.size();
+    }
+
+    private static String[] readDictionary(ByteBuffer buf) throws IOException {
+        int n = buf.getInt();
+        if (n < 0 || n > buf.remaining() / 2) throw new IOException("Пошкоджений словник");
+        String[] values = new String[n];
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                buf.array(), buf.arrayOffset() + buf.position(), buf.remaining()));
+        for (int k = 0; k < n; k++) {
+            values[k] = in.readUTF();
+        }
+        buf.position(buf.limit() - in.available());
+        return values;
+    }
+
+    /** Блок, жоден рядок якого не потрапляє в діапазон. */
+    private boolean skips(int b, int from, int to) {
+        return rowsInBlock[b] == 0 || maxYears[b] < from || minYears[b] > to;
+    }
+
+    /** Блок, усі рядки якого потрапляють у діапазон. */
+    private boolean covers(int b, int from, int to) {
+        return minYears[b] >= from && maxYears[b] <= to;
+    }
+
+    /** Буфери стовпців одного блоку, що перевикористовуються між блоками. */
+    private final class Block {
+        ByteBuffer years;
+        ByteBuffer types;
+        ByteBuffer ranks;
+        ByteBuffer positions;
+        ByteBuffer names;
+        /** Позиція символів наступного ПІБ у {@link #names}. */
+        int charsPos;
+        char[] chars = new char[64];
+
+        String nextName() {
+            int len = names.getInt();
+            if (len < 0) return null;
+            if (chars.length < len) chars = new char[Math.max(len, chars.length * 2)];
+            for (int k = 0; k < len; k++) {
+                chars[k] = names.getChar(charsPos + 2 * k);
+            }
+            charsPos += 2 * len;
+            return new String(chars, 0, len);
+        }
+
+        void emit(int k, String name, ServicemanRowSink sink) throws IOException {
+            int rank = ranks.getInt(4 * k);
+            int position = positions.getInt(4 * k);
+            sink.row(types.get(k), name, code(ServicemanColumnFile.this.ranks, rank),
+                    years.getInt(4 * k), code(ServicemanColumnFile.this.positions, position));
+        }
+    }
+
+    private static String code(String[] dictionary, int code) throws IOException {
+        if (code == ServicemanColumns.NO_CODE) return null;
+        if (code < 0 || code >= dictionary.length) throw new IOException("Пошкоджений код словника: " + code);
+        return dictionary[code];
+    }
+
+    /** Читає рядкові стовпці блоку (стаж уже прочитано). */
+    private void readStrings(int b, Block block) throws IOException {
+        int n = rowsInBlock[b];
+        block.types = readColumn(b, COL_TYPE, block.types);
+        block.ranks = readColumn(b, COL_RANK, block.ranks);
+        block.positions = readColumn(b, COL_POSITION, block.positions);
+        block.names = readColumn(b, COL_NAME, block.names);
+        if (block.types.remaining() < n || block.years.remaining() < 4 * n
+                || block.ranks.remaining() < 4 * n || block.positions.remaining() < 4 * n
+                || block.names.remaining() < 4 * n) {
+            throw new IOException("Пошкоджений блок " + b);
+        }
+        block.charsPos = 4 * n;
+    }
+
+    /**
+     * Читає стовпець блоку в буфер (повторно використовує {@code reuse},
+     * якщо він достатньо великий).
+     */
+    private ByteBuffer readColumn(int b, int column, ByteBuffer reuse) throws IOException {
+        int i = b * COLUMNS + column;
+        return read(columnOffsets[i], columnLengths[i], reuse);
+    }
+
+    private ByteBuffer read(long pos, int length, ByteBuffer reuse) throws IOException {
+        ByteBuffer buf = reuse != null && reuse.capacity() >= length ? reuse : ByteBuffer.allocate(length);
+        buf.clear().limit(length);
+        while (buf.hasRemaining()) {
+            int r = channel.read(buf, pos + buf.position());
+            if (r < 0) throw new EOFException("Файл обірвано");
+        }
+        buf.flip();
+        return buf;
+    }
+}
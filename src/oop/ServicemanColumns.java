@@ -0,0 +1,515 @@
+package oop;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Колонкове (struct-of-arrays) сховище особового складу.
+ *
+ * <p>Замість масиву об'єктів {@link Serviceman} дані зберігаються у
+ * примітивних стовпцях:</p>
+ * <ul>
+ *     <li>{@code byte[]} — тип запису ({@link #TYPE_SOLDIER} / {@link #TYPE_OFFICER});</li>
+ *     <li>{@code int[]} — стаж служби;</li>
+ *     <li>{@code int[]} — коди звань і посад у словниках рядків;</li>
+ *     <li>ПІБ — в одному спільному буфері {@code char[]} (початок і довжина на рядок).</li>
+ * </ul>
+ *
+ * <p>Об'єкти {@link Soldier}/{@link Officer} створюються лише на запит
+ * ({@link #toServiceman(int)}, {@link #toServicemanArray()}). Як і бінарний
+ * формат ЛР10, сховище розрізняє лише офіцерів і солдатів.</p>
+ */
+final class ServicemanColumns {
+
+    /** Тег типу «солдат» (збігається з тегом у бінарному файлі). */
+    static final byte TYPE_SOLDIER = 0;
+
+    /** Тег типу «офіцер» (збігається з тегом у бінарному файлі). */
+    static final byte TYPE_OFFICER = 1;
+
+    /** Код відсутнього рядка у словнику (посада солдата або {@code null}). */
+    static final int NO_CODE = -1;
+
+    private int size;
+
+    private byte[] types;
+    private int[] years;
+    private int[] rankCodes;
+    private int[] positionCodes;
+
+    private int[] nameStarts;
+    private int[] nameLengths;
+    private char[] nameChars;
+    /** Кількість зайнятих символів у {@link #nameChars}. */
+    private int nameCharsUsed;
+    /** Кількість символів у буфері імен, на які вже ніхто не посилається. */
+    private int garbage;
+
+    private final Dictionary ranks = new Dictionary();
+    private final Dictionary positions = new Dictionary();
+
+    // Групи стовпців для копіювання під час запису (див. freeze())
+    private static final int COL_TYPES = 1;
+    private static final int COL_YEARS = 2;
+    private static final int COL_RANKS = 4;
+    private static final int COL_POSITIONS = 8;
+    /** Початки й довжини ПІБ разом із буфером імен. */
+    private static final int COL_NAMES = 16;
+    private static final int COL_ALL = 31;
+
+    /** Стовпці, спільні із замороженою копією: перед зміною їх слід скопіювати. */
+    private int sharedColumns;
+    /**
+     * Копія, створена {@link #freeze()}: у кінець спільних стовпців дописує
+     * оригінал, тож копія перед дописуванням теж копіює стовпці.
+     */
+    private boolean copyOnAppend;
+
+    /**
+     * Створює порожнє сховище з указаною початковою місткістю.
+     *
+     * @param capacity очікувана кількість рядків
+     */
+    ServicemanColumns(int capacity) {
+        int c = Math.max(capacity, 4);
+        types = new byte[c];
+        years = new int[c];
+        rankCodes = new int[c];
+        positionCodes = new int[c];
+        nameStarts = new int[c];
+        nameLengths = new int[c];
+        nameChars = new char[c * 16];
+    }
+
+    /**
+     * Переносить масив об'єктів у колонкове представлення.
+     *
+     * @param staff масив військовослужбовців (може бути {@code null})
+     * @return нове сховище
+     */
+    static ServicemanColumns of(Serviceman[] staff) {
+        int n = staff == null ? 0 : staff.length;
+        ServicemanColumns c = new ServicemanColumns(n);
+        for (int i = 0; i < n; i++) {
+            c.add(staff[i]);
+        }
+        return c;
+    }
+
+    /**
+     * Додає в кінець рядок, скопійований з об'єкта.
+     *
+     * @param s військовослужбовець
+     */
+    void add(Serviceman s) {
+        if (s instanceof Officer o) {
+            add(TYPE_OFFICER, o.getName(), o.getRank(), o.getYearsOfService(), o.getPosition());
+        } else {
+            add(TYPE_SOLDIER, s.getName(), s.getRank(), s.getYearsOfService(), null);
+        }
+    }
+
+    /**
+     * Додає в кінець новий рядок.
+     *
+     * @param type     {@link #TYPE_SOLDIER} або {@link #TYPE_OFFICER}
+     * @param name     ПІБ
+     * @param rank     звання
+     * @param years    стаж служби
+     * @param position посада (для солдата ігнорується)
+     */
+    void add(byte type, String name, String rank, int years, String position) {
+        if (copyOnAppend) own(COL_ALL);
+        ensureCapacity(size + 1);
+        int i = size++;
+        types[i] = type;
+        this.years[i] = years;
+        rankCodes[i] = ranks.encode(rank);
+        positionCodes[i] = type == TYPE_OFFICER ? positions.encode(position) : NO_CODE;
+        storeName(i, name);
+    }
+
+    /**
+     * Створює незалежну копію сховища: зміни копії не впливають на
+     * оригінал і навпаки. Буфер імен копіюється без «сміття».
+     *
+     * @return нове сховище з тими самими рядками
+     */
+    ServicemanColumns copy() {
+        ServicemanColumns c = new ServicemanColumns(0);
+        c.size = size;
+        c.types = Arrays.copyOf(types, types.length);
+        c.years = Arrays.copyOf(years, years.length);
+        c.rankCodes = Arrays.copyOf(rankCodes, rankCodes.length);
+        c.positionCodes = Arrays.copyOf(positionCodes, positionCodes.length);
+        c.nameStarts = Arrays.copyOf(nameStarts, nameStarts.length);
+        c.nameLengths = Arrays.copyOf(nameLengths, nameLengths.length);
+        c.nameChars = Arrays.copyOf(nameChars, Math.max(nameCharsUsed, 16));
+        c.nameCharsUsed = nameCharsUsed;
+        c.garbage = garbage;
+        c.ranks.copyFrom(ranks);
+        c.positions.copyFrom(positions);
+        if (garbage > 0) {
+            c.compactNames();
+        }
+        return c;
+    }
+
+    /**
+     * Повертає незмінну копію за O(1): стовпці не копіюються, а стають
+     * спільними. Перший запис у спільний стовпець (в оригіналі чи в копії)
+     * спершу копіює лише цей стовпець. Дописування в кінець спільних
+     * стовпців не копіює, бо копія не бачить рядків за своїм розміром.
+     * Словники звань і посад маленькі й копіюються одразу.
+     *
+     * <p>Заморожену копію можна читати в іншому потоці, поки оригінал
+     * змінюється (передача копії має встановлювати happens-before, як
+     * {@link java.util.concurrent.ExecutorService#submit}).</p>
+     *
+     * @return копія з тими самими рядками
+     */
+    ServicemanColumns freeze() {
+        ServicemanColumns c = new ServicemanColumns(0);
+        c.size = size;
+        c.types = types;
+        c.years = years;
+        c.rankCodes = rankCodes;
+        c.positionCodes = positionCodes;
+        c.nameStarts = nameStarts;
+        c.nameLengths = nameLengths;
+        c.nameChars = nameChars;
+        c.nameCharsUsed = nameCharsUsed;
+        c.garbage = garbage;
+        c.ranks.copyFrom(ranks);
+        c.positions.copyFrom(positions);
+        c.sharedColumns = COL_ALL;
+        c.copyOnAppend = true;
+        sharedColumns = COL_ALL;
+        return c;
+    }
+
+    /**
+     * Додає в кінець копію рядка з іншого сховища.
+     *
+     * @param src сховище-джерело
+     * @param i   індекс рядка в ньому
+     */
+    void addFrom(ServicemanColumns src, int i) {
+        add(src.types[i], src.name(i), src.rank(i), src.years[i], src.position(i));
+    }
+
+    /**
+     * Дописує в кінець усі рядки іншого сховища. Коди звань і посад
+     * перекодовуються один раз на значення словника, а ПІБ копіюються
+     * цілим буфером, без створення рядків.
+     *
+     * @param other сховище-джерело
+     */
+    void addAll(ServicemanColumns other) {
+        int n = other.size;
+        if (copyOnAppend) own(COL_ALL);
+        ensureCapacity(size + n);
+        int[] rankMap = recode(other.ranks, ranks);
+        int[] positionMap = recode(other.positions, positions);
+
+        int used = other.nameCharsUsed;
+        if (nameCharsUsed + used > nameChars.length) {
+            long wanted = Math.max((long) nameChars.length * 2, (long) nameCharsUsed + used);
+            nameChars = Arrays.copyOf(nameChars, (int) Math.min(wanted, Integer.MAX_VALUE - 8));
+        }
+        System.arraycopy(other.nameChars, 0, nameChars, nameCharsUsed, used);
+
+        for (int k = 0; k < n; k++) {
+            int i = size + k;
+            types[i] = other.types[k];
+            years[i] = other.years[k];
+            int r = other.rankCodes[k];
+            rankCodes[i] = r == NO_CODE ? NO_CODE : rankMap[r];
+            int p = other.positionCodes[k];
+            positionCodes[i] = p == NO_CODE ? NO_CODE : positionMap[p];
+            nameStarts[i] = other.nameStarts[k] + nameCharsUsed;
+            nameLengths[i] = other.nameLengths[k];
+        }
+        size += n;
+        nameCharsUsed += used;
+        garbage += other.garbage;
+    }
+
+    private static int[] recode(Dictionary from, Dictionary to) {
+        int[] map = new int[from.size()];
+        for (int code = 0; code < map.length; code++) {
+            map[code] = to.encode(from.decode(code));
+        }
+        return map;
+    }
+
+    /** @return кількість рядків */
+    int size() { return size; }
+
+    /**
+     * Повертає стовпець стажу без копіювання. Довжина масиву може
+     * перевищувати {@link #size()}; значущі лише перші {@code size()} елементів.
+     *
+     * @return масив стажу
+     */
+    int[] yearsColumn() { return years; }
+
+    /**
+     * Повертає стовпець типів без копіювання (див. {@link #yearsColumn()}).
+     *
+     * @return масив тегів типу
+     */
+    byte[] typesColumn() { return types; }
+
+    /**
+     * Повертає стовпець кодів звань без копіювання (див. {@link #yearsColumn()}).
+     * Код розшифровується методом {@link #rankOfCode(int)}.
+     *
+     * @return масив кодів звань
+     */
+    int[] rankCodesColumn() { return rankCodes; }
+
+    /** @return кількість різних звань у словнику */
+    int rankCodeCount() { return ranks.size(); }
+
+    /**
+     * @param code код звання або {@link #NO_CODE}
+     * @return звання
+     */
+    String rankOfCode(int code) { return ranks.decode(code); }
+
+    byte type(int i) { return types[i]; }
+
+    boolean isOfficer(int i) { return types[i] == TYPE_OFFICER; }
+
+    int years(int i) { return years[i]; }
+
+    String rank(int i) { return ranks.decode(rankCodes[i]); }
+
+    String position(int i) { return positions.decode(positionCodes[i]); }
+
+    String name(int i) {
+        int len = nameLengths[i];
+        if (len < 0) return null;
+        return new String(nameChars, nameStarts[i], len);
+    }
+
+    void setYears(int i, int value) {
+        own(COL_YEARS);
+        years[i] = value;
+    }
+
+    void setRank(int i, String rank) {
+        own(COL_RANKS);
+        rankCodes[i] = ranks.encode(rank);
+    }
+
+    void setPosition(int i, String position) {
+        if (types[i] == TYPE_OFFICER) {
+            own(COL_POSITIONS);
+            positionCodes[i] = positions.encode(position);
+        }
+    }
+
+    /**
+     * Змінює ПІБ рядка. Новий текст дописується в кінець буфера імен;
+     * старий фрагмент стає «сміттям» і прибирається під час ущільнення.
+     *
+     * @param i    індекс рядка
+     * @param name новий ПІБ
+     */
+    void setName(int i, String name) {
+        own(COL_NAMES);
+        if (nameLengths[i] > 0) {
+            garbage += nameLengths[i];
+        }
+        storeName(i, name);
+        if (garbage > nameCharsUsed / 2 && garbage > 4096) {
+            compactNames();
+        }
+    }
+
+    /**
+     * Вилучає рядок; наступні рядки зсуваються на одну позицію. ПІБ
+     * вилученого рядка стає «сміттям» у буфері імен.
+     *
+     * @param i індекс рядка
+     */
+    void remove(int i) {
+        own(COL_ALL);
+        if (nameLengths[i] > 0) {
+            garbage += nameLengths[i];
+        }
+        int tail = size - i - 1;
+        System.arraycopy(types, i + 1, types, i, tail);
+        System.arraycopy(years, i + 1, years, i, tail);
+        System.arraycopy(rankCodes, i + 1, rankCodes, i, tail);
+        System.arraycopy(positionCodes, i + 1, positionCodes, i, tail);
+        System.arraycopy(nameStarts, i + 1, nameStarts, i, tail);
+        System.arraycopy(nameLengths, i + 1, nameLengths, i, tail);
+        size--;
+        if (garbage > nameCharsUsed / 2 && garbage > 4096) {
+            compactNames();
+        }
+    }
+
+    /**
+     * Переставляє рядки: новий рядок {@code k} — це старий рядок {@code order[k]}.
+     * Буфер імен не копіюється, переставляються лише початки й довжини.
+     *
+     * @param order перестановка індексів довжиною {@link #size()}
+     */
+    void permute(int[] order) {
+        int n = size;
+        byte[] t = new byte[types.length];
+        int[] y = new int[years.length];
+        int[] r = new int[rankCodes.length];
+        int[] p = new int[positionCodes.length];
+        int[] ns = new int[nameStarts.length];
+        int[] nl = new int[nameLengths.length];
+        for (int k = 0; k < n; k++) {
+            int src = order[k];
+            t[k] = types[src];
+            y[k] = years[src];
+            r[k] = rankCodes[src];
+            p[k] = positionCodes[src];
+            ns[k] = nameStarts[src];
+            nl[k] = nameLengths[src];
+        }
+        types = t;
+        years = y;
+        rankCodes = r;
+        positionCodes = p;
+        nameStarts = ns;
+        nameLengths = nl;
+        // нові масиви вже власні; буфер імен не змінюється
+        sharedColumns &= COL_NAMES;
+    }
+
+    /**
+     * Створює окремий об'єкт для рядка {@code i}. Зміни цього об'єкта
+     * не впливають на сховище.
+     *
+     * @param i індекс рядка
+     * @return новий {@link Soldier} або {@link Officer}
+     */
+    Serviceman toServiceman(int i) {
+        if (types[i] == TYPE_OFFICER) {
+            return new Officer(name(i), rank(i), years[i], position(i));
+        }
+        return new Soldier(name(i), rank(i), years[i]);
+    }
+
+    /**
+     * Матеріалізує весь вміст у масив об'єктів.
+     *
+     * @return новий масив {@link Serviceman}
+     */
+    Serviceman[] toServicemanArray() {
+        Serviceman[] arr = new Serviceman[size];
+        for (int i = 0; i < size; i++) {
+            arr[i] = toServiceman(i);
+        }
+        return arr;
+    }
+
+    private void storeName(int i, String name) {
+        if (name == null) {
+            nameStarts[i] = 0;
+            nameLengths[i] = -1;
+            return;
+        }
+        int len = name.length();
+        if (nameCharsUsed + len > nameChars.length) {
+            long wanted = Math.max((long) nameChars.length * 2, (long) nameCharsUsed + len);
+            nameChars = Arrays.copyOf(nameChars, (int) Math.min(wanted, Integer.MAX_VALUE - 8));
+        }
+        name.getChars(0, len, nameChars, nameCharsUsed);
+        nameStarts[i] = nameCharsUsed;
+        nameLengths[i] = len;
+        nameCharsUsed += len;
+    }
+
+    private void compactNames() {
+        char[] packed = new char[Math.max(nameCharsUsed - garbage, 16)];
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            int len = nameLengths[i];
+            if (len > 0) {
+                System.arraycopy(nameChars, nameStarts[i], packed, pos, len);
+            }
+            nameStarts[i] = pos;
+            pos += Math.max(len, 0);
+        }
+        nameChars = packed;
+        nameCharsUsed = pos;
+        garbage = 0;
+    }
+
+    private void ensureCapacity(int wanted) {
+        if (wanted <= types.length) return;
+        int c = Math.max(wanted, types.length + (types.length >> 1));
+        types = Arrays.copyOf(types, c);
+        years = Arrays.copyOf(years, c);
+        rankCodes = Arrays.copyOf(rankCodes, c);
+        positionCodes = Arrays.copyOf(positionCodes, c);
+        nameStarts = Arrays.copyOf(nameStarts, c);
+        nameLengths = Arrays.copyOf(nameLengths, c);
+        sharedColumns &= COL_NAMES;
+    }
+
+    /**
+     * Копіює спільні із замороженою копією стовпці перед їх зміною на місці.
+     *
+     * @param columns групи стовпців ({@code COL_...})
+     */
+    private void own(int columns) {
+        int c = sharedColumns & columns;
+        if (c == 0) return;
+        if ((c & COL_TYPES) != 0) types = types.clone();
+        if ((c & COL_YEARS) != 0) years = years.clone();
+        if ((c & COL_RANKS) != 0) rankCodes = rankCodes.clone();
+        if ((c & COL_POSITIONS) != 0) positionCodes = positionCodes.clone();
+        if ((c & COL_NAMES) != 0) {
+            nameStarts = nameStarts.clone();
+            nameLengths = nameLengths.clone();
+            nameChars = nameChars.clone();
+        }
+        sharedColumns &= ~c;
+    }
+
+    /**
+     * Словник рядків: кожне унікальне значення зберігається один раз,
+     * а в стовпці записується лише його код.
+     */
+    static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private int count;
+
+        int encode(String value) {
+            if (value == null) return NO_CODE;
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count] = value;
+            codes.put(value, count);
+            return count++;
+        }
+
+        String decode(int code) {
+            return code == NO_CODE ? null : values[code];
+        }
+
+        int size() { return count; }
+
+        void copyFrom(Dictionary other) {
+            codes.putAll(other.codes);
+            values = Arrays.copyOf(other.values, other.values.length);
+            count = other.count;
+        }
+    }
+}
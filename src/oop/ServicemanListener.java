@@ -0,0 +1,41 @@
+package oop;
+
+/**
+ * Слухач змін полів {@link Serviceman}.
+ *
+ * <p>Викликається після того, як значення змінено, і лише якщо нове
+ * значення відрізняється від попереднього. Завдяки старому значенню
+ * похідні структури (індекси, кеші, зведені показники) оновлюються
+ * інкрементно, без повного перерахунку. Усі методи мають порожню
+ * реалізацію за замовчуванням.</p>
+ */
+public interface ServicemanListener {
+
+    /**
+     * @param s       змінений військовослужбовець
+     * @param oldName попередній ПІБ
+     */
+    default void nameChanged(Serviceman s, String oldName) {
+    }
+
+    /**
+     * @param s       змінений військовослужбовець
+     * @param oldRank попереднє звання
+     */
+    default void rankChanged(Serviceman s, String oldRank) {
+    }
+
+    /**
+     * @param s        змінений військовослужбовець
+     * @param oldYears попередній стаж
+     */
+    default void yearsChanged(Serviceman s, int oldYears) {
+    }
+
+    /**
+     * @param o           змінений офіцер
+     * @param oldPosition попередня посада
+     */
+    default void positionChanged(Officer o, String oldPosition) {
+    }
+}
@@ -0,0 +1,20 @@
+package oop;
+
+/**
+ * Приймач записів, які читаються з файлу без створення об'єктів
+ * {@link Serviceman}: їх можна скласти одразу у стовпці
+ * ({@link ServicemanColumns#add(byte, String, String, int, String)}) або
+ * перетворити на об'єкти.
+ */
+@FunctionalInterface
+interface ServicemanRowSink {
+
+    /**
+     * @param type     {@link ServicemanColumns#TYPE_SOLDIER} або {@link ServicemanColumns#TYPE_OFFICER}
+     * @param name     ПІБ
+     * @param rank     звання
+     * @param years    стаж служби
+     * @param position посада (для солдата — {@code null})
+     */
+    void row(byte type, String name, String rank, int years, String position);
+}
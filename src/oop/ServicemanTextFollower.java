@@ -0,0 +1,256 @@
+package oop;
+
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Стеження за текстовим файлом, у кінець якого дописуються нові рядки
+ * (формат {@code type;name;rank;years;position}, див.
+ * {@link ServicemanArrayManagerV3#loadFromTextFile(Path)}).
+ *
+ * <p>Об'єкт пам'ятає позицію в байтах за останнім розібраним рядком.
+ * {@link #poll()} читає файл лише з цієї позиції, розбирає завершені
+ * рядки і додає записи в кінець масиву менеджера одним викликом
+ * {@link ServicemanArrayManager#addServicemen(Serviceman[])}, тож індекси
+ * та гістограма стажу оновлюються на місці, а не перебудовуються.
+ * Незавершений останній рядок (запис у файл ще триває) чекає наступного
+ * виклику.</p>
+ *
+ * <p>Про зміни файлу повідомляє {@link WatchService} каталогу:
+ * {@link #awaitChange(long, TimeUnit)} блокує фоновий потік до зміни. Читання
+ * і розбір можна виконати в тому самому фоновому потоці
+ * ({@link #readAppended()}), а в потоці, який працює з менеджером
+ * (менеджер не потокобезпечний), лишається тільки додавання готових записів
+ * ({@link #apply(Chunk)}). {@link #poll()} робить обидва кроки в одному
+ * потоці. Файл між викликами не тримається відкритим.</p>
+ */
+public final class ServicemanTextFollower implements AutoCloseable {
+
+    private static final IntConsumer NO_PROGRESS = percent -> { };
+
+    private final ServicemanArrayManager manager;
+    private final Path path;
+    private final Path fileName;
+    private final WatchService watcher;
+
+    /** Позиція за останнім розібраним рядком. */
+    private volatile long offset;
+
+    /**
+     * @param manager менеджер, у кінець масиву якого додаються записи
+     * @param path    текстовий файл
+     * @param offset  позиція початку першого нерозібраного рядка
+     *                (0 — з початку файлу)
+     * @throws IOException якщо не вдалося стежити за каталогом файлу
+     */
+    public ServicemanTextFollower(ServicemanArrayManager manager, Path path, long offset) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset < 0: " + offset);
+        }
+        this.manager = manager;
+        this.path = path.toAbsolutePath();
+        this.fileName = this.path.getFileName();
+        this.offset = offset;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        try {
+            this.path.getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException ex) {
+            watcher.close();
+            throw ex;
+        }
+    }
+
+    /** @return файл, за яким ведеться стеження */
+    public Path getPath() {
+        return path;
+    }
+
+    /** @return позиція в байтах за останнім розібраним рядком */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Записи з рядків, дочитаних {@link #readAppended()}, які ще треба додати
+     * в масив ({@link #apply(Chunk)}). Якщо один з рядків некоректний, пакет
+     * містить записи перед ним і саму помилку.
+     */
+    public static final class Chunk {
+        private final Serviceman[] rows;
+        private final Exception error;
+
+        private Chunk(Serviceman[] rows, Exception error) {
+            this.rows = rows;
+            this.error = error;
+        }
+
+        /** @return кількість записів у пакеті */
+        public int size() {
+            return rows.length;
+        }
+
+        /** @return чи є що додавати або про що повідомити */
+        public boolean isEmpty() {
+            return rows.length == 0 && error == null;
+        }
+
+        /**
+         * @return чи зупинився розбір на некоректному рядку; рядки після
+         *         нього ще не прочитано, тож варто одразу викликати
+         *         {@link #readAppended()} ще раз
+         */
+        public boolean hasError() {
+            return error != null;
+        }
+    }
+
+    /**
+     * Читає й розбирає рядки, завершені після попереднього виклику, не
+     * торкаючись менеджера, тож може виконуватися у фоновому потоці.
+     * Збережена позиція переходить за прочитані рядки одразу; пакети треба
+     * передавати в {@link #apply(Chunk)} у тому самому порядку. Викликати з
+     * одного потоку.
+     *
+     * @return пакет записів (можливо, порожній)
+     * @throws IOException якщо файл не вдалося прочитати або він став
+     *                     коротшим за збережену позицію (файл перезаписано)
+     */
+    public Chunk readAppended() throws IOException {
+        List<Serviceman> added = new ArrayList<>();
+        ServicemanTextParser parser = new ServicemanTextParser();
+        Exception error = null;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long from = offset;
+            if (ch.size() < from) {
+                throw new IOException("Файл " + path + " коротший за прочитану частину ("
+                        + ch.size() + " < " + from + " байт): його перезаписано");
+            }
+            try {
+                parser.parseAppended(ch, from, (type, name, rank, years, position) -> added.add(
+                        type == ServicemanColumns.TYPE_OFFICER
+                                ? new Officer(name, rank, years, position)
+                                : new Soldier(name, rank, years)), NO_PROGRESS);
+            } catch (ClosedByInterruptException | CancellationException ex) {
+                throw ex;
+            } catch (IOException | RuntimeException ex) {
+                // некоректний рядок: записи перед ним однаково додаються
+                error = ex;
+            } finally {
+                offset = parser.appendedEnd();
+            }
+        } catch (ClosedByInterruptException ex) {
+            throw new CancellationException("Операцію скасовано");
+        }
+        return new Chunk(added.toArray(new Serviceman[0]), error);
+    }
+
+    /**
+     * Додає записи пакета в кінець масиву менеджера. Викликається в потоці,
+     * який працює з менеджером.
+     *
+     * @param chunk пакет з {@link #readAppended()}
+     * @return кількість доданих записів
+     * @throws IOException якщо пакет містить помилку читання рядка (записи
+     *                     перед цим рядком уже додано, сам рядок пропущено)
+     */
+    public int apply(Chunk chunk) throws IOException {
+        if (chunk.rows.length > 0) {
+            manager.addServicemen(chunk.rows);
+        }
+        if (chunk.error instanceof IOException io) throw io;
+        if (chunk.error instanceof RuntimeException re) throw re;
+        return chunk.rows.length;
+    }
+
+    /**
+     * Додає в кінець масиву записи з рядків, завершених після попереднього
+     * виклику: {@link #readAppended()} і {@link #apply(Chunk)} в одному
+     * потоці. Якщо рядок некоректний, записи перед ним усе одно додаються,
+     * сам рядок пропускається, а помилка передається викликачу.
+     *
+     * @return кількість доданих записів
+     * @throws IOException якщо файл не вдалося прочитати, він містить
+     *                     некоректний UTF-8 або став коротшим за збережену
+     *                     позицію (файл перезаписано)
+     */
+    public int poll() throws IOException {
+        return apply(readAppended());
+    }
+
+    /**
+     * Замінює масив менеджера завершеними рядками файлу, починаючи з його
+     * початку. Масив замінюється лише після успішного розбору.
+     *
+     * @param progress прогрес у відсотках
+     */
+    void load(IntConsumer progress) throws IOException {
+        ServicemanTextParser parser = new ServicemanTextParser();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end;
+            if (manager.isColumnarStorageEnabled()) {
+                ServicemanColumns loaded = new ServicemanColumns(1024);
+                end = parser.parseAppended(ch, 0, loaded::add, progress);
+                ServicemanArrayManager.checkCancelled();
+                manager.setColumns(loaded);
+            } else {
+                List<Serviceman> list = new ArrayList<>();
+                end = parser.parseAppended(ch, 0, (type, name, rank, years, position) -> list.add(
+                        type == ServicemanColumns.TYPE_OFFICER
+                                ? new Officer(name, rank, years, position)
+                                : new Soldier(name, rank, years)), progress);
+                ServicemanArrayManager.checkCancelled();
+                manager.setStaff(list.toArray(new Serviceman[0]));
+            }
+            offset = end;
+        } catch (ClosedByInterruptException ex) {
+            throw new CancellationException("Операцію скасовано");
+        }
+    }
+
+    /**
+     * Чекає, доки файл зміниться (або з'явиться знову), не довше за
+     * {@code timeout}. Викликається у фоновому потоці; {@link #close()} з
+     * іншого потоку перериває очікування з {@link ClosedWatchServiceException}.
+     *
+     * @return {@code true}, якщо файл змінився або події могли загубитися
+     *         (тоді варто викликати {@link #readAppended()} або
+     *         {@link #poll()}); {@code false} — час вийшов
+     * @throws InterruptedException якщо потік перервано
+     */
+    public boolean awaitChange(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long left = deadline - System.nanoTime();
+            WatchKey key = left > 0 ? watcher.poll(left, TimeUnit.NANOSECONDS) : watcher.poll();
+            if (key == null) return false;
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            // каталог зник — нехай poll() повідомить про відсутній файл
+            if (!key.reset() || changed) return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+}
@@ -0,0 +1,595 @@
+package oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Потоковий розбір текстового формату {@code type;name;rank;years;position}
+ * без регулярних виразів і проміжних рядків.
+ *
+ * <p>Файл читається через {@link FileChannel} у буфер фіксованого розміру
+ * (він росте лише під рядок, довший за буфер), тож пам'ять не залежить від
+ * розміру файлу. Рядок розбивається на поля за {@code ';'} прямо в байтах
+ * UTF-8, стаж розбирається з байтів без підрядків, а звання й посади, які
+ * повторюються, зберігаються в таблиці і повертаються тими самими
+ * об'єктами {@link String}. Для ПІБ створюється один рядок на запис.</p>
+ *
+ * <p>Результат збігається з попередньою реалізацією на основі
+ * {@code Files.readAllLines} і {@code String.split(";")}: рядки
+ * завершуються {@code \n}, {@code \r} або {@code \r\n}; поля обрізаються
+ * як {@link String#trim()}; порожні поля в кінці рядка не рахуються;
+ * некоректний стаж дає {@link NumberFormatException} навіть у рядку з
+ * невідомим типом; некоректний UTF-8 у прочитаних полях дає
+ * {@link CharacterCodingException}.</p>
+ */
+final class ServicemanTextParser {
+
+    /** Початковий розмір буфера читання. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Найменша частина файлу для паралельного розбору. */
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+
+    /** Орієнтовна найбільша частина файлу (одне завдання розбору). */
+    private static final long MAX_CHUNK_BYTES = 1 << 28;
+
+    private static final IntConsumer NO_PROGRESS = percent -> { };
+
+    /** Умова скасування, яку розбір перевіряє між блоками. */
+    private final BooleanSupplier cancelled;
+
+    /** Поля, які потрібні формату: тип, ПІБ, звання, стаж, посада. */
+    private static final int FIELDS = 5;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private final StringTable ranks = new StringTable();
+    private final StringTable positions = new StringTable();
+
+    /** Межі полів поточного рядка: початок і кінець (після обрізання). */
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+
+    /** Позиція за останнім розібраним рядком у {@link #parseAppended}. */
+    private long appendedEnd;
+
+    /** Створює парсер, який скасовується перериванням поточного потоку. */
+    ServicemanTextParser() {
+        Thread owner = Thread.currentThread();
+        this.cancelled = owner::isInterrupted;
+    }
+
+    private ServicemanTextParser(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Розбирає файл і передає кожен запис у {@code sink}.
+     *
+     * @param path     шлях до файлу
+     * @param sink     приймач записів
+     * @param progress прогрес у відсотках (за прочитаними байтами)
+     * @throws IOException якщо файл не вдалося прочитати або він містить некоректний UTF-8
+     */
+    void parse(Path path, ServicemanRowSink sink, IntConsumer progress) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            parse(ch, ch.size(), sink, progress);
+        } catch (ClosedByInterruptException ex) {
+            // канал закривається перериванням потоку — це теж скасування
+            throw new CancellationException("Операцію скасовано");
+        }
+    }
+
+    /**
+     * Розбирає потік байтів, що починається з початку рядка.
+     *
+     * @param ch       джерело байтів
+     * @param size     очікувана кількість байтів (для прогресу)
+     * @param sink     приймач записів
+     * @param progress прогрес у відсотках
+     */
+    private void parse(ReadableByteChannel ch, long size, ServicemanRowSink sink, IntConsumer progress) throws IOException {
+        {
+            long total = Math.max(size, 1);
+            long read = 0;
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+            // чи був попередній байт '\r' (тоді '\n' одразу після нього — те саме завершення)
+            boolean afterCr = false;
+            int chunks = 0;
+
+            while (true) {
+                int n = ch.read(buf);
+                if (n > 0) read += n;
+                boolean eof = n < 0;
+                if ((chunks++ & 15) == 0) {
+                    checkCancelled();
+                    progress.accept((int) (100L * Math.min(read, total) / total));
+                }
+
+                byte[] a = buf.array();
+                int limit = buf.position();
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    byte b = a[i];
+                    if (b != '\n' && b != '\r') continue;
+                    if (b == '\n' && afterCr && i == lineStart) {
+                        afterCr = false;
+                        lineStart = i + 1;
+                        continue;
+                    }
+                    parseLine(a, lineStart, i, sink);
+                    afterCr = b == '\r';
+                    lineStart = i + 1;
+                }
+                if (lineStart < limit) afterCr = false;
+
+                if (eof) {
+                    if (lineStart < limit) {
+                        parseLine(a, lineStart, limit, sink);
+                    }
+                    return;
+                }
+
+                // незавершений рядок переноситься на початок буфера
+                buf.position(lineStart);
+                buf.limit(limit);
+                buf.compact();
+                if (!buf.hasRemaining()) {
+                    ByteBuffer grown = ByteBuffer.allocate(buf.capacity() * 2);
+                    buf.flip();
+                    grown.put(buf);
+                    buf = grown;
+                }
+            }
+        }
+    }
+
+    /**
+     * Розбирає лише завершені рядки, дописані у файл з позиції {@code from}
+     * (вона має бути початком рядка). Останній рядок без завершення
+     * не розбирається: він лишається для наступного виклику, коли його
+     * допишуть. Якщо виклик закінчився між {@code \r} і {@code \n},
+     * наступний почнеться з порожнього рядка, а порожні рядки пропускаються.
+     *
+     * <p>Помилка в рядку перериває розбір, але {@link #appendedEnd()} уже
+     * вказує за цей рядок, тож повторний виклик його не розбиратиме.</p>
+     *
+     * @param ch       відкритий файл
+     * @param from     позиція початку першого нерозібраного рядка
+     * @param sink     приймач записів
+     * @param progress прогрес у відсотках (за байтами від {@code from})
+     * @return позиція одразу після останнього завершеного рядка
+     * @throws IOException якщо файл не вдалося прочитати або він містить некоректний UTF-8
+     */
+    long parseAppended(FileChannel ch, long from, ServicemanRowSink sink, IntConsumer progress) throws IOException {
+        long size = ch.size();
+        long total = Math.max(size - from, 1);
+        appendedEnd = from;
+        long readPos = from;
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        int chunks = 0;
+
+        while (readPos < size) {
+            if ((chunks++ & 15) == 0) {
+                checkCancelled();
+                progress.accept((int) (100L * (readPos - from) / total));
+            }
+            int n = ch.read(buf, readPos);
+            if (n <= 0) break;
+            readPos += n;
+
+            byte[] a = buf.array();
+            int limit = buf.position();
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                byte b = a[i];
+                if (b != '\n' && b != '\r') continue;
+                long next = appendedEnd + (i + 1 - lineStart);
+                try {
+                    parseLine(a, lineStart, i, sink);
+                } finally {
+                    appendedEnd = next;
+                }
+                lineStart = i + 1;
+            }
+
+            buf.position(lineStart);
+            buf.limit(limit);
+            buf.compact();
+            if (!buf.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.flip();
+                grown.put(buf);
+                buf = grown;
+            }
+        }
+        progress.accept(100);
+        return appendedEnd;
+    }
+
+    /**
+     * @return позиція за останнім рядком, який розібрав (або відкинув через
+     *         помилку) {@link #parseAppended}
+     */
+    long appendedEnd() {
+        return appendedEnd;
+    }
+
+    /**
+     * Паралельно розбирає великий файл. Файл ділиться на частини, межі яких
+     * зсунуто до найближчого завершення рядка (разом із {@code \r\n}), тож
+     * кожна частина починається з початку рядка і правила коментарів та
+     * порожніх рядків діють так само, як у послідовному розборі. Кожна
+     * частина читається позиційним читанням
+     * ({@link FileChannel#read(ByteBuffer, long)}) і розбирається окремим
+     * завданням у {@link ForkJoinPool}; результати повертаються в порядку
+     * частин у файлі. Файл не відображається в пам'ять, тож після розбору
+     * його можна одразу перезаписати або замінити.
+     *
+     * <p>Якщо розбір кількох частин завершився помилкою, кидається помилка
+     * найранішої з них — та сама, що й у послідовному розборі. Скасування
+     * (переривання викликача) зупиняє всі завдання.</p>
+     *
+     * @param path     шлях до файлу
+     * @param newPart  створює приймач результатів однієї частини
+     * @param sinkFor  приймач записів для результату частини
+     * @param progress прогрес у відсотках (за розібраними частинами)
+     * @param <T>      тип результату частини
+     * @return результати частин у порядку файлу
+     * @throws IOException якщо файл не вдалося прочитати або він містить некоректний UTF-8
+     */
+    static <T> List<T> parseParallel(Path path, Supplier<T> newPart, Function<T, ServicemanRowSink> sinkFor,
+                                     IntConsumer progress) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long[] bounds = chunkBounds(ch, size, ForkJoinPool.getCommonPoolParallelism());
+            int parts = bounds.length - 1;
+
+            // завдання зупиняються, якщо викликача перервано або інша частина впала
+            Thread caller = Thread.currentThread();
+            AtomicBoolean abort = new AtomicBoolean();
+            BooleanSupplier cancelled = () -> abort.get() || caller.isInterrupted();
+
+            // помилку зберігає сама частина: ForkJoinTask підміняє винятки з інших потоків копіями
+            Throwable[] failures = new Throwable[parts];
+            List<ForkJoinTask<T>> tasks = new ArrayList<>(parts);
+            for (int k = 0; k < parts; k++) {
+                int index = k;
+                long from = bounds[k];
+                long len = bounds[k + 1] - from;
+                ServicemanTextParser parser = new ServicemanTextParser(cancelled);
+                T part = newPart.get();
+                tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                    try {
+                        parser.parse(new RangeChannel(ch, from, from + len), len, sinkFor.apply(part), NO_PROGRESS);
+                    } catch (Throwable ex) {
+                        failures[index] = ex;
+                    }
+                    return part;
+                }));
+            }
+
+            List<T> results = new ArrayList<>(parts);
+            try {
+                for (int k = 0; k < parts; k++) {
+                    results.add(tasks.get(k).get());
+                    Throwable failure = failures[k];
+                    if (failure instanceof IOException io) throw io;
+                    if (failure instanceof RuntimeException re) throw re;
+                    if (failure instanceof Error err) throw err;
+                    progress.accept((int) (100L * bounds[k + 1] / Math.max(size, 1)));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Операцію скасовано");
+            } catch (ExecutionException ex) {
+                throw new IOException(ex.getCause());
+            } finally {
+                abort.set(true);
+                for (ForkJoinTask<T> t : tasks) t.cancel(false);
+            }
+            return results;
+        } catch (ClosedByInterruptException ex) {
+            throw new CancellationException("Операцію скасовано");
+        }
+    }
+
+    /**
+     * Ділить файл на частини, що закінчуються на межі рядка.
+     *
+     * @return зростаючі межі частин; перша — 0, остання — {@code size}
+     */
+    private static long[] chunkBounds(FileChannel ch, long size, int parallelism) throws IOException {
+        long parts = Math.max(1, (long) parallelism * 4);
+        parts = Math.max(parts, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long step = Math.max(size / parts, MIN_CHUNK_BYTES);
+
+        long[] bounds = new long[16];
+        int count = 1;
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long end = 0;
+        while (end < size) {
+            long next = end + step >= size ? size : lineEnd(ch, end + step, size, probe);
+            if (next - end > Integer.MAX_VALUE) {
+                throw new IOException("Рядок файлу задовгий для паралельного розбору");
+            }
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, count * 2);
+            }
+            bounds[count++] = next;
+            end = next;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Знаходить позицію одразу після першого завершення рядка, що
+     * починається не раніше за {@code pos}. Пара {@code \r\n} вважається
+     * одним завершенням, навіть якщо {@code pos} припадає між ними.
+     */
+    private static long lineEnd(FileChannel ch, long pos, long size, ByteBuffer probe) throws IOException {
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) return size;
+            for (int i = 0; i < n; i++) {
+                byte b = probe.get(i);
+                if (b == '\n') return pos + i + 1;
+                if (b == '\r') {
+                    long next = pos + i + 1;
+                    if (i + 1 < n) {
+                        return probe.get(i + 1) == '\n' ? next + 1 : next;
+                    }
+                    ByteBuffer one = ByteBuffer.allocate(1);
+                    return ch.read(one, next) == 1 && one.get(0) == '\n' ? next + 1 : next;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private void checkCancelled() {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Операцію скасовано");
+        }
+    }
+
+    /**
+     * Читає фрагмент {@code [from, to)} файлу як канал. Позиційне читання
+     * не зсуває позицію спільного каналу, тож частини читаються паралельно.
+     */
+    private static final class RangeChannel implements ReadableByteChannel {
+        private final FileChannel ch;
+        private final long to;
+        private long pos;
+
+        RangeChannel(FileChannel ch, long from, long to) {
+            this.ch = ch;
+            this.pos = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (pos >= to) return -1;
+            int limit = dst.limit();
+            if (to - pos < dst.remaining()) {
+                dst.limit(dst.position() + (int) (to - pos));
+            }
+            try {
+                int n = ch.read(dst, pos);
+                if (n > 0) pos += n;
+                return n;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Розбирає один рядок {@code a[from, to)} без символів завершення.
+     */
+    private void parseLine(byte[] a, int from, int to, ServicemanRowSink sink) throws IOException {
+        // String.trim(): прибираються символи до пробілу включно; у UTF-8 це
+        // саме однобайтові коди <= 0x20, тож обрізати можна прямо в байтах
+        while (from < to && (a[from] & 0xFF) <= ' ') from++;
+        while (to > from && (a[to - 1] & 0xFF) <= ' ') to--;
+        if (from == to || a[from] == '#') return;
+
+        // split(";") відкидає порожні поля в кінці, тож важить номер
+        // останнього непорожнього поля, а не кількість роздільників
+        int field = 0;
+        int parts = 0;
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i < to && a[i] != ';') continue;
+            if (i > start) parts = field + 1;
+            if (field < FIELDS) {
+                starts[field] = start;
+                ends[field] = i;
+            }
+            field++;
+            start = i + 1;
+        }
+        if (parts < 4) return;
+
+        for (int f = 0; f < Math.min(parts, FIELDS); f++) {
+            int s = starts[f];
+            int e = ends[f];
+            while (s < e && (a[s] & 0xFF) <= ' ') s++;
+            while (e > s && (a[e - 1] & 0xFF) <= ' ') e--;
+            starts[f] = s;
+            ends[f] = e;
+        }
+
+        int years = parseInt(a, starts[3], ends[3]);
+        byte type = type(a, starts[0], ends[0]);
+        if (type < 0) return;
+
+        String name = decode(a, starts[1], ends[1]);
+        String rank = ranks.get(a, starts[2], ends[2]);
+        String position = null;
+        if (type == ServicemanColumns.TYPE_OFFICER) {
+            position = parts >= 5 ? positions.get(a, starts[4], ends[4]) : "";
+        }
+        sink.row(type, name, rank, years, position);
+    }
+
+    /**
+     * Визначає тип запису так само, як {@code equalsIgnoreCase("S"/"O")}.
+     *
+     * @return тег типу або -1, якщо тип невідомий
+     */
+    private byte type(byte[] a, int from, int to) throws IOException {
+        if (to - from == 1) {
+            byte c = a[from];
+            if (c == 'S' || c == 's') return ServicemanColumns.TYPE_SOLDIER;
+            if (c == 'O' || c == 'o') return ServicemanColumns.TYPE_OFFICER;
+            return -1;
+        }
+        // небагато не-ASCII символів теж рівні "S"/"O" без урахування регістру
+        if (to - from > 1 && a[from] < 0) {
+            String t = decode(a, from, to);
+            if (t.equalsIgnoreCase("S")) return ServicemanColumns.TYPE_SOLDIER;
+            if (t.equalsIgnoreCase("O")) return ServicemanColumns.TYPE_OFFICER;
+        }
+        return -1;
+    }
+
+    /**
+     * Розбирає десяткове число з байтів. Для не-ASCII цифр, які теж
+     * приймає {@link Integer#parseInt(String)}, використовується саме він.
+     *
+     * @throws NumberFormatException якщо поле не є числом типу {@code int}
+     */
+    private int parseInt(byte[] a, int from, int to) throws IOException {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (a[i] == '-' || a[i] == '+')) {
+            negative = a[i] == '-';
+            i++;
+        }
+        if (i == to) {
+            return Integer.parseInt(decode(a, from, to));
+        }
+        // накопичення у від'ємному діапазоні вміщує і Integer.MIN_VALUE
+        long result = 0;
+        for (; i < to; i++) {
+            int d = a[i] - '0';
+            if (d < 0 || d > 9) {
+                return Integer.parseInt(decode(a, from, to));
+            }
+            result = result * 10 - d;
+            if (result < Integer.MIN_VALUE) {
+                return Integer.parseInt(decode(a, from, to));
+            }
+        }
+        if (!negative) {
+            if (result == Integer.MIN_VALUE) {
+                return Integer.parseInt(decode(a, from, to));
+            }
+            result = -result;
+        }
+        return (int) result;
+    }
+
+    private String decode(byte[] a, int from, int to) throws CharacterCodingException {
+        for (int i = from; i < to; i++) {
+            if (a[i] < 0) {
+                CharBuffer chars = decoder.decode(ByteBuffer.wrap(a, from, to - from));
+                return chars.toString();
+            }
+        }
+        return new String(a, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Таблиця рядків, що повторюються (звання, посади): пошук іде за
+     * байтами поля, тож для вже відомого значення нічого не створюється.
+     */
+    private final class StringTable {
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int count;
+
+        String get(byte[] a, int from, int to) throws CharacterCodingException {
+            int len = to - from;
+            int h = 1;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + a[i];
+            }
+            int mask = keys.length - 1;
+            int pos = (h ^ (h >>> 16)) & mask;
+            while (keys[pos] != null) {
+                byte[] k = keys[pos];
+                if (k.length == len && Arrays.equals(k, 0, len, a, from, to)) {
+                    return values[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+            String value = decode(a, from, to);
+            keys[pos] = Arrays.copyOfRange(a, from, to);
+            values[pos] = value;
+            if (++count * 2 > keys.length) {
+                rehash();
+            }
+            return value;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                byte[] k = oldKeys[i];
+                if (k == null) continue;
+                int h = 1;
+                for (byte b : k) {
+                    h = 31 * h + b;
+                }
+                int pos = (h ^ (h >>> 16)) & mask;
+                while (keys[pos] != null) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = k;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+}
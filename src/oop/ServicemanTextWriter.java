@@ -0,0 +1,205 @@
+package oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * Потоковий запис текстового формату {@code type;name;rank;years;position},
+ * який читає {@link ServicemanTextParser}.
+ *
+ * <p>Кожен рядок складається в невеликий {@link CharBuffer} (він росте лише
+ * під довший рядок), кодується {@link CharsetEncoder} UTF-8 прямо у
+ * прямий буфер з {@link DirectBufferPool} і скидається у {@link FileChannel}
+ * блоками по {@link DirectBufferPool#BUFFER_BYTES}. Проміжних рядків і
+ * масивів байтів немає, тож пам'ять не залежить від розміру масиву.</p>
+ *
+ * <p>Файл читається назад без втрат. Значення, які розбір змінив би,
+ * відхиляються: поля з {@code ';'}, {@code \r} або {@code \n}, з пробілами
+ * чи керівними символами на краях (розбір обрізає поля як
+ * {@link String#trim()}), відсутні ({@code null}) поля і рядки з
+ * непарними сурогатами, які не мають подання в UTF-8.</p>
+ */
+final class ServicemanTextWriter {
+
+    /** Як часто перевіряти скасування і повідомляти прогрес. */
+    private static final int CHECK_ROWS = 4096;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private final FileChannel ch;
+    private final ByteBuffer out;
+    private CharBuffer line = CharBuffer.allocate(256);
+
+    private ServicemanTextWriter(FileChannel ch, ByteBuffer out) {
+        this.ch = ch;
+        this.out = out;
+    }
+
+    /**
+     * Записує рядки у файл. Рядки пишуться в тимчасовий файл поруч
+     * ({@code <ім'я>.tmp}), який після успішного запису атомарно замінює
+     * цільовий. Якщо запис не вдався або скасований, тимчасовий файл
+     * видаляється, а наявний файл лишається без змін.
+     *
+     * @param path     файл
+     * @param rows     рядки для запису
+     * @param progress прогрес у відсотках
+     * @throws IOException якщо файл не вдалося записати або значення не
+     *                     можна подати в текстовому форматі
+     */
+    static void write(Path path, ServicemanBinaryFile.Rows rows, IntConsumer progress) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer out = DirectBufferPool.acquire();
+            try {
+                new ServicemanTextWriter(ch, out).writeRows(rows, progress);
+            } finally {
+                DirectBufferPool.release(out);
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeRows(ServicemanBinaryFile.Rows rows, IntConsumer progress) throws IOException {
+        int n = rows.getSize();
+        for (int i = 0; i < n; i++) {
+            if (i % CHECK_ROWS == 0) {
+                ServicemanArrayManager.checkCancelled();
+                progress.accept((int) (100L * i / Math.max(n, 1)));
+            }
+            boolean officer = rows.isOfficerAt(i);
+            line.clear();
+            append(officer ? "O" : "S");
+            append(';');
+            appendField(i, "ПІБ", rows.getNameAt(i));
+            append(';');
+            appendField(i, "звання", rows.getRankAt(i));
+            append(';');
+            appendInt(rows.getYearsAt(i));
+            append(';');
+            if (officer) {
+                appendField(i, "посада", rows.getPositionAt(i));
+            }
+            append('\n');
+            line.flip();
+            encode(i);
+        }
+
+        // кодувальник UTF-8 нічого не тримає після завершеного рядка, але
+        // послідовність завершення обов'язкова для CharsetEncoder
+        line.clear().flip();
+        encoder.encode(line, out, true);
+        encoder.flush(out);
+        drain();
+    }
+
+    /**
+     * Додає поле, яке розбір має повернути без змін.
+     *
+     * @throws IOException якщо поле відсутнє або розбір його змінив би
+     */
+    private void appendField(int row, String what, String value) throws IOException {
+        if (value == null) {
+            throw unrepresentable(row, "поле \"" + what + "\" відсутнє");
+        }
+        int len = value.length();
+        if (len > 0 && (value.charAt(0) <= ' ' || value.charAt(len - 1) <= ' ')) {
+            throw unrepresentable(row, "поле \"" + what
+                    + "\" має пробіли або керівні символи на краях, які обріжуться");
+        }
+        for (int k = 0; k < len; k++) {
+            char c = value.charAt(k);
+            if (c == ';' || c == '\n' || c == '\r') {
+                throw unrepresentable(row, "поле \"" + what + "\" містить роздільник ';' або кінець рядка");
+            }
+        }
+        append(value);
+    }
+
+    private void append(String s) {
+        if (line.remaining() < s.length()) {
+            growLine(s.length());
+        }
+        line.put(s);
+    }
+
+    private void append(char c) {
+        if (!line.hasRemaining()) {
+            growLine(1);
+        }
+        line.put(c);
+    }
+
+    // Десятковий запис як Integer.toString, але без проміжного рядка
+    private void appendInt(int v) {
+        if (line.remaining() < 11) {
+            growLine(11);
+        }
+        if (v < 0) {
+            line.put('-');
+        } else {
+            v = -v;
+        }
+        int start = line.position();
+        do {
+            line.put((char) ('0' - v % 10));
+            v /= 10;
+        } while (v != 0);
+        // цифри записано з кінця — розвертаємо на місці
+        for (int l = start, r = line.position() - 1; l < r; l++, r--) {
+            char c = line.get(l);
+            line.put(l, line.get(r));
+            line.put(r, c);
+        }
+    }
+
+    private void growLine(int extra) {
+        CharBuffer grown = CharBuffer.allocate(Math.max(line.capacity() * 2, line.position() + extra));
+        line.flip();
+        grown.put(line);
+        line = grown;
+    }
+
+    /** Кодує складений рядок; повний буфер скидається у файл. */
+    private void encode(int row) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(line, out, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isError()) {
+                throw unrepresentable(row, "символи без подання в UTF-8 (непарний сурогат)");
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            ch.write(out);
+        }
+        out.clear();
+    }
+
+    private static IOException unrepresentable(int row, String reason) {
+        return new IOException("Запис " + row + " не можна записати в текстовий файл: " + reason);
+    }
+}
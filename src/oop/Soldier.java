@@ -10,6 +10,12 @@ package oop;
  */
 public class Soldier extends Serviceman {
 
+    /** Базовий оклад солдата в копійках (15000 грн). */
+    public static final long BASE_SALARY_CENTS = 1_500_000;
+
+    /** Надбавка за кожен рік служби в копійках (400 грн). */
+    public static final long YEAR_BONUS_CENTS = 40_000;
+
     /**
      * Конструктор за замовчуванням.
      * Створює солдата з типовими значеннями:
@@ -48,12 +54,13 @@ public class Soldier extends Serviceman {
     /**
      * Обчислює зарплату солдата.
      * Базовий оклад становить 15000 грн, а за кожен рік служби додається 400 грн.
+     * Пакетний розрахунок ({@link PayrollEngine}) використовує ті самі константи.
      *
      * @return обчислена зарплата
      */
     @Override
     public double calculateSalary() {
-        return 15000 + getYearsOfService() * 400;
+        return (BASE_SALARY_CENTS + getYearsOfService() * YEAR_BONUS_CENTS) / 100.0;
     }
 
     /**
@@ -0,0 +1,97 @@
+package oop;
+
+/**
+ * Зведені показники підрозділу разом з усіма вкладеними підрозділами
+ * (див. {@link MilitaryUnit#getRollUp()}). Об'єкт незмінний.
+ */
+public final class UnitRollUp {
+
+    private final int unitCount;
+    private final int headcount;
+    private final int officerCount;
+    private final long salaryCents;
+    private final long totalYears;
+    /** Найменший стаж; {@link Integer#MAX_VALUE}, якщо особового складу немає. */
+    private final int minYears;
+    /** Найбільший стаж; {@link Integer#MIN_VALUE}, якщо особового складу немає. */
+    private final int maxYears;
+
+    UnitRollUp(int unitCount, int headcount, int officerCount, long salaryCents,
+               long totalYears, int minYears, int maxYears) {
+        this.unitCount = unitCount;
+        this.headcount = headcount;
+        this.officerCount = officerCount;
+        this.salaryCents = salaryCents;
+        this.totalYears = totalYears;
+        this.minYears = headcount == 0 ? Integer.MAX_VALUE : minYears;
+        this.maxYears = headcount == 0 ? Integer.MIN_VALUE : maxYears;
+    }
+
+    /**
+     * Об'єднує показники двох частин дерева.
+     *
+     * @param other показники іншої частини
+     * @return нові сумарні показники
+     */
+    UnitRollUp plus(UnitRollUp other) {
+        return new UnitRollUp(unitCount + other.unitCount,
+                headcount + other.headcount,
+                officerCount + other.officerCount,
+                salaryCents + other.salaryCents,
+                totalYears + other.totalYears,
+                Math.min(minYears, other.minYears),
+                Math.max(maxYears, other.maxYears));
+    }
+
+    /** @return кількість підрозділів (разом із самим підрозділом) */
+    public int getUnitCount() { return unitCount; }
+
+    /** @return загальна чисельність особового складу */
+    public int getHeadcount() { return headcount; }
+
+    /** @return кількість офіцерів */
+    public int getOfficerCount() { return officerCount; }
+
+    /** @return кількість солдатів (усіх, хто не є офіцером) */
+    public int getSoldierCount() { return headcount - officerCount; }
+
+    /** @return загальна зарплата в копійках */
+    public long getSalaryCents() { return salaryCents; }
+
+    /** @return загальна зарплата в гривнях */
+    public double getTotalSalary() { return salaryCents / 100.0; }
+
+    /** @return сумарний стаж */
+    public long getTotalYears() { return totalYears; }
+
+    /** @return найменший стаж або 0, якщо особового складу немає */
+    public int getMinYears() { return headcount == 0 ? 0 : minYears; }
+
+    /** @return найбільший стаж або 0, якщо особового складу немає */
+    public int getMaxYears() { return headcount == 0 ? 0 : maxYears; }
+
+    /** @return середній стаж або 0, якщо особового складу немає */
+    public double getAverageYears() { return headcount == 0 ? 0 : (double) totalYears / headcount; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UnitRollUp r)) return false;
+        return unitCount == r.unitCount && headcount == r.headcount && officerCount == r.officerCount
+                && salaryCents == r.salaryCents && totalYears == r.totalYears
+                && minYears == r.minYears && maxYears == r.maxYears;
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Objects.hash(unitCount, headcount, officerCount, salaryCents, totalYears, minYears, maxYears);
+    }
+
+    @Override
+    public String toString() {
+        return "підрозділів: " + unitCount + ", осіб: " + headcount
+                + " (офіцерів: " + officerCount + "), фонд оплати: "
+                + PayrollReport.formatCents(salaryCents) + " грн, стаж: "
+                + getMinYears() + "–" + getMaxYears();
+    }
+}
@@ -0,0 +1,281 @@
+package oop;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Гістограмний індекс стажу служби.
+ *
+ * <p>Стаж — невелике обмежене ціле число, тому для кожного значення
+ * зберігається лише кількість рядків («кошик»). Цього достатньо, щоб:</p>
+ * <ul>
+ *     <li>сортувати за стажем лінійним сортуванням підрахунком;</li>
+ *     <li>за O(1) рахувати кількість рядків зі стажем у діапазоні;</li>
+ *     <li>одразу переходити до потрібних кошиків під час фільтрації.</li>
+ * </ul>
+ *
+ * <p>Індекс також пам'ятає, чи масив зараз відсортований за стажем:
+ * тоді рядки діапазону {@code [a, b]} ідуть суцільним відрізком. Інакше
+ * за потреби будується перелік рядків, згрупований за кошиками.</p>
+ */
+final class YearsIndex {
+
+    /** Максимальна ширина діапазону значень, для якої індекс має сенс. */
+    static final int MAX_RANGE = 1 << 16;
+
+    /** Поточне розташування рядків відносно стажу. */
+    private enum Layout { UNKNOWN, ASCENDING, DESCENDING }
+
+    /** Найменше значення, яке вміщує {@link #counts}. */
+    private int lo;
+    /** Кількість рядків для кожного значення стажу {@code lo + k}. */
+    private int[] counts;
+    private int size;
+
+    /** Префіксні суми {@link #counts} (довжина на 1 більша); {@code null}, якщо застаріли. */
+    private int[] starts;
+    /** Індекси рядків, згруповані за кошиками; {@code null}, якщо ще не побудовано. */
+    private int[] order;
+    private Layout layout = Layout.UNKNOWN;
+
+    private YearsIndex(int lo, int[] counts, int size) {
+        this.lo = lo;
+        this.counts = counts;
+        this.size = size;
+    }
+
+    /**
+     * Будує індекс за стажем рядків {@code 0..n-1}.
+     *
+     * @param yearsAt функція «індекс рядка → стаж»
+     * @param n       кількість рядків
+     * @return індекс або {@code null}, якщо діапазон значень завеликий
+     */
+    static YearsIndex build(IntUnaryOperator yearsAt, int n) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int y = yearsAt.applyAsInt(i);
+            if (y < min) min = y;
+            if (y > max) max = y;
+        }
+        if (n == 0) {
+            min = 0;
+            max = 0;
+        }
+        if ((long) max - min + 1 > MAX_RANGE) {
+            return null;
+        }
+        int[] counts = new int[max - min + 1];
+        for (int i = 0; i < n; i++) {
+            counts[yearsAt.applyAsInt(i) - min]++;
+        }
+        return new YearsIndex(min, counts, n);
+    }
+
+    /** @return кількість проіндексованих рядків */
+    int size() { return size; }
+
+    /**
+     * Враховує новий рядок, доданий у кінець масиву.
+     *
+     * @param years стаж нового рядка
+     * @return {@code false}, якщо значення не вміщується в допустимий діапазон
+     */
+    boolean add(int years) {
+        if (!ensureRange(years)) return false;
+        counts[years - lo]++;
+        size++;
+        starts = null;
+        if (layout != Layout.UNKNOWN || order != null) {
+            invalidateOrder();
+        }
+        return true;
+    }
+
+    /**
+     * Вилучає з індексу один рядок зі стажем {@code years}.
+     *
+     * @param years стаж вилученого рядка (має бути врахований індексом)
+     */
+    void remove(int years) {
+        counts[years - lo]--;
+        size--;
+        starts = null;
+        invalidateOrder();
+    }
+
+    /**
+     * Повертає найменший стаж серед проіндексованих рядків. Кошики
+     * переглядаються від нижньої межі, тож вартість — не більше ширини
+     * діапазону значень.
+     *
+     * @return найменше значення або 0, якщо індекс порожній
+     */
+    int min() {
+        for (int k = 0; k < counts.length; k++) {
+            if (counts[k] != 0) return lo + k;
+        }
+        return 0;
+    }
+
+    /**
+     * Повертає найбільший стаж серед проіндексованих рядків (див. {@link #min()}).
+     *
+     * @return найбільше значення або 0, якщо індекс порожній
+     */
+    int max() {
+        for (int k = counts.length - 1; k >= 0; k--) {
+            if (counts[k] != 0) return lo + k;
+        }
+        return 0;
+    }
+
+    /**
+     * Переносить один рядок з кошика {@code oldYears} у кошик {@code newYears}.
+     *
+     * @param oldYears попередній стаж
+     * @param newYears новий стаж
+     * @return {@code false}, якщо нове значення не вміщується в допустимий діапазон
+     */
+    boolean update(int oldYears, int newYears) {
+        if (oldYears == newYears) return true;
+        if (!ensureRange(newYears)) return false;
+        counts[oldYears - lo]--;
+        counts[newYears - lo]++;
+        starts = null;
+        invalidateOrder();
+        return true;
+    }
+
+    /**
+     * Позначає, що рядки переставлено або змінено стороннім кодом:
+     * кількості у кошиках лишаються чинними, а розташування — ні.
+     */
+    void invalidateOrder() {
+        order = null;
+        layout = Layout.UNKNOWN;
+    }
+
+    /**
+     * Позначає, що масив щойно відсортовано за стажем.
+     *
+     * @param descending {@code true} — за спаданням
+     */
+    void markSorted(boolean descending) {
+        order = null;
+        layout = descending ? Layout.DESCENDING : Layout.ASCENDING;
+    }
+
+    /**
+     * Рахує рядки зі стажем у діапазоні {@code [from, to]} за O(1).
+     *
+     * @param from нижня межа (включно)
+     * @param to   верхня межа (включно)
+     * @return кількість рядків
+     */
+    int countInRange(int from, int to) {
+        int a = Math.max(from, lo);
+        int b = Math.min(to, lo + counts.length - 1);
+        if (a > b) return 0;
+        int[] s = starts();
+        return s[b - lo + 1] - s[a - lo];
+    }
+
+    /**
+     * Обчислює стабільну перестановку для сортування підрахунком:
+     * новий рядок {@code k} — це старий рядок {@code result[k]}.
+     *
+     * @param yearsAt    функція «індекс рядка → стаж»
+     * @param descending {@code true} — за спаданням
+     * @return перестановка індексів
+     */
+    int[] sortOrder(IntUnaryOperator yearsAt, boolean descending) {
+        int[] s = starts();
+        int buckets = counts.length;
+        int[] next = new int[buckets];
+        for (int k = 0; k < buckets; k++) {
+            next[k] = descending ? size - s[k + 1] : s[k];
+        }
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[next[yearsAt.applyAsInt(i) - lo]++] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Повертає індекси рядків зі стажем у діапазоні {@code [from, to]}
+     * у порядку зростання індексу. Якщо масив відсортований за стажем,
+     * це суцільний відрізок і рядки взагалі не переглядаються.
+     *
+     * @param from    нижня межа (включно)
+     * @param to      верхня межа (включно)
+     * @param yearsAt функція «індекс рядка → стаж» (для побудови переліку кошиків)
+     * @return відсортований масив індексів
+     */
+    int[] rowsInRange(int from, int to, IntUnaryOperator yearsAt) {
+        int a = Math.max(from, lo);
+        int b = Math.min(to, lo + counts.length - 1);
+        if (a > b) return new int[0];
+        int[] s = starts();
+        int begin = s[a - lo];
+        int end = s[b - lo + 1];
+        if (begin == end) return new int[0];
+
+        switch (layout) {
+            case ASCENDING:
+                return sequence(begin, end);
+            case DESCENDING:
+                return sequence(size - end, size - begin);
+            default:
+                if (order == null) {
+                    order = sortOrder(yearsAt, false);
+                }
+                int[] rows = Arrays.copyOfRange(order, begin, end);
+                if (a != b) {
+                    Arrays.sort(rows);
+                }
+                return rows;
+        }
+    }
+
+    private static int[] sequence(int from, int to) {
+        int[] rows = new int[to - from];
+        for (int k = 0; k < rows.length; k++) {
+            rows[k] = from + k;
+        }
+        return rows;
+    }
+
+    private int[] starts() {
+        int[] s = starts;
+        if (s == null) {
+            s = new int[counts.length + 1];
+            for (int k = 0; k < counts.length; k++) {
+                s[k + 1] = s[k] + counts[k];
+            }
+            starts = s;
+        }
+        return s;
+    }
+
+    /**
+     * Розширює діапазон кошиків так, щоб він уміщував {@code years}.
+     *
+     * @return {@code false}, якщо діапазон перевищив би {@link #MAX_RANGE}
+     */
+    private boolean ensureRange(int years) {
+        int hi = lo + counts.length - 1;
+        if (years >= lo && years <= hi) return true;
+        int newLo = Math.min(lo, years);
+        int newHi = Math.max(hi, years);
+        if ((long) newHi - newLo + 1 > MAX_RANGE) return false;
+        int[] grown = new int[newHi - newLo + 1];
+        System.arraycopy(counts, 0, grown, lo - newLo, counts.length);
+        counts = grown;
+        lo = newLo;
+        starts = null;
+        return true;
+    }
+}